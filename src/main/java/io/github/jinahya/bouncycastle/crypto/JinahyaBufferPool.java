@@ -0,0 +1,344 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-classed pool of heap arrays and direct buffers.
+ * <p>
+ * Lengths are rounded up to powers of two, between {@value #MINIMUM_CLASS_LENGTH} and {@value #MAXIMUM_CLASS_LENGTH}
+ * bytes; each power of two is a <em>size class</em>. Released buffers are zeroed, and then cached in a small
+ * thread-local tier, for size classes up to {@value #MAXIMUM_THREAD_LOCAL_CLASS_LENGTH} bytes, and then in a shared,
+ * lock-free, overflow tier. A request for a length greater than {@value #MAXIMUM_CLASS_LENGTH} bytes is served with a
+ * new buffer which is never cached.
+ * <p>
+ * Virtual threads bypass the thread-local tier, and use only the shared tier. A pool without the thread-local tier
+ * may be created with a {@code threadLocalCapacity} of zero, and be set on a crypto with the
+ * {@link JinahyaCipherCrypto#setBufferPool(JinahyaBufferPool)} method.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaScratchBuffers
+ */
+public final class JinahyaBufferPool {
+
+    /**
+     * The length of the smallest size class.
+     */
+    public static final int MINIMUM_CLASS_LENGTH = 512;
+
+    /**
+     * The length of the largest size class.
+     */
+    public static final int MAXIMUM_CLASS_LENGTH = 1 << 20;
+
+    /**
+     * The length of the largest size class cached in the thread-local tier.
+     */
+    public static final int MAXIMUM_THREAD_LOCAL_CLASS_LENGTH = 1 << 16;
+
+    private static final int MINIMUM_CLASS_SHIFT = Integer.numberOfTrailingZeros(MINIMUM_CLASS_LENGTH);
+
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAXIMUM_CLASS_LENGTH) - MINIMUM_CLASS_SHIFT + 1;
+
+    private static final int THREAD_LOCAL_CLASSES =
+            Integer.numberOfTrailingZeros(MAXIMUM_THREAD_LOCAL_CLASS_LENGTH) - MINIMUM_CLASS_SHIFT + 1;
+
+    private static final byte[] ZEROS = new byte[MINIMUM_CLASS_LENGTH];
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private static final class InstanceHolder {
+
+        private static final JinahyaBufferPool INSTANCE = new JinahyaBufferPool(2, 16);
+
+        private InstanceHolder() {
+            throw new AssertionError("instantiation is not allowed");
+        }
+    }
+
+    /**
+     * Returns the default instance which caches {@code 2} buffers per size class on each thread, and {@code 16}
+     * buffers per size class in the shared tier.
+     *
+     * @return the default instance.
+     */
+    public static JinahyaBufferPool getDefault() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the index of the size class for specified length.
+     *
+     * @param length the length.
+     * @return the index of the size class for the {@code length}; {@code -1} if the {@code length} is greater than
+     * {@value #MAXIMUM_CLASS_LENGTH}.
+     */
+    static int classIndex(final int length) {
+        if (length > MAXIMUM_CLASS_LENGTH) {
+            return -1;
+        }
+        if (length <= MINIMUM_CLASS_LENGTH) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - MINIMUM_CLASS_SHIFT;
+    }
+
+    /**
+     * Returns the length of the size class of specified index.
+     *
+     * @param index the index of the size class.
+     * @return the length of the size class.
+     */
+    static int classLength(final int index) {
+        return MINIMUM_CLASS_LENGTH << index;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     *
+     * @param threadLocalCapacity the number of buffers cached, per size class, on each thread; may be zero.
+     * @param sharedCapacity      the number of buffers cached, per size class, in the shared tier; may be zero.
+     */
+    public JinahyaBufferPool(final int threadLocalCapacity, final int sharedCapacity) {
+        super();
+        if (threadLocalCapacity < 0) {
+            throw new IllegalArgumentException("threadLocalCapacity(" + threadLocalCapacity + ") is negative");
+        }
+        if (sharedCapacity < 0) {
+            throw new IllegalArgumentException("sharedCapacity(" + sharedCapacity + ") is negative");
+        }
+        this.threadLocalCapacity = threadLocalCapacity;
+        localArrays = ThreadLocal.withInitial(() -> new byte[THREAD_LOCAL_CLASSES][threadLocalCapacity][]);
+        localBuffers = ThreadLocal.withInitial(() -> new ByteBuffer[THREAD_LOCAL_CLASSES][threadLocalCapacity]);
+        sharedArrays = new Tier<>(sharedCapacity);
+        sharedBuffers = new Tier<>(sharedCapacity);
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "allocations=" + getAllocationCount() +
+               ",reuses=" + getReuseCount() +
+               '}';
+    }
+
+    /**
+     * Checks whether the thread-local tier may be used by the current thread. The tier is bypassed on virtual threads,
+     * which are short-lived and numerous, so that each of them does not build, and then drop, its own tier.
+     *
+     * @return {@code true} if the thread-local tier may be used; {@code false} otherwise.
+     */
+    private boolean local() {
+        return threadLocalCapacity > 0 && !JinahyaCryptoThreads.isVirtual(Thread.currentThread());
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- array
+
+    /**
+     * Acquires an array whose length is not less than specified length.
+     *
+     * @param length the minimum length of the array.
+     * @return an array, filled with zeros, whose length is not less than the {@code length}.
+     */
+    public byte[] acquireArray(final int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length(" + length + ") is negative");
+        }
+        final var index = classIndex(length);
+        if (index == -1) {
+            allocations.increment();
+            return new byte[length];
+        }
+        if (index < THREAD_LOCAL_CLASSES && local()) {
+            final var slots = localArrays.get()[index];
+            for (int i = 0; i < threadLocalCapacity; i++) {
+                final var array = slots[i];
+                if (array != null) {
+                    slots[i] = null;
+                    reuses.increment();
+                    return array;
+                }
+            }
+        }
+        final var array = sharedArrays.poll(index);
+        if (array != null) {
+            reuses.increment();
+            return array;
+        }
+        allocations.increment();
+        return new byte[classLength(index)];
+    }
+
+    /**
+     * Releases specified array, previously acquired, after filling it with zeros. An array whose length is not of a
+     * size class is zeroed and dropped.
+     *
+     * @param array the array to release.
+     */
+    public void releaseArray(final byte[] array) {
+        Objects.requireNonNull(array, "array is null");
+        Arrays.fill(array, (byte) 0);
+        final var index = classIndex(array.length);
+        if (index == -1 || classLength(index) != array.length) {
+            return;
+        }
+        if (index < THREAD_LOCAL_CLASSES && local()) {
+            final var slots = localArrays.get()[index];
+            for (int i = 0; i < threadLocalCapacity; i++) {
+                if (slots[i] == null) {
+                    slots[i] = array;
+                    return;
+                }
+            }
+        }
+        sharedArrays.offer(index, array);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- direct
+
+    /**
+     * Acquires a direct buffer whose capacity is not less than specified capacity. The buffer is returned cleared.
+     *
+     * @param capacity the minimum capacity of the buffer.
+     * @return a cleared direct buffer, filled with zeros, whose capacity is not less than the {@code capacity}.
+     */
+    public ByteBuffer acquireDirect(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity(" + capacity + ") is negative");
+        }
+        final var index = classIndex(capacity);
+        if (index == -1) {
+            allocations.increment();
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        if (index < THREAD_LOCAL_CLASSES && local()) {
+            final var slots = localBuffers.get()[index];
+            for (int i = 0; i < threadLocalCapacity; i++) {
+                final var buffer = slots[i];
+                if (buffer != null) {
+                    slots[i] = null;
+                    reuses.increment();
+                    return buffer;
+                }
+            }
+        }
+        final var buffer = sharedBuffers.poll(index);
+        if (buffer != null) {
+            reuses.increment();
+            return buffer;
+        }
+        allocations.increment();
+        return ByteBuffer.allocateDirect(classLength(index));
+    }
+
+    /**
+     * Releases specified direct buffer, previously acquired, after filling its whole capacity with zeros. A buffer
+     * which is not direct, or whose capacity is not of a size class, is zeroed and dropped.
+     *
+     * @param buffer the buffer to release.
+     */
+    public void releaseDirect(final ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "buffer is null");
+        if (buffer.isReadOnly()) {
+            return;
+        }
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            buffer.put(ZEROS, 0, Math.min(buffer.remaining(), ZEROS.length));
+        }
+        buffer.clear();
+        final var index = classIndex(buffer.capacity());
+        if (!buffer.isDirect() || index == -1 || classLength(index) != buffer.capacity()) {
+            return;
+        }
+        if (index < THREAD_LOCAL_CLASSES && local()) {
+            final var slots = localBuffers.get()[index];
+            for (int i = 0; i < threadLocalCapacity; i++) {
+                if (slots[i] == null) {
+                    slots[i] = buffer;
+                    return;
+                }
+            }
+        }
+        sharedBuffers.offer(index, buffer);
+    }
+
+    // --------------------------------------------------------------------------------------------------------- metrics
+
+    /**
+     * Returns the number of buffers newly allocated by this pool.
+     *
+     * @return the number of allocations.
+     */
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    /**
+     * Returns the number of requests served with a cached buffer.
+     *
+     * @return the number of reuses.
+     */
+    public long getReuseCount() {
+        return reuses.sum();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A shared tier of a bounded number of buffers per size class.
+     *
+     * @param <T> buffer type parameter
+     */
+    private static final class Tier<T> {
+
+        private Tier(final int capacity) {
+            super();
+            slots = new AtomicReferenceArray<>(CLASSES * capacity);
+            this.capacity = capacity;
+        }
+
+        private T poll(final int index) {
+            for (int i = index * capacity, j = i + capacity; i < j; i++) {
+                final var buffer = slots.get(i);
+                if (buffer != null && slots.compareAndSet(i, buffer, null)) {
+                    return buffer;
+                }
+            }
+            return null;
+        }
+
+        private void offer(final int index, final T buffer) {
+            for (int i = index * capacity, j = i + capacity; i < j; i++) {
+                if (slots.get(i) == null && slots.compareAndSet(i, null, buffer)) {
+                    return;
+                }
+            }
+        }
+
+        private final AtomicReferenceArray<T> slots;
+
+        private final int capacity;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final int threadLocalCapacity;
+
+    private final ThreadLocal<byte[][][]> localArrays;
+
+    private final ThreadLocal<ByteBuffer[][]> localBuffers;
+
+    private final Tier<byte[]> sharedArrays;
+
+    private final Tier<ByteBuffer> sharedBuffers;
+
+    private final LongAdder allocations = new LongAdder();
+
+    private final LongAdder reuses = new LongAdder();
+}
@@ -3,6 +3,11 @@ package io.github.jinahya.bouncycastle.crypto;
 import org.bouncycastle.crypto.BufferedBlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.StreamBlockCipher;
+import org.bouncycastle.crypto.modes.CTRModeCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,11 +35,81 @@ public class JinahyaBufferedBlockCipherCrypto
         cipher.init(encryption, params);
     }
 
+    @Override
+    protected void initFor(final boolean encryption, final CipherParameters params) {
+        cipher.init(encryption, params);
+    }
+
+    @Override
+    protected CipherParameters newMessageParameters(final KeyParameter key, final byte[] iv, final byte[] aad) {
+        return new ParametersWithIV(key, iv);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the block size of the underlying cipher when it is a {@link CTRModeCipher}; {@code 0} when it is any
+     * other {@link StreamBlockCipher}, e.g. in OFB mode, but in CFB mode.
+     * @throws UnsupportedOperationException {@inheritDoc}; e.g. in CFB mode.
+     */
+    @Override
+    protected int getBatchCounterBlockSize() {
+        final var underlying = cipher.getUnderlyingCipher();
+        if (underlying instanceof CTRModeCipher) {
+            return underlying.getBlockSize();
+        }
+        if (underlying instanceof StreamBlockCipher && !isFeedbackMode(underlying)) {
+            return 0;
+        }
+        throw new UnsupportedOperationException("batches are not supported by " + underlying.getAlgorithmName());
+    }
+
+    @Override
+    protected int getUpdateOutputSize(final int inlen) {
+        return cipher.getUpdateOutputSize(inlen);
+    }
+
+    @Override
+    protected int getFinalOutputSize() {
+        return cipher.getOutputSize(0);
+    }
+
+    @Override
+    protected int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    @Override
+    protected int doFinal(final byte[] out, final int outoff) throws InvalidCipherTextException {
+        return cipher.doFinal(out, outoff);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The size is computed without touching the {@link #cipher}, so that it may be queried in the middle of a session,
+     * or a stream operation; a padded encryption adds, at most, a block, and, otherwise, the size is the same as the
+     * {@code inlen}.
+     */
+    @Override
+    public int getOutputSize(final boolean encryption, final int inlen) {
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        if (encryption && cipher instanceof PaddedBufferedBlockCipher) {
+            final var blockSize = cipher.getBlockSize();
+            return inlen - inlen % blockSize + blockSize;
+        }
+        return inlen;
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public byte[] encrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForEncryption();
+        final var start = metrics.start();
         final var out = new byte[cipher.getOutputSize(in.length)];
         try {
             final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
@@ -45,7 +120,7 @@ public class JinahyaBufferedBlockCipherCrypto
                     out,
                     0
             );
-            return Arrays.copyOf(out, outlen);
+            return Arrays.copyOf(out, processed(true, start, in.length, outlen));
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofEncryptionFailure(icte);
         }
@@ -54,12 +129,32 @@ public class JinahyaBufferedBlockCipherCrypto
     @Override
     public int encrypt(final ByteBuffer input, final ByteBuffer output) {
         initForEncryption();
+        final var start = metrics.start();
+        final var inlen = input.remaining();
         try {
-            return JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+            return processed(true, start, inlen, JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
                     cipher,
                     input,
                     output
-            );
+            ));
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+        }
+    }
+
+    @Override
+    public int encrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        initForEncryption();
+        final var start = metrics.start();
+        try {
+            return processed(true, start, inlen, JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+                    cipher,
+                    in,
+                    inoff,
+                    inlen,
+                    out,
+                    outoff
+            ));
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofEncryptionFailure(icte);
         }
@@ -70,6 +165,7 @@ public class JinahyaBufferedBlockCipherCrypto
     public byte[] decrypt(byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForDecryption();
+        final var start = metrics.start();
         final var out = new byte[cipher.getOutputSize(in.length)];
         try {
             final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
@@ -80,7 +176,7 @@ public class JinahyaBufferedBlockCipherCrypto
                     out,
                     0
             );
-            return Arrays.copyOf(out, outlen);
+            return Arrays.copyOf(out, processed(false, start, in.length, outlen));
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofDecryptionFailure(icte);
         }
@@ -89,29 +185,53 @@ public class JinahyaBufferedBlockCipherCrypto
     @Override
     public int decrypt(final ByteBuffer input, final ByteBuffer output) {
         initForDecryption();
+        final var start = metrics.start();
+        final var inlen = input.remaining();
         try {
-            return JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+            return processed(false, start, inlen, JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
                     cipher,
                     input,
                     output
-            );
+            ));
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofEncryptionFailure(icte);
         }
     }
 
+    @Override
+    public int decrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        initForDecryption();
+        final var start = metrics.start();
+        try {
+            return processed(false, start, inlen, JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+                    cipher,
+                    in,
+                    inoff,
+                    inlen,
+                    out,
+                    outoff
+            ));
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForEncryption();
+        final var start = metrics.start();
         try {
-            return JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
+            final var bytes = JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
                     cipher,
                     in,
                     out,
                     inbuf,
-                    null
+                    null,
+                    metrics
             );
+            metrics.processed(true, start);
+            return bytes;
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofEncryptionFailure(icte);
         }
@@ -121,14 +241,112 @@ public class JinahyaBufferedBlockCipherCrypto
     @Override
     public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForDecryption();
+        final var start = metrics.start();
         try {
-            return JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
+            final var bytes = JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
                     cipher,
                     in,
                     out,
                     inbuf,
-                    null
+                    null,
+                    metrics
             );
+            metrics.processed(false, start);
+            return bytes;
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------------------- message
+
+    /**
+     * Encrypts specified input with specified IV, reusing the key schedule of the {@link #cipher} when it has
+     * already been initialized with the key for encryption.
+     *
+     * @param iv the IV for the message.
+     * @param in the input to encrypt.
+     * @return an array of encrypted bytes.
+     * @see #initForMessage(boolean, byte[], byte[])
+     */
+    public byte[] encrypt(final byte[] iv, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        initForMessage(true, iv, null);
+        final var start = metrics.start();
+        final var out = new byte[cipher.getOutputSize(in.length)];
+        try {
+            final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+            return Arrays.copyOf(out, processed(true, start, in.length, outlen));
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Encrypts bytes in specified range of specified input array with specified IV, reusing the key schedule of the
+     * {@link #cipher} when it has already been initialized with the key for encryption.
+     *
+     * @param iv     the IV for the message.
+     * @param in     the input array.
+     * @param inoff  a starting index of the {@code in}.
+     * @param inlen  the number of bytes to encrypt.
+     * @param out    the output array.
+     * @param outoff a starting index of the {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     */
+    public int encrypt(final byte[] iv, final byte[] in, final int inoff, final int inlen, final byte[] out,
+                       final int outoff) {
+        initForMessage(true, iv, null);
+        final var start = metrics.start();
+        try {
+            return processed(true, start, inlen, JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+                    cipher, in, inoff, inlen, out, outoff));
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Decrypts specified input with specified IV, reusing the key schedule of the {@link #cipher} when it has
+     * already been initialized with the key for decryption.
+     *
+     * @param iv the IV for the message.
+     * @param in the input to decrypt.
+     * @return an array of decrypted bytes.
+     * @see #initForMessage(boolean, byte[], byte[])
+     */
+    public byte[] decrypt(final byte[] iv, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        initForMessage(false, iv, null);
+        final var start = metrics.start();
+        final var out = new byte[cipher.getOutputSize(in.length)];
+        try {
+            final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+            return Arrays.copyOf(out, processed(false, start, in.length, outlen));
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Decrypts bytes in specified range of specified input array with specified IV, reusing the key schedule of the
+     * {@link #cipher} when it has already been initialized with the key for decryption.
+     *
+     * @param iv     the IV for the message.
+     * @param in     the input array.
+     * @param inoff  a starting index of the {@code in}.
+     * @param inlen  the number of bytes to decrypt.
+     * @param out    the output array.
+     * @param outoff a starting index of the {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     */
+    public int decrypt(final byte[] iv, final byte[] in, final int inoff, final int inlen, final byte[] out,
+                       final int outoff) {
+        initForMessage(false, iv, null);
+        final var start = metrics.start();
+        try {
+            return processed(false, start, inlen, JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+                    cipher, in, inoff, inlen, out, outoff));
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofDecryptionFailure(icte);
         }
@@ -1,5 +1,7 @@
 package io.github.jinahya.bouncycastle.crypto;
 
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherFinalizeEvent;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherProcessEvent;
 import org.bouncycastle.crypto.BufferedBlockCipher;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 
@@ -57,14 +59,20 @@ public final class JinahyaBufferedBlockCipherUtils {
         if (outoff > out.length) {
             throw new IllegalArgumentException("outoff(" + outoff + ") > out.length(" + out.length + ")");
         }
+        final var event = new JinahyaCipherProcessEvent();
+        event.begin();
         var outlen = cipher.processBytes(in, inoff, inlen, out, outoff); // DataLengthException
-        outlen += cipher.doFinal(out, outlen); // InvalidCipherTextException
+        event.complete(cipher, inlen, outlen);
+        outlen += doFinal(cipher, out, outoff + outlen); // InvalidCipherTextException
         return outlen;
     }
 
     /**
      * Processes and finalizes, using specified cipher, all remaining bytes of specified input buffer, and put process
      * bytes to specified output buffer.
+     * <p>
+     * When both buffers are backed by accessible arrays, bytes are processed in place. Otherwise, bytes are streamed
+     * through {@link JinahyaScratchBuffers scratch windows} so that no full-size intermediate array is allocated.
      *
      * @param cipher the cipher.
      * @param input  the input buffer whose remaining bytes are processed.
@@ -79,39 +87,82 @@ public final class JinahyaBufferedBlockCipherUtils {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(input, "input is null");
         Objects.requireNonNull(output, "output is null");
-        final byte[] in;
-        final int inoff;
-        final int inlen = input.remaining();
-        if (input.hasArray()) {
-            in = input.array();
-            inoff = input.arrayOffset() + input.position();
-        } else {
-            in = new byte[inlen];
-//            input.get(0, in); // Java 13
-            for (int p = input.position(), i = 0; i < in.length; p++, i++) {
-                in[i] = input.get(p);
-            }
-            inoff = 0;
-        }
-        final byte[] out;
-        final int outoff;
-        if (output.hasArray()) {
-            out = output.array();
-            outoff = output.arrayOffset() + output.position();
-        } else {
-            out = new byte[output.remaining()];
-            outoff = 0;
+        if (!input.hasArray() || !output.hasArray()) {
+            return processBytesAndDoFinalWindowed(cipher, input, output);
         }
+        final var in = input.array();
+        final var inoff = input.arrayOffset() + input.position();
+        final var inlen = input.remaining();
+        final var out = output.array();
+        final var outoff = output.arrayOffset() + output.position();
         final var outlen = processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff);
         input.position(input.position() + inlen);
-        if (output.hasArray()) {
-            output.position(output.position() + outlen);
-        } else {
-            output.put(out, outoff, outlen);
-        }
+        output.position(output.position() + outlen);
         return outlen;
     }
 
+    /**
+     * Processes and finalizes, using specified cipher, all remaining bytes of specified input buffer, through scratch
+     * windows, and put processed bytes to specified output buffer. Positions of both buffers are restored when
+     * processing fails.
+     *
+     * @param cipher the cipher.
+     * @param input  the input buffer whose remaining bytes are processed.
+     * @param output the output buffer onto which processed bytes are put.
+     * @return the number of bytes put on the output buffer.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    private static int processBytesAndDoFinalWindowed(final BufferedBlockCipher cipher, final ByteBuffer input,
+                                                      final ByteBuffer output)
+            throws InvalidCipherTextException {
+        final var inpos = input.position();
+        final var outpos = output.position();
+        final var in = input.hasArray() ? null : JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+        var out = JinahyaScratchBuffers.acquire(cipher.getUpdateOutputSize(JinahyaScratchBuffers.WINDOW_SIZE));
+        try {
+            final var event = new JinahyaCipherProcessEvent();
+            event.begin();
+            var outlen = 0;
+            while (input.hasRemaining()) {
+                final var inlen = Math.min(input.remaining(), JinahyaScratchBuffers.WINDOW_SIZE);
+                final var uos = cipher.getUpdateOutputSize(inlen);
+                if (out.length < uos) {
+                    JinahyaScratchBuffers.release(out);
+                    out = JinahyaScratchBuffers.acquire(uos);
+                }
+                final int processed;
+                if (in == null) {
+                    processed = cipher.processBytes(
+                            input.array(), input.arrayOffset() + input.position(), inlen, out, 0);
+                    input.position(input.position() + inlen);
+                } else {
+                    input.get(in, 0, inlen);
+                    processed = cipher.processBytes(in, 0, inlen, out, 0);
+                }
+                output.put(out, 0, processed);
+                outlen += processed;
+            }
+            event.complete(cipher, input.position() - inpos, outlen);
+            final var os = cipher.getOutputSize(0);
+            if (out.length < os) {
+                JinahyaScratchBuffers.release(out);
+                out = JinahyaScratchBuffers.acquire(os);
+            }
+            final var finalized = doFinal(cipher, out, 0);
+            output.put(out, 0, finalized);
+            return outlen + finalized;
+        } catch (final RuntimeException | InvalidCipherTextException e) {
+            input.position(inpos);
+            output.position(outpos);
+            throw e;
+        } finally {
+            if (in != null) {
+                JinahyaScratchBuffers.release(in);
+            }
+            JinahyaScratchBuffers.release(out);
+        }
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 
     /**
@@ -122,7 +173,8 @@ public final class JinahyaBufferedBlockCipherUtils {
      * @param in     the input stream from which unprocessed bytes are read.
      * @param out    the output stream to which processed bytes are written.
      * @param inbuf  a buffer for reading bytes from the input stream.
-     * @param outbuf a buffer for processed bytes.
+     * @param outbuf a buffer for processed bytes; may be {@code null}, or empty, for a buffer to be drawn from the
+     *               {@link JinahyaBufferPool#getDefault() default buffer pool}; filled with zeros when done.
      * @return the number of bytes written to the {@code out}.
      * @throws IOException                if an I/O error occurs.
      * @throws InvalidCipherTextException if padding is expected and not found.
@@ -130,7 +182,31 @@ public final class JinahyaBufferedBlockCipherUtils {
      * @see BufferedBlockCipher#doFinal(byte[], int)
      */
     public static long processAllBytesAndDoFinal(final BufferedBlockCipher cipher, final InputStream in,
-                                                 final OutputStream out, final byte[] inbuf, byte[] outbuf)
+                                                 final OutputStream out, final byte[] inbuf, final byte[] outbuf)
+            throws IOException, InvalidCipherTextException {
+        return processAllBytesAndDoFinal(cipher, in, out, inbuf, outbuf, JinahyaCryptoMetrics.noop());
+    }
+
+    /**
+     * Processes and finalizes, using specified cipher, all bytes from specified input stream, and writes processed
+     * bytes to specified output stream, while recording numbers of bytes, and buffer re-allocations, to specified
+     * metrics.
+     *
+     * @param cipher  the cipher.
+     * @param in      the input stream from which unprocessed bytes are read.
+     * @param out     the output stream to which processed bytes are written.
+     * @param inbuf   a buffer for reading bytes from the input stream.
+     * @param outbuf  a buffer for processed bytes; may be {@code null}, or empty, for a buffer to be drawn from the
+     *                {@link JinahyaBufferPool#getDefault() default buffer pool}; filled with zeros when done.
+     * @param metrics the metrics to record.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException                if an I/O error occurs.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     * @see #processAllBytesAndDoFinal(BufferedBlockCipher, InputStream, OutputStream, byte[], byte[])
+     */
+    public static long processAllBytesAndDoFinal(final BufferedBlockCipher cipher, final InputStream in,
+                                                 final OutputStream out, final byte[] inbuf, byte[] outbuf,
+                                                 final JinahyaCryptoMetrics metrics)
             throws IOException, InvalidCipherTextException {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(in, "in is null");
@@ -138,33 +214,86 @@ public final class JinahyaBufferedBlockCipherUtils {
         if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
             throw new IllegalArgumentException("inbuf.length is zero");
         }
-        if (outbuf == null || outbuf.length == 0) {
-            outbuf = new byte[cipher.getOutputSize(inbuf.length)];
+        Objects.requireNonNull(metrics, "metrics is null");
+        final var pool = JinahyaBufferPool.getDefault();
+        var pooled = outbuf == null || outbuf.length == 0;
+        if (pooled) {
+            outbuf = pool.acquireArray(cipher.getOutputSize(inbuf.length));
         }
-        var bytes = 0L;
-        int outlen;
-        for (int r; (r = in.read(inbuf)) != -1; ) {
-            for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
-                System.err.println(
-                        "re-allocating outbuf(" + outbuf.length +
-                                ") for an intermediate update-output-size(" + uos + ")"
-                );
-                Arrays.fill(outbuf, (byte) 0);
-                outbuf = new byte[uos];
+        try {
+            final var event = new JinahyaCipherProcessEvent();
+            event.begin();
+            var inbytes = 0L;
+            var bytes = 0L;
+            int outlen;
+            for (int r; (r = in.read(inbuf)) != -1; ) {
+                metrics.input(r);
+                inbytes += r;
+                for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
+                    metrics.reallocated(outbuf.length, uos);
+                    outbuf = reacquire(pool, outbuf, pooled, uos);
+                    pooled = true;
+                }
+                outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0);
+                out.write(outbuf, 0, outlen);
+                bytes += outlen;
+            }
+            event.complete(cipher, inbytes, bytes);
+            for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
+                metrics.reallocated(outbuf.length, os);
+                outbuf = reacquire(pool, outbuf, pooled, os);
+                pooled = true;
             }
-            outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0);
+            outlen = doFinal(cipher, outbuf, 0);
             out.write(outbuf, 0, outlen);
             bytes += outlen;
+            metrics.output(bytes);
+            return bytes;
+        } finally {
+            if (pooled) {
+                pool.releaseArray(outbuf);
+            } else {
+                Arrays.fill(outbuf, (byte) 0);
+            }
         }
-        for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
-            System.err.println("re-allocating outbuf(" + outbuf.length + ") for the final output-size(" + os + ")");
-            Arrays.fill(outbuf, (byte) 0);
-            outbuf = new byte[os];
+    }
+
+    /**
+     * Finalizes specified cipher while emitting a {@link JinahyaCipherFinalizeEvent}.
+     *
+     * @param cipher the cipher.
+     * @param out    the output array.
+     * @param outoff the starting index of {@code out} on which finalized bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    private static int doFinal(final BufferedBlockCipher cipher, final byte[] out, final int outoff)
+            throws InvalidCipherTextException {
+        final var event = new JinahyaCipherFinalizeEvent();
+        event.begin();
+        final var outlen = cipher.doFinal(out, outoff);
+        event.complete(cipher, outlen);
+        return outlen;
+    }
+
+    /**
+     * Replaces specified buffer with a pooled one whose length is not less than specified length. The old buffer is
+     * released to the pool when it is a pooled one; otherwise filled with zeros.
+     *
+     * @param pool   the pool.
+     * @param buffer the buffer to replace.
+     * @param pooled a flag indicates whether the {@code buffer} is acquired from the {@code pool}.
+     * @param length the minimum length of the new buffer.
+     * @return a new pooled buffer.
+     */
+    private static byte[] reacquire(final JinahyaBufferPool pool, final byte[] buffer, final boolean pooled,
+                                    final int length) {
+        if (pooled) {
+            pool.releaseArray(buffer);
+        } else {
+            Arrays.fill(buffer, (byte) 0);
         }
-        outlen = cipher.doFinal(outbuf, 0);
-        out.write(outbuf, 0, outlen);
-        bytes += outlen;
-        return bytes;
+        return pool.acquireArray(length);
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -1,8 +1,37 @@
 package io.github.jinahya.bouncycastle.crypto;
 
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherFinalizeEvent;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherInitEvent;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherProcessEvent;
 import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.CFBModeCipher;
+import org.bouncycastle.crypto.modes.G3413CFBBlockCipher;
+import org.bouncycastle.crypto.modes.GCFBBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
 
 /**
  * An abstract crypto clas for a specified type of cipher.
@@ -16,6 +45,53 @@ import java.util.Objects;
 public abstract class JinahyaCipherCrypto<CIPHER>
         implements JinahyaCrypto {
 
+    /**
+     * The maximum number of bytes of a source file mapped at once. The value is {@value}.
+     */
+    static final int MAPPING_WINDOW_SIZE = 1 << 26;
+
+    /**
+     * The number of bytes copied from a mapped region, and processed, at once. The value is {@value}.
+     */
+    static final int MAPPING_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The number of bytes read from a channel, and processed, at once. The value is {@value}.
+     */
+    static final int CHANNEL_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The maximum length of an array to allocate. The value is {@value}.
+     */
+    private static final int MAXIMUM_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the key parameter of specified cipher parameters.
+     *
+     * @param params the cipher parameters.
+     * @return the key parameter of the {@code params}.
+     * @throws IllegalStateException if the {@code params} carries no key.
+     */
+    private static KeyParameter key(final CipherParameters params) {
+        if (params instanceof KeyParameter) {
+            return (KeyParameter) params;
+        }
+        if (params instanceof AEADParameters && ((AEADParameters) params).getKey() != null) {
+            return ((AEADParameters) params).getKey();
+        }
+        if (params instanceof ParametersWithIV) {
+            return key(((ParametersWithIV) params).getParameters());
+        }
+        if (params instanceof ParametersWithRandom) {
+            return key(((ParametersWithRandom) params).getParameters());
+        }
+        throw new IllegalStateException("no key in " + params);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
     /**
      * Creates a new instance with specified cipher and initialization parameters.
      *
@@ -40,17 +116,803 @@ public abstract class JinahyaCipherCrypto<CIPHER>
     protected abstract void initFor(final boolean encryption);
 
     /**
-     * Initialize the {@link #cipher} for encryption.
+     * Initialize the {@link #cipher} with specified parameters for specified boolean flag of encryption.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param params     the parameters, which may carry no key, for initializing the {@link #cipher}.
+     */
+    protected abstract void initFor(final boolean encryption, final CipherParameters params);
+
+    /**
+     * Initialize the {@link #cipher} for encryption, and records the time to the {@link #metrics} and to a
+     * {@link JinahyaCipherInitEvent}.
      */
     protected void initForEncryption() {
+        final var event = new JinahyaCipherInitEvent();
+        event.begin();
+        final var start = metrics.start();
+        keyed = null;
         initFor(true);
+        keyed = Boolean.TRUE;
+        metrics.initialized(true, start);
+        event.complete(cipher, true);
     }
 
     /**
-     * Initialize the {@link #cipher} for decryption.
+     * Initialize the {@link #cipher} for decryption, and records the time to the {@link #metrics} and to a
+     * {@link JinahyaCipherInitEvent}.
      */
     protected void initForDecryption() {
+        final var event = new JinahyaCipherInitEvent();
+        event.begin();
+        final var start = metrics.start();
+        keyed = null;
         initFor(false);
+        keyed = Boolean.FALSE;
+        metrics.initialized(false, start);
+        event.complete(cipher, false);
+    }
+
+    /**
+     * Initialize the {@link #cipher} for a single message, with the parameters created by specified function, and
+     * records the time to the {@link #metrics} and to a {@link JinahyaCipherInitEvent}.
+     * <p>
+     * The {@code function} is applied with the key of the {@link #params} when the {@link #cipher} has not been
+     * initialized with the key for the same direction; otherwise, with {@code null}, so that the {@link #cipher}
+     * reuses its key schedule, e.g. the round keys of the underlying engine and the multiplier tables of a GCM
+     * cipher, and only its IV, or nonce, is changed.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param function   a function which creates the parameters for a key, or for {@code null}.
+     * @throws IllegalStateException if the {@link #params} carries no key.
+     */
+    protected void initForMessage(final boolean encryption,
+                                  final Function<? super KeyParameter, ? extends CipherParameters> function) {
+        Objects.requireNonNull(function, "function is null");
+        final var event = new JinahyaCipherInitEvent();
+        event.begin();
+        final var start = metrics.start();
+        final var reuse = keyed != null && keyed == encryption;
+        keyed = null;
+        initFor(encryption, function.apply(reuse ? null : key(params)));
+        keyed = encryption;
+        metrics.initialized(encryption, start);
+        event.complete(cipher, encryption);
+    }
+
+    /**
+     * Initialize the {@link #cipher} for a single message of specified IV, or nonce, and associated text.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param iv         the IV, or the nonce, of the message.
+     * @param aad        the associated text of the message; may be {@code null}.
+     * @see #initForMessage(boolean, Function)
+     * @see #newMessageParameters(KeyParameter, byte[], byte[])
+     */
+    protected void initForMessage(final boolean encryption, final byte[] iv, final byte[] aad) {
+        Objects.requireNonNull(iv, "iv is null");
+        initForMessage(encryption, k -> newMessageParameters(k, iv, aad));
+    }
+
+    /**
+     * Creates parameters for a single message of specified IV, or nonce, and associated text.
+     *
+     * @param key the key; {@code null} for reusing the key schedule of the {@link #cipher}.
+     * @param iv  the IV, or the nonce, of the message.
+     * @param aad the associated text of the message; may be {@code null}, and is ignored by non-AEAD ciphers.
+     * @return new parameters for the message.
+     */
+    protected abstract CipherParameters newMessageParameters(KeyParameter key, byte[] iv, byte[] aad);
+
+    /**
+     * Returns the number of bytes of each counter block of the {@link #cipher}, with which the IV of each message of a
+     * batch is derived; or {@code 0} when the {@link #cipher} takes a nonce whose distinct values never share a
+     * keystream.
+     * <p>
+     * With a positive value, and a base IV of, at least, the same length, the IV of each message is the base IV
+     * advanced, as a big-endian counter, past the blocks of all preceding messages, so that no two messages share a
+     * counter block. Otherwise, the IV, or the nonce, of each message is the base one whose last bytes are XORed with
+     * the index of the message; a shorter IV of a counter mode leaves the following bytes of each counter block for
+     * the message's own counter.
+     *
+     * @return the number of bytes of each counter block; {@code 0} for a nonce.
+     * @throws UnsupportedOperationException if the {@link #cipher}, e.g. in CBC or ECB mode, can't process batches,
+     *                                       whose IVs are predictable.
+     * @implSpec The default implementation throws an {@link UnsupportedOperationException}.
+     * @see #encryptBatch(byte[], byte[], byte[], int[])
+     */
+    protected int getBatchCounterBlockSize() {
+        throw new UnsupportedOperationException("batches are not supported by " + cipher);
+    }
+
+    /**
+     * Returns the number of output bytes for processing, not finalizing, specified number of input bytes with the
+     * {@link #cipher}, which has been initialized.
+     *
+     * @param inlen the number of input bytes.
+     * @return the number of output bytes for the {@code inlen}.
+     */
+    protected abstract int getUpdateOutputSize(int inlen);
+
+    /**
+     * Returns the number of output bytes for finalizing the {@link #cipher}, which has been initialized, with no more
+     * input.
+     *
+     * @return the number of output bytes for finalizing.
+     */
+    protected abstract int getFinalOutputSize();
+
+    /**
+     * Processes, with the {@link #cipher}, which has been initialized, bytes in specified range of specified input
+     * array.
+     *
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of bytes to process in {@code in}.
+     * @param out    the output array.
+     * @param outoff the starting index of {@code out} on which processed bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     */
+    protected abstract int processBytes(byte[] in, int inoff, int inlen, byte[] out, int outoff);
+
+    /**
+     * Processes, with the {@link #cipher}, which has been initialized, bytes in specified range of specified input
+     * array as associated text; before any input bytes are processed.
+     *
+     * @param in    the input array.
+     * @param inoff a starting index of {@code in}.
+     * @param inlen number of bytes to process in {@code in}.
+     * @implSpec The default implementation throws an {@link UnsupportedOperationException}.
+     */
+    protected void processAADBytes(final byte[] in, final int inoff, final int inlen) {
+        throw new UnsupportedOperationException("associated text is not supported by " + cipher);
+    }
+
+    /**
+     * Processes, with the {@link #cipher}, which has been initialized, all remaining bytes of specified buffer as
+     * associated text; before any input bytes are processed.
+     *
+     * @param aad the buffer of the associated text.
+     * @implSpec The default implementation throws an {@link UnsupportedOperationException}.
+     */
+    protected void processAADBytes(final ByteBuffer aad) {
+        throw new UnsupportedOperationException("associated text is not supported by " + cipher);
+    }
+
+    /**
+     * Finalizes the {@link #cipher} which has been initialized.
+     *
+     * @param out    the output array.
+     * @param outoff the starting index of {@code out} on which finalized bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     * @throws InvalidCipherTextException if padding is expected and not found, or the authentication tag does not
+     *                                    match.
+     */
+    protected abstract int doFinal(byte[] out, int outoff) throws InvalidCipherTextException;
+
+    // ------------------------------------------------------------------------------------------------------------ file
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@code source} file is mapped into memory region by region, so that files larger than
+     * {@link Integer#MAX_VALUE} bytes are supported without copying through streams.
+     *
+     * @param source {@inheritDoc}
+     * @param target {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public long encrypt(final Path source, final Path target) throws IOException {
+        return process(true, source, target);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@code source} file is mapped into memory region by region, so that files larger than
+     * {@link Integer#MAX_VALUE} bytes are supported without copying through streams.
+     *
+     * @param source {@inheritDoc}
+     * @param target {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public long decrypt(final Path source, final Path target) throws IOException {
+        return process(false, source, target);
+    }
+
+    /**
+     * Processes all bytes of specified source file, mapped region by region, and writes processed bytes to specified
+     * target file.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param source     the source file.
+     * @param target     the target file.
+     * @return the number of bytes written to the {@code target}.
+     * @throws IOException if an I/O error occurs.
+     */
+    private long process(final boolean encryption, final Path source, final Path target) throws IOException {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("source(" + source + ") and target(" + target + ") are the same");
+        }
+        try (var sc = FileChannel.open(source, StandardOpenOption.READ);
+             var tc = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (encryption) {
+                initForEncryption();
+            } else {
+                initForDecryption();
+            }
+            final var start = metrics.start();
+            final var pool = bufferPool;
+            final var inbuf = pool.acquireArray(MAPPING_CHUNK_SIZE);
+            var outbuf = pool.acquireArray(getUpdateOutputSize(MAPPING_CHUNK_SIZE));
+            try {
+                final var size = sc.size();
+                final var processEvent = new JinahyaCipherProcessEvent();
+                processEvent.begin();
+                var bytes = 0L;
+                for (var position = 0L; position < size; ) {
+                    final var region = sc.map(
+                            FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, mappingWindowSize));
+                    while (region.hasRemaining()) {
+                        final var inlen = Math.min(region.remaining(), MAPPING_CHUNK_SIZE);
+                        region.get(inbuf, 0, inlen);
+                        final var uos = getUpdateOutputSize(inlen);
+                        if (outbuf.length < uos) {
+                            metrics.reallocated(outbuf.length, uos);
+                            pool.releaseArray(outbuf);
+                            outbuf = pool.acquireArray(uos);
+                        }
+                        bytes += write(tc, outbuf, processBytes(inbuf, 0, inlen, outbuf, 0));
+                    }
+                    position += region.capacity();
+                }
+                metrics.input(size);
+                processEvent.complete(cipher, size, bytes);
+                final var fos = getFinalOutputSize();
+                if (outbuf.length < fos) {
+                    metrics.reallocated(outbuf.length, fos);
+                    pool.releaseArray(outbuf);
+                    outbuf = pool.acquireArray(fos);
+                }
+                final var finalizeEvent = new JinahyaCipherFinalizeEvent();
+                finalizeEvent.begin();
+                final var finalized = doFinal(outbuf, 0);
+                finalizeEvent.complete(cipher, finalized);
+                bytes += write(tc, outbuf, finalized);
+                metrics.output(bytes);
+                metrics.processed(encryption, start);
+                return bytes;
+            } catch (final InvalidCipherTextException icte) {
+                throw encryption
+                      ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                      : JinahyaCryptoException.ofDecryptionFailure(icte);
+            } finally {
+                pool.releaseArray(inbuf);
+                pool.releaseArray(outbuf);
+            }
+        }
+    }
+
+    /**
+     * Writes, fully, specified number of bytes of specified array to specified channel.
+     *
+     * @param channel the channel.
+     * @param buf     the array.
+     * @param len     the number of bytes to write.
+     * @return given {@code len}.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static int write(final FileChannel channel, final byte[] buf, final int len) throws IOException {
+        for (final var buffer = ByteBuffer.wrap(buf, 0, len); buffer.hasRemaining(); ) {
+            channel.write(buffer);
+        }
+        return len;
+    }
+
+    // --------------------------------------------------------------------------------------------------------- channel
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Bytes are transferred through pooled direct buffers. When either channel is a non-blocking
+     * {@link SelectableChannel}, partial reads and writes are resumed as the channel becomes ready; the calling thread
+     * waits on a single selector opened, at most once, for the whole transfer.
+     */
+    @Override
+    public long encrypt(final ReadableByteChannel in, final WritableByteChannel out) throws IOException {
+        return process(true, in, out);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Bytes are transferred through pooled direct buffers. When either channel is a non-blocking
+     * {@link SelectableChannel}, partial reads and writes are resumed as the channel becomes ready; the calling thread
+     * waits on a single selector opened, at most once, for the whole transfer.
+     */
+    @Override
+    public long decrypt(final ReadableByteChannel in, final WritableByteChannel out) throws IOException {
+        return process(false, in, out);
+    }
+
+    /**
+     * Processes all bytes from specified readable channel, and writes processed bytes to specified writable channel,
+     * through pooled direct buffers, blocking until all bytes are transferred.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param in         the readable channel.
+     * @param out        the writable channel.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
+    private long process(final boolean encryption, final ReadableByteChannel in, final WritableByteChannel out)
+            throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        if (encryption) {
+            initForEncryption();
+        } else {
+            initForDecryption();
+        }
+        final var start = metrics.start();
+        final var pool = bufferPool;
+        final var input = pool.acquireDirect(CHANNEL_CHUNK_SIZE);
+        final var inbuf = pool.acquireArray(CHANNEL_CHUNK_SIZE);
+        var outbuf = pool.acquireArray(Math.max(getUpdateOutputSize(CHANNEL_CHUNK_SIZE), 1));
+        var output = pool.acquireDirect(outbuf.length);
+        try (var waiter = new Waiter()) {
+            final var processEvent = new JinahyaCipherProcessEvent();
+            processEvent.begin();
+            var inputs = 0L;
+            var bytes = 0L;
+            while (true) {
+                input.clear().limit(CHANNEL_CHUNK_SIZE);
+                if (read(in, input, waiter) == -1) {
+                    break;
+                }
+                final var inlen = input.flip().remaining();
+                input.get(inbuf, 0, inlen);
+                inputs += inlen;
+                final var uos = getUpdateOutputSize(inlen);
+                if (outbuf.length < uos) {
+                    metrics.reallocated(outbuf.length, uos);
+                    pool.releaseArray(outbuf);
+                    outbuf = pool.acquireArray(uos);
+                    pool.releaseDirect(output);
+                    output = pool.acquireDirect(outbuf.length);
+                }
+                bytes += write(out, output, outbuf, processBytes(inbuf, 0, inlen, outbuf, 0), waiter);
+            }
+            metrics.input(inputs);
+            processEvent.complete(cipher, inputs, bytes);
+            final var fos = getFinalOutputSize();
+            if (outbuf.length < fos) {
+                metrics.reallocated(outbuf.length, fos);
+                pool.releaseArray(outbuf);
+                outbuf = pool.acquireArray(fos);
+                pool.releaseDirect(output);
+                output = pool.acquireDirect(outbuf.length);
+            }
+            final var finalizeEvent = new JinahyaCipherFinalizeEvent();
+            finalizeEvent.begin();
+            final var finalized = doFinal(outbuf, 0);
+            finalizeEvent.complete(cipher, finalized);
+            bytes += write(out, output, outbuf, finalized, waiter);
+            metrics.output(bytes);
+            metrics.processed(encryption, start);
+            return bytes;
+        } catch (final InvalidCipherTextException icte) {
+            throw encryption
+                  ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                  : JinahyaCryptoException.ofDecryptionFailure(icte);
+        } finally {
+            pool.releaseDirect(input);
+            pool.releaseArray(inbuf);
+            pool.releaseArray(outbuf);
+            pool.releaseDirect(output);
+        }
+    }
+
+    /**
+     * Reads bytes from specified channel into specified buffer, waiting, with specified waiter, until at least one byte
+     * is read or the end of the channel is reached.
+     *
+     * @param channel the channel.
+     * @param buffer  the buffer.
+     * @param waiter  the waiter of the transfer.
+     * @return the number of bytes read; {@code -1} for the end of the channel.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static int read(final ReadableByteChannel channel, final ByteBuffer buffer, final Waiter waiter)
+            throws IOException {
+        int r;
+        while ((r = channel.read(buffer)) == 0) {
+            waiter.await(channel, SelectionKey.OP_READ);
+        }
+        return r;
+    }
+
+    /**
+     * Writes, fully, specified number of bytes of specified array to specified channel, through specified direct
+     * buffer, waiting, with specified waiter, while the channel is not ready.
+     *
+     * @param channel the channel.
+     * @param buffer  the direct buffer whose capacity is not less than the {@code len}.
+     * @param buf     the array.
+     * @param len     the number of bytes to write.
+     * @param waiter  the waiter of the transfer.
+     * @return given {@code len}.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static int write(final WritableByteChannel channel, final ByteBuffer buffer, final byte[] buf,
+                             final int len, final Waiter waiter)
+            throws IOException {
+        buffer.clear();
+        buffer.put(buf, 0, len).flip();
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0) {
+                waiter.await(channel, SelectionKey.OP_WRITE);
+            }
+        }
+        return len;
+    }
+
+    /**
+     * A waiter for channels of a single transfer, which opens, lazily, a single selector on which non-blocking
+     * selectable channels are registered.
+     */
+    private static final class Waiter
+            implements Closeable {
+
+        /**
+         * Waits until specified channel is ready for specified operation, if the channel is a non-blocking selectable
+         * channel; otherwise, yields.
+         *
+         * @param channel the channel.
+         * @param ops     the operation.
+         * @throws IOException if an I/O error occurs.
+         */
+        private void await(final Object channel, final int ops) throws IOException {
+            if (!(channel instanceof SelectableChannel) || ((SelectableChannel) channel).isBlocking()) {
+                Thread.yield();
+                return;
+            }
+            if (selector == null) {
+                selector = Selector.open();
+            }
+            final var selectable = (SelectableChannel) channel;
+            var key = selectable.keyFor(selector);
+            if (key == null) {
+                key = selectable.register(selector, ops);
+            } else {
+                key.interestOps(ops);
+            }
+            try {
+                selector.select();
+                selector.selectedKeys().clear();
+            } finally {
+                // the other channel, if any, shouldn't wake up following waits for this one
+                key.interestOps(0);
+            }
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for a channel");
+            }
+        }
+
+        /**
+         * Closes the selector, if opened, which deregisters channels registered on it.
+         *
+         * @throws IOException if an I/O error occurs.
+         */
+        @Override
+        public void close() throws IOException {
+            if (selector != null) {
+                selector.close();
+            }
+        }
+
+        private Selector selector;
+    }
+
+    // --------------------------------------------------------------------------------------------------------- session
+
+    /**
+     * Creates a new incremental session which initializes, and then exclusively uses, the {@link #cipher} for
+     * specified direction.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @return a new session.
+     */
+    public JinahyaCipherSession newSession(final boolean encryption) {
+        return new JinahyaCipherSession(this, encryption);
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- batch
+
+    /**
+     * Encrypts messages packed in specified array, each in the range of specified offsets, into a single batch. The
+     * {@code i}-th message, from {@code offsets[i]} (inclusive) to {@code offsets[i + 1]} (exclusive), is encrypted
+     * with an IV, or a nonce, derived from the {@code nonce}, as described in the {@link #getBatchCounterBlockSize()},
+     * while sharing the key schedule of the {@link #cipher}.
+     *
+     * @param nonce   the base IV, or the base nonce; never reused by another batch with the same key.
+     * @param aad     the associated text for each message; may be {@code null}, and is ignored by non-AEAD ciphers.
+     * @param in      the array of packed messages.
+     * @param offsets the offsets of messages; the last element is the end of the last message.
+     * @return a batch of encrypted messages.
+     * @throws UnsupportedOperationException if the {@link #cipher}, e.g. in CBC or ECB mode, requires unpredictable
+     *                                       IVs.
+     * @throws IllegalArgumentException      if the encrypted messages don't fit in a single array.
+     */
+    public JinahyaCryptoBatch encryptBatch(final byte[] nonce, final byte[] aad, final byte[] in, final int[] offsets) {
+        Objects.requireNonNull(in, "in is null");
+        requireOffsets(offsets, in.length);
+        return batch(true, nonce, aad, offsets.length - 1, i -> in, i -> offsets[i], i -> offsets[i + 1] - offsets[i]);
+    }
+
+    /**
+     * Encrypts specified messages into a single batch. The {@code i}-th message is encrypted with an IV, or a nonce,
+     * derived from the {@code nonce}, as described in the {@link #getBatchCounterBlockSize()}, while sharing the key
+     * schedule of the {@link #cipher}.
+     *
+     * @param nonce    the base IV, or the base nonce; never reused by another batch with the same key.
+     * @param aad      the associated text for each message; may be {@code null}, and is ignored by non-AEAD ciphers.
+     * @param messages the messages to encrypt.
+     * @return a batch of encrypted messages.
+     * @throws UnsupportedOperationException if the {@link #cipher}, e.g. in CBC or ECB mode, requires unpredictable
+     *                                       IVs.
+     * @throws IllegalArgumentException      if the encrypted messages don't fit in a single array.
+     * @see #encryptBatch(byte[], byte[], byte[], int[])
+     */
+    public JinahyaCryptoBatch encryptBatch(final byte[] nonce, final byte[] aad, final List<byte[]> messages) {
+        Objects.requireNonNull(messages, "messages is null");
+        return batch(true, nonce, aad, messages.size(), messages::get, i -> 0, i -> messages.get(i).length);
+    }
+
+    /**
+     * Decrypts messages packed in specified array, each in the range of specified offsets, into a single batch. The
+     * {@code i}-th message is decrypted with the IV, or the nonce, derived from the {@code nonce} as it has been for
+     * the encryption.
+     *
+     * @param nonce   the base IV, or the base nonce, with which the messages are encrypted.
+     * @param aad     the associated text for each message; may be {@code null}, and is ignored by non-AEAD ciphers.
+     * @param in      the array of packed messages.
+     * @param offsets the offsets of messages; the last element is the end of the last message.
+     * @return a batch of decrypted messages.
+     * @throws JinahyaCryptoException        if failed to decrypt any of the messages.
+     * @throws UnsupportedOperationException if the {@link #cipher}, e.g. in CBC or ECB mode, requires unpredictable
+     *                                       IVs.
+     * @see #encryptBatch(byte[], byte[], byte[], int[])
+     */
+    public JinahyaCryptoBatch decryptBatch(final byte[] nonce, final byte[] aad, final byte[] in, final int[] offsets) {
+        Objects.requireNonNull(in, "in is null");
+        requireOffsets(offsets, in.length);
+        return batch(false, nonce, aad, offsets.length - 1, i -> in, i -> offsets[i], i -> offsets[i + 1] - offsets[i]);
+    }
+
+    /**
+     * Decrypts specified messages into a single batch. The {@code i}-th message is decrypted with the IV, or the
+     * nonce, derived from the {@code nonce} as it has been for the encryption.
+     *
+     * @param nonce    the base IV, or the base nonce, with which the messages are encrypted.
+     * @param aad      the associated text for each message; may be {@code null}, and is ignored by non-AEAD ciphers.
+     * @param messages the messages to decrypt.
+     * @return a batch of decrypted messages.
+     * @throws JinahyaCryptoException        if failed to decrypt any of the messages.
+     * @throws UnsupportedOperationException if the {@link #cipher}, e.g. in CBC or ECB mode, requires unpredictable
+     *                                       IVs.
+     * @see #encryptBatch(byte[], byte[], List)
+     */
+    public JinahyaCryptoBatch decryptBatch(final byte[] nonce, final byte[] aad, final List<byte[]> messages) {
+        Objects.requireNonNull(messages, "messages is null");
+        return batch(false, nonce, aad, messages.size(), messages::get, i -> 0, i -> messages.get(i).length);
+    }
+
+    private static void requireOffsets(final int[] offsets, final int length) {
+        Objects.requireNonNull(offsets, "offsets is null");
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("offsets is empty");
+        }
+        if (offsets[0] < 0) {
+            throw new IllegalArgumentException("offsets[0](" + offsets[0] + ") is negative");
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IllegalArgumentException(
+                        "offsets[" + i + "](" + offsets[i] + ") < offsets[" + (i - 1) + "](" + offsets[i - 1] + ")");
+            }
+        }
+        if (offsets[offsets.length - 1] > length) {
+            throw new IllegalArgumentException(
+                    "offsets[" + (offsets.length - 1) + "](" + offsets[offsets.length - 1] + ") > length(" + length
+                    + ")");
+        }
+    }
+
+    /**
+     * Processes specified number of messages into a single, contiguous, output array.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param nonce      the base IV, or the base nonce.
+     * @param aad        the associated text for each message.
+     * @param count      the number of messages.
+     * @param ins        a function for the input array of each message.
+     * @param inoffs     a function for the offset of each message in its input array.
+     * @param inlens     a function for the length of each message.
+     * @return a batch of processed messages.
+     */
+    private JinahyaCryptoBatch batch(final boolean encryption, final byte[] nonce, final byte[] aad, final int count,
+                                     final IntFunction<byte[]> ins, final IntUnaryOperator inoffs,
+                                     final IntUnaryOperator inlens) {
+        Objects.requireNonNull(nonce, "nonce is null");
+        final var counterBlockSize = getBatchCounterBlockSize();
+        final var advance = counterBlockSize > 0 && nonce.length >= counterBlockSize;
+        if (!advance && nonce.length < Long.BYTES && count > 0 && (long) (count - 1) >>> (nonce.length << 3) != 0L) {
+            throw new IllegalArgumentException(
+                    "count(" + count + ") exceeds indices derivable with nonce.length(" + nonce.length + ")");
+        }
+        var total = 0L;
+        var capacity = 0L;
+        for (int i = 0; i < count; i++) {
+            final var inlen = inlens.applyAsInt(i);
+            total += inlen;
+            capacity += getOutputSize(encryption, inlen);
+        }
+        if (capacity > MAXIMUM_ARRAY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "output(" + capacity + ") of the batch exceeds the maximum array length(" + MAXIMUM_ARRAY_LENGTH
+                    + ")");
+        }
+        final var derived = nonce.clone();
+        final var offsets = new int[count + 1];
+        var out = new byte[(int) capacity];
+        final var processEvent = new JinahyaCipherProcessEvent();
+        processEvent.begin();
+        var outoff = 0;
+        var blocks = 0L;
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(nonce, 0, derived, 0, nonce.length);
+            if (advance) {
+                add(derived, blocks);
+            } else {
+                for (int j = 0, k = nonce.length - 1; j < Long.BYTES && k >= 0; j++, k--) {
+                    derived[k] ^= (byte) ((long) i >>> (j << 3));
+                }
+            }
+            initForMessage(encryption, derived, aad);
+            final var start = metrics.start();
+            final var in = ins.apply(i);
+            final var inlen = inlens.applyAsInt(i);
+            out = ensureCapacity(out, outoff, getUpdateOutputSize(inlen));
+            var outlen = processBytes(in, inoffs.applyAsInt(i), inlen, out, outoff);
+            out = ensureCapacity(out, outoff + outlen, getFinalOutputSize());
+            try {
+                outlen += doFinal(out, outoff + outlen);
+            } catch (final InvalidCipherTextException icte) {
+                throw encryption
+                      ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                      : JinahyaCryptoException.ofDecryptionFailure(icte);
+            }
+            outoff += processed(encryption, start, inlen, outlen);
+            offsets[i + 1] = outoff;
+            if (advance) {
+                // the counter blocks consumed by the ciphertext, which is the output only for encryption
+                final long ciphertext = encryption ? outlen : inlen;
+                blocks += (ciphertext + counterBlockSize - 1) / counterBlockSize;
+            }
+        }
+        processEvent.complete(cipher, total, outoff);
+        return new JinahyaCryptoBatch(out, offsets);
+    }
+
+    /**
+     * Checks whether specified cipher is in a cipher feedback (CFB) mode, whose IVs, as those of the CBC mode, must be
+     * unpredictable; and, hence, can't be derived for messages of a batch.
+     *
+     * @param cipher the cipher to check.
+     * @return {@code true} if the {@code cipher} is in a CFB mode; {@code false} otherwise.
+     */
+    static boolean isFeedbackMode(final Object cipher) {
+        return cipher instanceof CFBModeCipher
+               || cipher instanceof G3413CFBBlockCipher
+               || cipher instanceof GCFBBlockCipher;
+    }
+
+    /**
+     * Adds specified value to specified big-endian counter, discarding the carry out of the counter.
+     *
+     * @param counter the counter.
+     * @param value   the value to add.
+     */
+    private static void add(final byte[] counter, final long value) {
+        var v = value;
+        for (int k = counter.length - 1, carry = 0; k >= 0 && (v != 0L || carry != 0); k--) {
+            final var sum = (counter[k] & 0xFF) + (int) (v & 0xFF) + carry;
+            counter[k] = (byte) sum;
+            carry = sum >>> Byte.SIZE;
+            v >>>= Byte.SIZE;
+        }
+    }
+
+    private byte[] ensureCapacity(final byte[] out, final int outoff, final int required) {
+        if (out.length - outoff >= required) {
+            return out;
+        }
+        if ((long) outoff + required > MAXIMUM_ARRAY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "output(" + ((long) outoff + required) + ") of the batch exceeds the maximum array length("
+                    + MAXIMUM_ARRAY_LENGTH + ")");
+        }
+        final var length = (int) Math.min(Math.max((long) out.length << 1, (long) outoff + required),
+                                          MAXIMUM_ARRAY_LENGTH);
+        metrics.reallocated(out.length, length);
+        return Arrays.copyOf(out, length);
+    }
+
+    // --------------------------------------------------------------------------------------------------------- metrics
+
+    /**
+     * Records, to the {@link #metrics}, a completed operation of specified numbers of bytes.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param start      a value previously returned by the {@link JinahyaCryptoMetrics#start()}.
+     * @param inlen      the number of input bytes.
+     * @param outlen     the number of output bytes.
+     * @return given {@code outlen}.
+     */
+    protected int processed(final boolean encryption, final long start, final int inlen, final int outlen) {
+        metrics.input(inlen);
+        metrics.output(outlen);
+        metrics.processed(encryption, start);
+        return outlen;
+    }
+
+    /**
+     * Returns current value of the {@link #metrics}.
+     *
+     * @return current value of the {@link #metrics}.
+     */
+    public JinahyaCryptoMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Replaces current value of the {@link #metrics} with specified value.
+     *
+     * @param metrics new value for the {@link #metrics}.
+     * @see JinahyaCryptoMetrics#noop()
+     */
+    public void setMetrics(final JinahyaCryptoMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics is null");
+    }
+
+    // ------------------------------------------------------------------------------------------------------------ pool
+
+    /**
+     * Returns current value of the {@link #bufferPool}.
+     *
+     * @return current value of the {@link #bufferPool}.
+     */
+    public JinahyaBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Replaces current value of the {@link #bufferPool} with specified value.
+     *
+     * @param bufferPool new value for the {@link #bufferPool}.
+     * @see JinahyaBufferPool#getDefault()
+     */
+    public void setBufferPool(final JinahyaBufferPool bufferPool) {
+        this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool is null");
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -64,4 +926,25 @@ public abstract class JinahyaCipherCrypto<CIPHER>
      * a cipher parameters for initializing {@link #cipher}.
      */
     protected final CipherParameters params;
+
+    /**
+     * a metrics to which counters and timers are recorded; {@link JinahyaCryptoMetrics#noop() noop} by default.
+     */
+    protected JinahyaCryptoMetrics metrics = JinahyaCryptoMetrics.noop();
+
+    /**
+     * a pool from which intermediate buffers are drawn; the {@link JinahyaBufferPool#getDefault() default} by default.
+     */
+    protected JinahyaBufferPool bufferPool = JinahyaBufferPool.getDefault();
+
+    /**
+     * the direction for which the {@link #cipher} has been initialized with the key; {@code null} when not known.
+     */
+    Boolean keyed;
+
+    /**
+     * the maximum number of bytes of a source file mapped at once; {@link #MAPPING_WINDOW_SIZE} by default, and lowered
+     * only by tests which cross region boundaries with small files.
+     */
+    int mappingWindowSize = MAPPING_WINDOW_SIZE;
 }
@@ -0,0 +1,372 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherFinalizeEvent;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherProcessEvent;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A pipeline which encrypts, or decrypts, streams with {@link JinahyaCipherCrypto cryptos} in three stages, so that
+ * reading, processing, and writing overlap each other.
+ * <p>
+ * A reader stage reads chunks from the input stream, the calling thread processes the chunks with the crypto, and a
+ * writer stage writes the processed chunks to the output stream. The stages are connected by lock-free rings of
+ * {@link #getDepth() depth} chunks, and chunks are recycled back, through other rings, to the stages which fill them.
+ * That is, the elapsed time approaches the longest, rather than the sum, of reading, processing, and writing.
+ * <p>
+ * Any of the {@link JinahyaBufferedBlockCipherCrypto}, the {@link JinahyaStreamCipherCrypto}, and the
+ * {@link io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto} may be used; and, as with
+ * {@link JinahyaCrypto#decrypt(InputStream, OutputStream, byte[])}, decrypted bytes may be written before the
+ * authentication tag is verified. An instance of this class is stateless, and may be shared; a crypto, though, should
+ * not be used by more than one pipeline at a time.
+ * <p>
+ * When a run fails, the reader stage is cancelled, with interruption, and is not waited for, so that a reader blocked
+ * in reading the input stream never hangs the run. Note, though, that a blocked read which doesn't respond to
+ * interruption, e.g. of a socket, keeps its thread until the read returns; callers should close the input stream on
+ * failure to release it.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCrypto#encrypt(InputStream, OutputStream, byte[])
+ */
+public class JinahyaCipherPipeline {
+
+    /**
+     * The default number of bytes of each chunk. The value is {@value}.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 65536;
+
+    /**
+     * The default number of chunks in flight between two stages. The value is {@value}.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    private static final ExecutorService STAGES = JinahyaCryptoThreads.newBlockingExecutor("jinahya-pipeline");
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // a recycled chunk
+    private static final class Chunk {
+
+        private Chunk(final byte[] buf) {
+            super();
+            this.buf = buf;
+        }
+
+        private byte[] buf;
+
+        // the number of bytes in the buf; -1 for the end of the stream
+        private int len;
+    }
+
+    // the state of a run
+    private static final class Run {
+
+        private Run(final int depth) {
+            super();
+            filledInputs = new JinahyaSpscRing<>(depth);
+            freeInputs = new JinahyaSpscRing<>(depth);
+            filledOutputs = new JinahyaSpscRing<>(depth);
+            freeOutputs = new JinahyaSpscRing<>(depth);
+        }
+
+        private boolean cancelled() {
+            return cancelled;
+        }
+
+        // reader -> cipher
+        private final JinahyaSpscRing<Chunk> filledInputs;
+
+        // cipher -> reader
+        private final JinahyaSpscRing<Chunk> freeInputs;
+
+        // cipher -> writer
+        private final JinahyaSpscRing<Chunk> filledOutputs;
+
+        // writer -> cipher
+        private final JinahyaSpscRing<Chunk> freeOutputs;
+
+        private volatile boolean cancelled;
+
+        private volatile long inputBytes;
+
+        private volatile long outputBytes;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with the {@link #DEFAULT_CHUNK_SIZE}, and the {@link #DEFAULT_DEPTH}.
+     */
+    public JinahyaCipherPipeline() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Creates a new instance with specified chunk size, and depth.
+     *
+     * @param chunkSize the number of bytes of each chunk.
+     * @param depth     the number of chunks in flight between two stages.
+     */
+    public JinahyaCipherPipeline(final int chunkSize, final int depth) {
+        super();
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize(" + chunkSize + ") is not positive");
+        }
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth(" + depth + ") is not positive");
+        }
+        this.chunkSize = chunkSize;
+        this.depth = depth;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "chunkSize=" + chunkSize +
+               ",depth=" + depth +
+               '}';
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts all bytes of specified input stream into specified output stream with specified crypto.
+     *
+     * @param crypto the crypto.
+     * @param in     the input stream to encrypt.
+     * @param out    the output stream to which encrypted bytes are written.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long encrypt(final JinahyaCipherCrypto<?> crypto, final InputStream in, final OutputStream out)
+            throws IOException {
+        return process(crypto, true, in, out);
+    }
+
+    /**
+     * Decrypts all bytes of specified input stream into specified output stream with specified crypto.
+     *
+     * @param crypto the crypto.
+     * @param in     the input stream to decrypt.
+     * @param out    the output stream to which decrypted bytes are written.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long decrypt(final JinahyaCipherCrypto<?> crypto, final InputStream in, final OutputStream out)
+            throws IOException {
+        return process(crypto, false, in, out);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private long process(final JinahyaCipherCrypto<?> crypto, final boolean encryption, final InputStream in,
+                         final OutputStream out)
+            throws IOException {
+        Objects.requireNonNull(crypto, "crypto is null");
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        if (encryption) {
+            crypto.initForEncryption();
+        } else {
+            crypto.initForDecryption();
+        }
+        final var start = crypto.metrics.start();
+        final var pool = crypto.bufferPool;
+        final var run = new Run(depth);
+        final List<Chunk> inputs = new ArrayList<>(depth);
+        final List<Chunk> outputs = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            final var input = new Chunk(pool.acquireArray(chunkSize));
+            inputs.add(input);
+            run.freeInputs.offer(input);
+            final var output = new Chunk(pool.acquireArray(Math.max(crypto.getUpdateOutputSize(chunkSize), 1)));
+            outputs.add(output);
+            run.freeOutputs.offer(output);
+        }
+        final var reader = STAGES.submit(() -> read(run, in));
+        final Future<?> writer;
+        try {
+            writer = STAGES.submit(() -> write(run, out));
+        } catch (final RuntimeException re) {
+            run.cancelled = true;
+            reader.cancel(true);
+            throw re;
+        }
+        var completed = false;
+        try {
+            final var processEvent = new JinahyaCipherProcessEvent();
+            processEvent.begin();
+            var processed = 0L;
+            for (Chunk input; (input = run.filledInputs.take(run::cancelled)) != null && input.len >= 0; ) {
+                final var output = run.freeOutputs.take(run::cancelled);
+                if (output == null) {
+                    break;
+                }
+                output.buf = ensure(pool, output.buf, crypto.getUpdateOutputSize(input.len), crypto.metrics);
+                output.len = crypto.processBytes(input.buf, 0, input.len, output.buf, 0);
+                processed += output.len;
+                run.freeInputs.put(input, run::cancelled);
+                run.filledOutputs.put(output, run::cancelled);
+            }
+            if (!run.cancelled) {
+                processEvent.complete(crypto.cipher, run.inputBytes, processed);
+                final var output = run.freeOutputs.take(run::cancelled);
+                if (output != null) {
+                    output.buf = ensure(pool, output.buf, crypto.getFinalOutputSize(), crypto.metrics);
+                    final var finalizeEvent = new JinahyaCipherFinalizeEvent();
+                    finalizeEvent.begin();
+                    output.len = crypto.doFinal(output.buf, 0);
+                    finalizeEvent.complete(crypto.cipher, output.len);
+                    run.filledOutputs.put(output, run::cancelled);
+                    final var end = new Chunk(null);
+                    end.len = -1;
+                    run.filledOutputs.put(end, run::cancelled);
+                }
+            }
+            await(writer);
+            await(reader);
+            crypto.metrics.input(run.inputBytes);
+            crypto.metrics.output(run.outputBytes);
+            crypto.metrics.processed(encryption, start);
+            completed = true;
+            return run.outputBytes;
+        } catch (final InvalidCipherTextException icte) {
+            throw encryption
+                  ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                  : JinahyaCryptoException.ofDecryptionFailure(icte);
+        } finally {
+            run.cancelled = true;
+            awaitQuietly(writer);
+            for (final var output : outputs) {
+                pool.releaseArray(output.buf);
+            }
+            // a failed run doesn't wait for the reader, which may be blocked in reading; its chunks are left behind
+            if (completed) {
+                for (final var input : inputs) {
+                    pool.releaseArray(input.buf);
+                }
+            } else {
+                reader.cancel(true);
+            }
+        }
+    }
+
+    // the reader stage
+    private Void read(final Run run, final InputStream in) throws IOException {
+        try {
+            for (Chunk chunk; (chunk = run.freeInputs.take(run::cancelled)) != null; ) {
+                chunk.len = in.readNBytes(chunk.buf, 0, chunk.buf.length);
+                if (chunk.len == 0) {
+                    chunk.len = -1;
+                    run.filledInputs.put(chunk, run::cancelled);
+                    break;
+                }
+                run.inputBytes += chunk.len;
+                if (!run.filledInputs.put(chunk, run::cancelled)) {
+                    break;
+                }
+            }
+            return null;
+        } catch (final IOException | RuntimeException e) {
+            run.cancelled = true;
+            throw e;
+        }
+    }
+
+    // the writer stage
+    private Void write(final Run run, final OutputStream out) throws IOException {
+        try {
+            for (Chunk chunk; (chunk = run.filledOutputs.take(run::cancelled)) != null && chunk.len >= 0; ) {
+                out.write(chunk.buf, 0, chunk.len);
+                run.outputBytes += chunk.len;
+                if (!run.freeOutputs.put(chunk, run::cancelled)) {
+                    break;
+                }
+            }
+            return null;
+        } catch (final IOException | RuntimeException e) {
+            run.cancelled = true;
+            throw e;
+        }
+    }
+
+    // returns specified array, or, if shorter than specified length, a new longer one swapped for it
+    private static byte[] ensure(final JinahyaBufferPool pool, final byte[] buf, final int length,
+                                 final JinahyaCryptoMetrics metrics) {
+        if (buf.length >= length) {
+            return buf;
+        }
+        metrics.reallocated(buf.length, length);
+        pool.releaseArray(buf);
+        return pool.acquireArray(length);
+    }
+
+    // waits for specified stage, and rethrows its failure
+    private static void await(final Future<?> stage) throws IOException {
+        try {
+            stage.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for a stage", ie);
+        } catch (final ExecutionException ee) {
+            final var cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void awaitQuietly(final Future<?> stage) {
+        try {
+            stage.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ee) {
+            // already reported, or superseded by another failure
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of bytes of each chunk.
+     *
+     * @return the number of bytes of each chunk.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the number of chunks in flight between two stages.
+     *
+     * @return the number of chunks in flight between two stages.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final int chunkSize;
+
+    private final int depth;
+}
@@ -0,0 +1,316 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Flow.Processor} which encrypts, or decrypts, a stream of chunks with a {@link JinahyaCipherCrypto}.
+ * <p>
+ * This processor requests an upstream chunk only when the downstream subscriber has outstanding demand and no
+ * processed chunk is pending, so that no more than a chunk is buffered. When the upstream completes, the finalized
+ * chunk, e.g. the last padded block or the authentication tag, is emitted, on demand, followed by the completion. A
+ * failure of finalizing, e.g. a mismatched tag, is signaled as a {@link JinahyaCryptoException}.
+ * <p>
+ * Emitted chunks are backed by arrays acquired from the {@link JinahyaBufferPool#getDefault() default buffer pool}; a
+ * subscriber may {@link #release(ByteBuffer) release} each chunk, once consumed, for reuse. The crypto is used
+ * exclusively by an instance of this class, which supports a single subscription in each direction.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCrypto#encrypt(java.io.InputStream, java.io.OutputStream, byte[])
+ */
+public class JinahyaCipherProcessor
+        implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+    /**
+     * The number of bytes of an array to which bytes of a non-array input chunk are copied. The value is {@value}.
+     */
+    static final int STAGING_SIZE = 8192;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified crypto, and direction.
+     *
+     * @param crypto     the crypto to use.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     */
+    public JinahyaCipherProcessor(final JinahyaCipherCrypto<?> crypto, final boolean encryption) {
+        super();
+        this.crypto = Objects.requireNonNull(crypto, "crypto is null");
+        this.encryption = encryption;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Releases specified chunk, emitted by this processor, so that its backing array is zeroed, and reused.
+     *
+     * @param chunk the chunk to release.
+     */
+    public void release(final ByteBuffer chunk) {
+        Objects.requireNonNull(chunk, "chunk is null");
+        if (chunk.hasArray()) {
+            pool.releaseArray(chunk.array());
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------------- publisher
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber is null");
+        if (downstream != null) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("already subscribed"));
+            return;
+        }
+        downstream = subscriber;
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+                if (n <= 0L) {
+                    error = new IllegalArgumentException("n(" + n + ") is not positive");
+                    cancelUpstream();
+                    drain();
+                    return;
+                }
+                demand.getAndAccumulate(n, (p, q) -> p + q < 0L ? Long.MAX_VALUE : p + q);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        drain();
+    }
+
+    // ------------------------------------------------------------------------------------------------------ subscriber
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription is null");
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        if (encryption) {
+            crypto.initForEncryption();
+        } else {
+            crypto.initForDecryption();
+        }
+        start = crypto.metrics.start();
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(final ByteBuffer item) {
+        Objects.requireNonNull(item, "item is null");
+        awaiting = false;
+        if (done) {
+            return;
+        }
+        final var inlen = item.remaining();
+        inputBytes += inlen;
+        final var outbuf = pool.acquireArray(Math.max(crypto.getUpdateOutputSize(inlen), 1));
+        try {
+            var outlen = 0;
+            if (item.hasArray()) {
+                outlen = crypto.processBytes(item.array(), item.arrayOffset() + item.position(), inlen, outbuf, 0);
+                item.position(item.limit());
+            } else {
+                if (staging == null) {
+                    staging = pool.acquireArray(STAGING_SIZE);
+                }
+                while (item.hasRemaining()) {
+                    final var n = Math.min(item.remaining(), staging.length);
+                    item.get(staging, 0, n);
+                    outlen += crypto.processBytes(staging, 0, n, outbuf, outlen);
+                }
+            }
+            emit(outbuf, outlen);
+        } catch (final RuntimeException re) {
+            pool.releaseArray(outbuf);
+            cancelUpstream();
+            onError(encryption
+                    ? JinahyaCryptoException.ofEncryptionFailure(re)
+                    : JinahyaCryptoException.ofDecryptionFailure(re));
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        Objects.requireNonNull(throwable, "throwable is null");
+        error = throwable;
+        done = true;
+        releaseStaging();
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        if (done) {
+            return;
+        }
+        final var outbuf = pool.acquireArray(Math.max(crypto.getFinalOutputSize(), 1));
+        try {
+            emit(outbuf, crypto.doFinal(outbuf, 0));
+            crypto.metrics.input(inputBytes);
+            crypto.metrics.output(outputBytes);
+            crypto.metrics.processed(encryption, start);
+        } catch (final InvalidCipherTextException | RuntimeException e) {
+            pool.releaseArray(outbuf);
+            error = encryption
+                    ? JinahyaCryptoException.ofEncryptionFailure(e)
+                    : JinahyaCryptoException.ofDecryptionFailure(e);
+        }
+        done = true;
+        releaseStaging();
+        drain();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Queues specified number of bytes of specified array as a chunk to emit; the array is released when empty.
+     *
+     * @param outbuf the array.
+     * @param outlen the number of bytes in the {@code outbuf}.
+     */
+    private void emit(final byte[] outbuf, final int outlen) {
+        if (outlen == 0) {
+            pool.releaseArray(outbuf);
+            return;
+        }
+        outputBytes += outlen;
+        chunks.offer(ByteBuffer.wrap(outbuf, 0, outlen));
+    }
+
+    private void releaseStaging() {
+        if (staging != null) {
+            pool.releaseArray(staging);
+            staging = null;
+        }
+    }
+
+    private void cancelUpstream() {
+        final var subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * Emits pending chunks, and terminal signals, while the downstream has demand, and requests an upstream chunk
+     * when no chunk is pending; signals are serialized by a work-in-progress counter.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            final var subscriber = downstream;
+            if (subscriber == null || terminated) {
+                continue;
+            }
+            if (cancelled) {
+                terminate();
+                continue;
+            }
+            final var throwable = error;
+            if (throwable != null) {
+                terminate();
+                subscriber.onError(throwable);
+                continue;
+            }
+            // read before polling chunks, so that the finalized chunk is never missed
+            final var finished = done;
+            while (demand.get() > 0L) {
+                final var chunk = chunks.poll();
+                if (chunk == null) {
+                    break;
+                }
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                subscriber.onNext(chunk);
+            }
+            if (!chunks.isEmpty()) {
+                continue;
+            }
+            if (finished) {
+                terminate();
+                subscriber.onComplete();
+                continue;
+            }
+            final var subscription = upstream;
+            if (subscription != null && demand.get() > 0L && !awaiting) {
+                awaiting = true;
+                subscription.request(1L);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private void terminate() {
+        terminated = true;
+        for (ByteBuffer chunk; (chunk = chunks.poll()) != null; ) {
+            pool.releaseArray(chunk.array());
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final JinahyaCipherCrypto<?> crypto;
+
+    private final boolean encryption;
+
+    private final JinahyaBufferPool pool = JinahyaBufferPool.getDefault();
+
+    private final ConcurrentLinkedQueue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong demand = new AtomicLong();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile Flow.Subscriber<? super ByteBuffer> downstream;
+
+    private volatile Flow.Subscription upstream;
+
+    // whether an upstream chunk has been requested, and not yet received
+    private volatile boolean awaiting;
+
+    private volatile boolean done;
+
+    private volatile boolean cancelled;
+
+    private volatile Throwable error;
+
+    // accessed only by the drain loop
+    private boolean terminated;
+
+    // accessed only by upstream signals
+    private byte[] staging;
+
+    private long start;
+
+    private long inputBytes;
+
+    private long outputBytes;
+}
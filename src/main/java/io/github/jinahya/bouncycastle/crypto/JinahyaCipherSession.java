@@ -0,0 +1,377 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherFinalizeEvent;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherProcessEvent;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * An incremental session of encryption, or decryption, over a {@link JinahyaCipherCrypto}, which processes input
+ * fragments as they arrive, and finalizes once.
+ * <pre>{@code
+ * final var session = crypto.newSession(true);
+ * while (...) {
+ *     output = ensure(output, session.getUpdateOutputSize(fragment.remaining()));
+ *     session.update(fragment, output);
+ * }
+ * output = ensure(output, session.getFinalOutputSize());
+ * session.doFinal(output);
+ * }</pre>
+ * Associated text of an AEAD cipher may be streamed with {@code updateAAD} methods before any input fragment.
+ * The crypto should not be used for other operations until the session is finalized.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCipherCrypto#newSession(boolean)
+ */
+public final class JinahyaCipherSession {
+
+    /**
+     * Creates a new session, initializing specified crypto for specified direction.
+     *
+     * @param crypto     the crypto.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     */
+    JinahyaCipherSession(final JinahyaCipherCrypto<?> crypto, final boolean encryption) {
+        super();
+        this.crypto = Objects.requireNonNull(crypto, "crypto is null");
+        this.encryption = encryption;
+        if (encryption) {
+            crypto.initForEncryption();
+        } else {
+            crypto.initForDecryption();
+        }
+        start = crypto.metrics.start();
+        processEvent.begin();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "encryption=" + encryption +
+               ",aadBytes=" + aadBytes +
+               ",inputBytes=" + inputBytes +
+               ",outputBytes=" + outputBytes +
+               ",finalized=" + finalized +
+               '}';
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the exact number of output bytes for updating this session with specified number of input bytes.
+     *
+     * @param inlen the number of input bytes.
+     * @return the number of output bytes for the {@code inlen}.
+     */
+    public int getUpdateOutputSize(final int inlen) {
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        ensureNotFinalized();
+        return crypto.getUpdateOutputSize(inlen);
+    }
+
+    /**
+     * Returns the maximum number of output bytes for finalizing this session with no more input.
+     *
+     * @return the number of output bytes for finalizing.
+     */
+    public int getFinalOutputSize() {
+        ensureNotFinalized();
+        return crypto.getFinalOutputSize();
+    }
+
+    // ------------------------------------------------------------------------------------------------------------- aad
+
+    /**
+     * Updates this session with bytes in specified range of specified array as associated text.
+     *
+     * @param aad    the array of the associated text.
+     * @param aadoff a starting index of the {@code aad}.
+     * @param aadlen the number of bytes to process.
+     * @throws IllegalStateException         if any input has already been updated.
+     * @throws UnsupportedOperationException if the cipher does not support associated text.
+     */
+    public void updateAAD(final byte[] aad, final int aadoff, final int aadlen) {
+        Objects.requireNonNull(aad, "aad is null");
+        if (aadoff < 0) {
+            throw new IllegalArgumentException("aadoff(" + aadoff + ") is negative");
+        }
+        if (aadlen < 0) {
+            throw new IllegalArgumentException("aadlen(" + aadlen + ") is negative");
+        }
+        if (aadoff + aadlen > aad.length) {
+            throw new IllegalArgumentException(
+                    "aadoff(" + aadoff + ") + aadlen(" + aadlen + ") > aad.length(" + aad.length + ")");
+        }
+        ensureAADAllowed();
+        crypto.processAADBytes(aad, aadoff, aadlen);
+        aadBytes += aadlen;
+    }
+
+    /**
+     * Updates this session with all remaining bytes of specified buffer as associated text. Bytes of a buffer without
+     * an accessible array, e.g. a direct buffer, are copied through a scratch window.
+     *
+     * @param aad the buffer of the associated text.
+     * @throws IllegalStateException         if any input has already been updated.
+     * @throws UnsupportedOperationException if the cipher does not support associated text.
+     * @see JinahyaScratchBuffers
+     */
+    public void updateAAD(final ByteBuffer aad) {
+        Objects.requireNonNull(aad, "aad is null");
+        ensureAADAllowed();
+        final var len = aad.remaining();
+        crypto.processAADBytes(aad);
+        aadBytes += len;
+    }
+
+    /**
+     * Updates this session with all bytes of specified stream as associated text.
+     *
+     * @param aad the stream of the associated text.
+     * @return the number of bytes read from the {@code aad}.
+     * @throws IOException                   if an I/O error occurs.
+     * @throws IllegalStateException         if any input has already been updated.
+     * @throws UnsupportedOperationException if the cipher does not support associated text.
+     */
+    public long updateAAD(final InputStream aad) throws IOException {
+        Objects.requireNonNull(aad, "aad is null");
+        ensureAADAllowed();
+        final var window = JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+        try {
+            var bytes = 0L;
+            for (int r; (r = aad.read(window)) != -1; ) {
+                crypto.processAADBytes(window, 0, r);
+                bytes += r;
+                aadBytes += r;
+            }
+            return bytes;
+        } finally {
+            JinahyaScratchBuffers.release(window);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Updates this session with bytes in specified range of specified input array.
+     *
+     * @param in     the input array.
+     * @param inoff  a starting index of the {@code in}.
+     * @param inlen  the number of bytes to process.
+     * @param out    the output array.
+     * @param outoff a starting index of the {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     * @see #getUpdateOutputSize(int)
+     */
+    public int update(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        ensureNotFinalized();
+        final var outlen = crypto.processBytes(in, inoff, inlen, out, outoff);
+        inputBytes += inlen;
+        outputBytes += outlen;
+        return outlen;
+    }
+
+    /**
+     * Updates this session with all remaining bytes of specified input buffer, and puts processed bytes on specified
+     * output buffer.
+     *
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     * @throws BufferOverflowException if the {@code output} has less remaining than the
+     *                                 {@link #getUpdateOutputSize(int) update output size}; in which case, neither
+     *                                 buffer is modified.
+     */
+    public int update(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        ensureNotFinalized();
+        if (output.remaining() < crypto.getUpdateOutputSize(input.remaining())) {
+            throw new BufferOverflowException();
+        }
+        final var inlen = input.remaining();
+        var outlen = 0;
+        if (input.hasArray() && output.hasArray()) {
+            outlen = crypto.processBytes(input.array(), input.arrayOffset() + input.position(), inlen,
+                                         output.array(), output.arrayOffset() + output.position());
+            input.position(input.limit());
+            output.position(output.position() + outlen);
+        } else {
+            final var pool = crypto.bufferPool;
+            final var inbuf = pool.acquireArray(Math.min(inlen, JinahyaScratchBuffers.WINDOW_SIZE));
+            var outbuf = pool.acquireArray(crypto.getUpdateOutputSize(inbuf.length));
+            try {
+                while (input.hasRemaining()) {
+                    final var n = Math.min(input.remaining(), inbuf.length);
+                    input.get(inbuf, 0, n);
+                    final var required = crypto.getUpdateOutputSize(n);
+                    if (outbuf.length < required) {
+                        pool.releaseArray(outbuf);
+                        outbuf = pool.acquireArray(required);
+                    }
+                    final var processed = crypto.processBytes(inbuf, 0, n, outbuf, 0);
+                    output.put(outbuf, 0, processed);
+                    outlen += processed;
+                }
+            } finally {
+                pool.releaseArray(inbuf);
+                pool.releaseArray(outbuf);
+            }
+        }
+        inputBytes += inlen;
+        outputBytes += outlen;
+        return outlen;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Finalizes this session into specified output array.
+     *
+     * @param out    the output array.
+     * @param outoff a starting index of the {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     * @throws IllegalArgumentException if the {@code out} has less room, from the {@code outoff}, than the
+     *                                  {@link #getFinalOutputSize() final output size}; in which case, this session is
+     *                                  not finalized.
+     * @throws JinahyaCryptoException   if padding is expected and not found, or the authentication tag does not match.
+     * @see #getFinalOutputSize()
+     */
+    public int doFinal(final byte[] out, final int outoff) {
+        Objects.requireNonNull(out, "out is null");
+        if (outoff < 0) {
+            throw new IllegalArgumentException("outoff(" + outoff + ") is negative");
+        }
+        ensureNotFinalized();
+        final var size = crypto.getFinalOutputSize();
+        if (outoff + size > out.length) {
+            throw new IllegalArgumentException(
+                    "outoff(" + outoff + ") + final output size(" + size + ") > out.length(" + out.length + ")");
+        }
+        finalized = true;
+        processEvent.complete(crypto.cipher, inputBytes, outputBytes);
+        final var finalizeEvent = new JinahyaCipherFinalizeEvent();
+        finalizeEvent.begin();
+        try {
+            final var outlen = crypto.doFinal(out, outoff);
+            finalizeEvent.complete(crypto.cipher, outlen);
+            outputBytes += outlen;
+            crypto.metrics.input(inputBytes);
+            crypto.metrics.output(outputBytes);
+            crypto.metrics.processed(encryption, start);
+            return outlen;
+        } catch (final InvalidCipherTextException icte) {
+            throw encryption
+                  ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                  : JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Finalizes this session into specified output buffer.
+     *
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     * @throws BufferOverflowException if the {@code output} has less remaining than the
+     *                                 {@link #getFinalOutputSize() final output size}; in which case, this session is
+     *                                 not finalized.
+     * @throws JinahyaCryptoException  if padding is expected and not found, or the authentication tag does not match.
+     */
+    public int doFinal(final ByteBuffer output) {
+        Objects.requireNonNull(output, "output is null");
+        ensureNotFinalized();
+        final var size = crypto.getFinalOutputSize();
+        if (output.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        if (output.hasArray()) {
+            final var outlen = doFinal(output.array(), output.arrayOffset() + output.position());
+            output.position(output.position() + outlen);
+            return outlen;
+        }
+        final var pool = crypto.bufferPool;
+        final var outbuf = pool.acquireArray(Math.max(size, 1));
+        try {
+            final var outlen = doFinal(outbuf, 0);
+            output.put(outbuf, 0, outlen);
+            return outlen;
+        } finally {
+            pool.releaseArray(outbuf);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void ensureNotFinalized() {
+        if (finalized) {
+            throw new IllegalStateException("already finalized");
+        }
+    }
+
+    // associated text should precede any input
+    private void ensureAADAllowed() {
+        ensureNotFinalized();
+        if (inputBytes > 0L) {
+            throw new IllegalStateException("input already updated");
+        }
+    }
+
+    /**
+     * Returns the total number of associated text bytes updated so far.
+     *
+     * @return the total number of associated text bytes.
+     */
+    public long getAADBytes() {
+        return aadBytes;
+    }
+
+    /**
+     * Returns the total number of input bytes updated so far.
+     *
+     * @return the total number of input bytes.
+     */
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    /**
+     * Returns the total number of output bytes produced so far.
+     *
+     * @return the total number of output bytes.
+     */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /**
+     * Returns whether this session has been finalized.
+     *
+     * @return {@code true} if finalized; {@code false} otherwise.
+     */
+    public boolean isFinalized() {
+        return finalized;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final JinahyaCipherCrypto<?> crypto;
+
+    private final boolean encryption;
+
+    private final long start;
+
+    private final JinahyaCipherProcessEvent processEvent = new JinahyaCipherProcessEvent();
+
+    private long aadBytes;
+
+    private long inputBytes;
+
+    private long outputBytes;
+
+    private boolean finalized;
+}
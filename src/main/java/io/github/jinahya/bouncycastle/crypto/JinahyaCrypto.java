@@ -4,9 +4,43 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
 
 public interface JinahyaCrypto {
 
+    /**
+     * Checks that specified source file and target file are not the same file.
+     *
+     * @param source the source file.
+     * @param target the target file.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void requireDistinct(final Path source, final Path target) throws IOException {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("source(" + source + ") and target(" + target + ") are the same");
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the maximum number of output bytes for encrypting, or decrypting, specified number of input bytes.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param inlen      the number of input bytes.
+     * @return the maximum number of output bytes for the {@code inlen}.
+     */
+    int getOutputSize(boolean encryption, int inlen);
+
+    // -----------------------------------------------------------------------------------------------------------------
+
     /**
      * Encrypts specified input bytes, and returns the result.
      *
@@ -24,6 +58,24 @@ public interface JinahyaCrypto {
      */
     int encrypt(final ByteBuffer input, final ByteBuffer output);
 
+    /**
+     * Encrypts bytes in specified range of specified input array, and sets encrypted bytes on specified output array
+     * starting at specified index.
+     *
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of bytes to encrypt in {@code in}.
+     * @param out    the output array; should have room for, at least,
+     *               {@link #getOutputSize(boolean, int) getOutputSize(true, inlen)} bytes.
+     * @param outoff the starting index of {@code out} on which encrypted bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     * @implSpec The default implementation wraps both arrays, and invokes the
+     * {@link #encrypt(ByteBuffer, ByteBuffer)} method.
+     */
+    default int encrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return encrypt(ByteBuffer.wrap(in, inoff, inlen), ByteBuffer.wrap(out, outoff, out.length - outoff));
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 
     /**
@@ -43,6 +95,24 @@ public interface JinahyaCrypto {
      */
     int decrypt(final ByteBuffer input, final ByteBuffer output);
 
+    /**
+     * Decrypts bytes in specified range of specified input array, and sets decrypted bytes on specified output array
+     * starting at specified index.
+     *
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of bytes to decrypt in {@code in}.
+     * @param out    the output array; should have room for, at least,
+     *               {@link #getOutputSize(boolean, int) getOutputSize(false, inlen)} bytes.
+     * @param outoff the starting index of {@code out} on which decrypted bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     * @implSpec The default implementation wraps both arrays, and invokes the
+     * {@link #decrypt(ByteBuffer, ByteBuffer)} method.
+     */
+    default int decrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return decrypt(ByteBuffer.wrap(in, inoff, inlen), ByteBuffer.wrap(out, outoff, out.length - outoff));
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 
     /**
@@ -68,4 +138,86 @@ public interface JinahyaCrypto {
      * @throws IOException if an I/O error occurs.
      */
     long decrypt(InputStream in, OutputStream out, byte[] inbuf) throws IOException;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts all bytes of specified source file, and writes encrypted bytes to specified target file. The target
+     * file is created, or truncated, and may contain partial output when the encryption fails.
+     *
+     * @param source the source file to encrypt.
+     * @param target the target file to which encrypted bytes are written; must not be the same file as the
+     *               {@code source}.
+     * @return the number of bytes written to the {@code target}.
+     * @throws IOException if an I/O error occurs.
+     * @implSpec The default implementation opens streams of both files, and invokes the
+     * {@link #encrypt(InputStream, OutputStream, byte[])} method with a new buffer of {@code 8192} bytes.
+     */
+    default long encrypt(final Path source, final Path target) throws IOException {
+        requireDistinct(source, target);
+        try (var in = Files.newInputStream(source);
+             var out = Files.newOutputStream(target)) {
+            return encrypt(in, out, new byte[8192]);
+        }
+    }
+
+    /**
+     * Decrypts all bytes of specified source file, and writes decrypted bytes to specified target file. The target
+     * file is created, or truncated, and may contain partial output when the decryption fails.
+     *
+     * @param source the source file to decrypt.
+     * @param target the target file to which decrypted bytes are written; must not be the same file as the
+     *               {@code source}.
+     * @return the number of bytes written to the {@code target}.
+     * @throws IOException if an I/O error occurs.
+     * @implSpec The default implementation opens streams of both files, and invokes the
+     * {@link #decrypt(InputStream, OutputStream, byte[])} method with a new buffer of {@code 8192} bytes.
+     */
+    default long decrypt(final Path source, final Path target) throws IOException {
+        requireDistinct(source, target);
+        try (var in = Files.newInputStream(source);
+             var out = Files.newOutputStream(target)) {
+            return decrypt(in, out, new byte[8192]);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts all bytes from specified readable channel, and writes encrypted bytes to specified writable channel.
+     * This method blocks the calling thread until all bytes are transferred. Neither channel is closed.
+     *
+     * @param in  the channel from which plain bytes are read.
+     * @param out the channel to which encrypted bytes are written.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     * @implSpec The default implementation invokes the {@link #encrypt(InputStream, OutputStream, byte[])} method with
+     * streams of both channels, and a new buffer of {@code 8192} bytes; which doesn't support non-blocking channels,
+     * for which an {@link java.nio.channels.IllegalBlockingModeException} is thrown.
+     */
+    default long encrypt(final ReadableByteChannel in, final WritableByteChannel out) throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        // the streams are not closed, so that the channels are kept open
+        return encrypt(Channels.newInputStream(in), Channels.newOutputStream(out), new byte[8192]);
+    }
+
+    /**
+     * Decrypts all bytes from specified readable channel, and writes decrypted bytes to specified writable channel.
+     * This method blocks the calling thread until all bytes are transferred. Neither channel is closed.
+     *
+     * @param in  the channel from which encrypted bytes are read.
+     * @param out the channel to which decrypted bytes are written.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     * @implSpec The default implementation invokes the {@link #decrypt(InputStream, OutputStream, byte[])} method with
+     * streams of both channels, and a new buffer of {@code 8192} bytes; which doesn't support non-blocking channels,
+     * for which an {@link java.nio.channels.IllegalBlockingModeException} is thrown.
+     */
+    default long decrypt(final ReadableByteChannel in, final WritableByteChannel out) throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        // the streams are not closed, so that the channels are kept open
+        return decrypt(Channels.newInputStream(in), Channels.newOutputStream(out), new byte[8192]);
+    }
 }
@@ -0,0 +1,108 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A batch of processed messages held in a single, contiguous, array with an index of offsets.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCipherCrypto#encryptBatch(byte[], byte[], byte[], int[])
+ * @see JinahyaCipherCrypto#decryptBatch(byte[], byte[], byte[], int[])
+ */
+public final class JinahyaCryptoBatch {
+
+    JinahyaCryptoBatch(final byte[] output, final int[] offsets) {
+        super();
+        this.output = Objects.requireNonNull(output, "output is null");
+        this.offsets = Objects.requireNonNull(offsets, "offsets is null");
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "size=" + size() +
+               ",length=" + offsets[offsets.length - 1] +
+               '}';
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of messages in this batch.
+     *
+     * @return the number of messages.
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the array which holds all messages; the array may be longer than the end of the last message.
+     *
+     * @return the array of all messages; not copied.
+     */
+    public byte[] getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns the index of offsets; the {@code i}-th message lies from {@code offsets[i]} (inclusive) to
+     * {@code offsets[i + 1]} (exclusive) of the {@link #getOutput() output}.
+     *
+     * @return the index of offsets, of {@link #size()} + 1 elements; not copied.
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the offset of the message at specified index.
+     *
+     * @param index the index of the message.
+     * @return the offset of the message in the {@link #getOutput() output}.
+     */
+    public int getOffset(final int index) {
+        Objects.checkIndex(index, size());
+        return offsets[index];
+    }
+
+    /**
+     * Returns the length of the message at specified index.
+     *
+     * @param index the index of the message.
+     * @return the length of the message.
+     */
+    public int getLength(final int index) {
+        Objects.checkIndex(index, size());
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Returns a copy of the message at specified index.
+     *
+     * @param index the index of the message.
+     * @return a copy of the message.
+     */
+    public byte[] get(final int index) {
+        Objects.checkIndex(index, size());
+        return Arrays.copyOfRange(output, offsets[index], offsets[index + 1]);
+    }
+
+    /**
+     * Returns a read-only buffer of the message at specified index, backed by the {@link #getOutput() output}.
+     *
+     * @param index the index of the message.
+     * @return a read-only buffer of the message.
+     */
+    public ByteBuffer getBuffer(final int index) {
+        Objects.checkIndex(index, size());
+        return ByteBuffer.wrap(output, offsets[index], offsets[index + 1] - offsets[index]).slice().asReadOnlyBuffer();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final byte[] output;
+
+    private final int[] offsets;
+}
@@ -0,0 +1,529 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A thread-safe, bounded cache of cryptos, each created for a key and mapped by the fingerprint of the key.
+ * <p>
+ * A crypto is created, on a cache miss, by the {@link #loader} with a private copy of the key, e.g.
+ * <pre>{@code
+ * final var cache = new JinahyaCryptoCache<JinahyaAEADCipherCrypto>(
+ *         k -> new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()),
+ *                                          new AEADParameters(k, 128, new byte[12])),
+ *         1024,
+ *         Duration.ofMinutes(10L)
+ * );
+ * final var encrypted = cache.apply(tenantKey, c -> c.encrypt(nonce, aad, plaintext));
+ * }</pre>
+ * Once a cached crypto has been used, its cipher keeps the expanded key schedule, so that following messages of the
+ * same key, processed with, e.g., {@link JinahyaAEADCipherCrypto#encrypt(byte[], byte[], byte[])}, skip the key setup.
+ * <p>
+ * Entries are evicted in least-recently-used order when the cache holds more than the {@link #getMaximumSize()
+ * maximum size}, and when they have not been accessed for the {@link #getIdleTimeout() idle timeout}; a
+ * {@link #pin(KeyParameter) pinned} entry is never evicted until it is unpinned. Uses of the same entry are serialized,
+ * while uses of different entries run concurrently. A crypto is loaded outside of the cache lock, so that a slow
+ * {@link #loader} delays only the accesses of the same key; a crypto failed to load is not cached, and the failure is
+ * thrown to each access waiting for it.
+ * <p>
+ * The key copy of an evicted entry is zeroed as soon as no thread uses its crypto. Note, however, that the expanded
+ * key schedule kept by the cipher of the crypto, e.g. the round keys of an {@code AESEngine}, can't be zeroed through
+ * the Bouncy Castle API, and remains in memory until the crypto, no longer referenced by the cache, is garbage
+ * collected.
+ *
+ * @param <CRYPTO> crypto type parameter
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCipherCrypto
+ */
+@SuppressWarnings({
+        "java:S119" // <CRYPTO>
+})
+public class JinahyaCryptoCache<CRYPTO extends JinahyaCrypto> {
+
+    /**
+     * A function which may throw an {@link IOException}.
+     *
+     * @param <T> argument type parameter
+     * @param <R> result type parameter
+     */
+    @FunctionalInterface
+    public interface IoFunction<T, R> {
+
+        /**
+         * Applies this function to specified argument.
+         *
+         * @param t the argument.
+         * @return the result.
+         * @throws IOException if an I/O error occurs.
+         */
+        R apply(T t) throws IOException;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the fingerprint, the {@code SHA-256} digest, of specified key.
+     *
+     * @param key the key.
+     * @return the fingerprint of the {@code key}.
+     */
+    public static byte[] fingerprint(final KeyParameter key) {
+        Objects.requireNonNull(key, "key is null");
+        final var digest = new SHA256Digest();
+        final var bytes = key.getKey();
+        digest.update(bytes, 0, bytes.length);
+        final var fingerprint = new byte[digest.getDigestSize()];
+        digest.doFinal(fingerprint, 0);
+        return fingerprint;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param loader      a function for creating a crypto for a key.
+     * @param maximumSize the maximum number of unpinned entries; must be positive.
+     * @param idleTimeout the duration after which an entry, not accessed, is evicted; must be positive.
+     */
+    public JinahyaCryptoCache(final Function<? super KeyParameter, ? extends CRYPTO> loader, final int maximumSize,
+                              final Duration idleTimeout) {
+        super();
+        this.loader = Objects.requireNonNull(loader, "loader is null");
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize(" + maximumSize + ") is not positive");
+        }
+        this.maximumSize = maximumSize;
+        Objects.requireNonNull(idleTimeout, "idleTimeout is null");
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout(" + idleTimeout + ") is not positive");
+        }
+        this.idleTimeout = idleTimeout;
+        idleNanos = idleTimeout.toNanos();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "maximumSize=" + maximumSize +
+               ",idleTimeout=" + idleTimeout +
+               ",hits=" + getHitCount() +
+               ",misses=" + getMissCount() +
+               ",evictions=" + getEvictionCount() +
+               '}';
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Applies specified function to the crypto cached for specified key, loading one if absent, and returns the
+     * result. The crypto is used exclusively by the current thread while the {@code function} runs.
+     *
+     * @param key      the key.
+     * @param function the function to apply.
+     * @param <R>      result type parameter
+     * @return the result of the {@code function}.
+     */
+    public <R> R apply(final KeyParameter key, final Function<? super CRYPTO, ? extends R> function) {
+        Objects.requireNonNull(function, "function is null");
+        final var entry = acquire(key, 0);
+        try {
+            final var crypto = entry.get();
+            entry.lock.lock();
+            try {
+                return function.apply(crypto);
+            } finally {
+                entry.lock.unlock();
+            }
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * Applies specified I/O function to the crypto cached for specified key, loading one if absent, and returns the
+     * result. The crypto is used exclusively by the current thread while the {@code function} runs.
+     *
+     * @param key      the key.
+     * @param function the function to apply.
+     * @param <R>      result type parameter
+     * @return the result of the {@code function}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public <R> R applyIo(final KeyParameter key, final IoFunction<? super CRYPTO, ? extends R> function)
+            throws IOException {
+        Objects.requireNonNull(function, "function is null");
+        final var entry = acquire(key, 0);
+        try {
+            final var crypto = entry.get();
+            entry.lock.lock();
+            try {
+                return function.apply(crypto);
+            } finally {
+                entry.lock.unlock();
+            }
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * Pins the entry of specified key, loading one if absent, so that the entry is never evicted until it is
+     * {@link #unpin(KeyParameter) unpinned} as many times as it is pinned.
+     *
+     * @param key the key.
+     */
+    public void pin(final KeyParameter key) {
+        final var entry = acquire(key, 1);
+        try {
+            entry.get();
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * Unpins the entry of specified key.
+     *
+     * @param key the key.
+     * @return {@code true} if the entry has been pinned, and is unpinned; {@code false} otherwise.
+     */
+    public boolean unpin(final KeyParameter key) {
+        final var fingerprint = ByteBuffer.wrap(fingerprint(key));
+        lock.lock();
+        try {
+            final var entry = entries.get(fingerprint);
+            if (entry == null || entry.pins == 0) {
+                return false;
+            }
+            if (--entry.pins == 0) {
+                pinned--;
+            }
+            evict(System.nanoTime());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry of specified key, pinned or not.
+     *
+     * @param key the key.
+     * @return {@code true} if the entry existed; {@code false} otherwise.
+     */
+    public boolean invalidate(final KeyParameter key) {
+        final var fingerprint = ByteBuffer.wrap(fingerprint(key));
+        lock.lock();
+        try {
+            final var entry = entries.remove(fingerprint);
+            if (entry == null) {
+                return false;
+            }
+            if (entry.pins > 0) {
+                pinned--;
+            }
+            discard(entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all entries, pinned or not.
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.values().forEach(this::discard);
+            entries.clear();
+            pinned = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts entries which have not been accessed for the {@link #getIdleTimeout() idle timeout}. Note that idle
+     * entries are also evicted on each access.
+     */
+    public void cleanUp() {
+        lock.lock();
+        try {
+            evict(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private static final class Entry<CRYPTO> {
+
+        private Entry(final ByteBuffer fingerprint, final KeyParameter key) {
+            super();
+            this.fingerprint = fingerprint;
+            this.key = key;
+        }
+
+        /**
+         * Returns the crypto of this entry, waiting for it to be loaded.
+         *
+         * @return the crypto of this entry.
+         */
+        private CRYPTO get() {
+            try {
+                return crypto.join();
+            } catch (final CompletionException ce) {
+                final var cause = ce.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw ce;
+            }
+        }
+
+        private final ByteBuffer fingerprint;
+
+        private final KeyParameter key;
+
+        // completed, outside the cache lock, by the thread which missed the entry
+        private final CompletableFuture<CRYPTO> crypto = new CompletableFuture<>();
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // guarded by the cache lock
+        private long accessed;
+
+        // guarded by the cache lock
+        private int uses;
+
+        // guarded by the cache lock
+        private int pins;
+
+        // guarded by the cache lock
+        private boolean evicted;
+    }
+
+    /**
+     * Returns the entry of specified key, with its number of uses increased. When the entry is absent, a new one is
+     * mapped, and its crypto is loaded, by the current thread, after the cache lock is released; a failure of the
+     * loading is thrown from the {@link Entry#get()}.
+     *
+     * @param key  the key.
+     * @param pins the number of pins to add.
+     * @return the entry.
+     */
+    private Entry<CRYPTO> acquire(final KeyParameter key, final int pins) {
+        final var fingerprint = ByteBuffer.wrap(fingerprint(key));
+        final Entry<CRYPTO> entry;
+        final boolean missed;
+        lock.lock();
+        try {
+            final var now = System.nanoTime();
+            var e = entries.get(fingerprint);
+            missed = e == null;
+            if (missed) {
+                misses.increment();
+                e = new Entry<>(fingerprint, new KeyParameter(key.getKey()));
+                entries.put(fingerprint, e);
+            } else {
+                hits.increment();
+            }
+            e.accessed = now;
+            e.uses++;
+            if (e.pins == 0 && pins > 0) {
+                pinned++;
+            }
+            e.pins += pins;
+            evict(now);
+            entry = e;
+        } finally {
+            lock.unlock();
+        }
+        if (missed) {
+            try {
+                entry.crypto.complete(Objects.requireNonNull(loader.apply(entry.key), "null crypto loaded"));
+            } catch (final RuntimeException | Error e) {
+                entry.crypto.completeExceptionally(e);
+                abandon(entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Unmaps specified entry, whose crypto failed to load, so that the next access loads a new one.
+     *
+     * @param entry the entry.
+     */
+    private void abandon(final Entry<CRYPTO> entry) {
+        lock.lock();
+        try {
+            if (entries.remove(entry.fingerprint, entry) && entry.pins > 0) {
+                pinned--;
+            }
+            discard(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Decreases the number of uses of specified entry, and zeroes the key of the entry if it has been evicted and is
+     * no longer used.
+     *
+     * @param entry the entry.
+     */
+    private void release(final Entry<CRYPTO> entry) {
+        lock.lock();
+        try {
+            entry.uses--;
+            if (entry.evicted && entry.uses == 0) {
+                Arrays.fill(entry.key.getKey(), (byte) 0);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts, while the cache lock is held, unpinned entries which are idle, or exceeding the maximum size, in
+     * least-recently-used order.
+     *
+     * @param now current value of the {@link System#nanoTime()}.
+     */
+    private void evict(final long now) {
+        var unpinned = entries.size() - pinned;
+        for (final var i = entries.values().iterator(); i.hasNext(); ) {
+            final var entry = i.next();
+            if (entry.pins > 0) {
+                continue;
+            }
+            if (unpinned <= maximumSize && now - entry.accessed < idleNanos) {
+                break;
+            }
+            i.remove();
+            unpinned--;
+            evictions.increment();
+            discard(entry);
+        }
+    }
+
+    /**
+     * Marks specified entry, while the cache lock is held, as evicted, and zeroes its key if it is not in use.
+     *
+     * @param entry the entry.
+     */
+    private void discard(final Entry<CRYPTO> entry) {
+        entry.evicted = true;
+        if (entry.uses == 0) {
+            Arrays.fill(entry.key.getKey(), (byte) 0);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the current number of entries, including pinned ones.
+     *
+     * @return the current number of entries.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum number of unpinned entries.
+     *
+     * @return the maximum number of unpinned entries.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the duration after which an entry, not accessed, is evicted.
+     *
+     * @return the idle timeout.
+     */
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Returns the number of accesses served with a cached crypto.
+     *
+     * @return the number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of accesses served with a newly loaded crypto.
+     *
+     * @return the number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted for the size, or for the idle timeout.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * a function for creating a crypto for a key.
+     */
+    protected final Function<? super KeyParameter, ? extends CRYPTO> loader;
+
+    private final int maximumSize;
+
+    private final Duration idleTimeout;
+
+    private final long idleNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // in access order; guarded by the lock
+    private final Map<ByteBuffer, Entry<CRYPTO>> entries = new LinkedHashMap<>(16, .75f, true);
+
+    // the number of pinned entries; guarded by the lock
+    private int pinned;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+}
@@ -0,0 +1,79 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+/**
+ * An instrumentation SPI for recording counters and timers of cryptos.
+ * <p>
+ * Timers are recorded as pairs of {@link #start()} and one of {@link #initialized(boolean, long)} or
+ * {@link #processed(boolean, long)}; implementations which do not measure time may return {@code 0L} from the
+ * {@link #start()}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaLongAdderCryptoMetrics
+ * @see #noop()
+ */
+public interface JinahyaCryptoMetrics {
+
+    /**
+     * Returns an instance which records nothing. Calls to the instance are empty, and are fully eliminated by the JIT
+     * once inlined.
+     *
+     * @return an instance which records nothing.
+     */
+    static JinahyaCryptoMetrics noop() {
+        return JinahyaNoopCryptoMetrics.INSTANCE;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns a start time, in nanoseconds, for a following {@link #initialized(boolean, long)} or
+     * {@link #processed(boolean, long)}.
+     *
+     * @return a start time in nanoseconds.
+     * @see System#nanoTime()
+     */
+    long start();
+
+    /**
+     * Records that a cipher has been initialized, including its key schedule.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param start      a value previously returned by {@link #start()}.
+     */
+    void initialized(boolean encryption, long start);
+
+    /**
+     * Records that an operation has been completed.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param start      a value previously returned by {@link #start()}.
+     */
+    void processed(boolean encryption, long start);
+
+    /**
+     * Records specified number of input bytes.
+     *
+     * @param bytes the number of input bytes.
+     */
+    void input(long bytes);
+
+    /**
+     * Records specified number of output bytes.
+     *
+     * @param bytes the number of output bytes.
+     */
+    void output(long bytes);
+
+    /**
+     * Records that a buffer has been re-allocated for a larger size.
+     *
+     * @param from the size of the old buffer.
+     * @param to   the size of the new buffer.
+     */
+    void reallocated(int from, int to);
+
+    /**
+     * Records that an authentication tag has been failed to verify.
+     */
+    void authenticationFailed();
+}
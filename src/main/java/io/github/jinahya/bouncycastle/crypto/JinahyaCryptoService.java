@@ -0,0 +1,306 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A crypto service which runs operations of {@link JinahyaCrypto cryptos} asynchronously.
+ * <p>
+ * Compute-bound operations, on arrays and buffers, run on a bounded pool of platform threads, sized to the number of
+ * available processors by default, and each worker thread owns a single crypto created, on demand, by the
+ * {@link #cryptoSupplier}. That is, the number of cipher states is bounded by the {@link #getParallelism()
+ * parallelism} no matter how many threads, virtual or not, call this service.
+ * <p>
+ * Blocking operations, on files, run on a separate executor with cryptos borrowed from a queue of idle ones. On Java 21
+ * and later, the executor runs each operation on a virtual thread; otherwise, on a daemon platform thread. Since each
+ * of those operations also does cipher work, no more than the {@link #getParallelism() parallelism} of them run at
+ * once, and no more than as many idle cryptos are kept; others wait, on their own blocking threads, for a permit.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaPooledCipherCrypto
+ */
+public class JinahyaCryptoService
+        implements AutoCloseable {
+
+    /**
+     * A function which may throw an {@link IOException}.
+     *
+     * @param <R> result type parameter
+     */
+    @FunctionalInterface
+    public interface IoFunction<R> {
+
+        /**
+         * Applies this function to specified crypto.
+         *
+         * @param crypto the crypto.
+         * @return the result.
+         * @throws IOException if an I/O error occurs.
+         */
+        R apply(JinahyaCrypto crypto) throws IOException;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private static final class Worker
+            extends Thread {
+
+        private Worker(final Runnable target, final String name) {
+            super(target, name);
+            setDaemon(true);
+        }
+
+        // the crypto owned by this worker; confined to this worker
+        private JinahyaCrypto crypto;
+    }
+
+    private static final AtomicInteger SERVICES = new AtomicInteger();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified crypto supplier, and the number of available processors.
+     *
+     * @param cryptoSupplier a supplier for new cryptos.
+     */
+    public JinahyaCryptoService(final Supplier<? extends JinahyaCrypto> cryptoSupplier) {
+        this(cryptoSupplier, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param cryptoSupplier a supplier for new cryptos.
+     * @param parallelism    the number of platform threads for compute-bound operations, and the number of blocking
+     *                       operations running at once; must be positive.
+     */
+    public JinahyaCryptoService(final Supplier<? extends JinahyaCrypto> cryptoSupplier, final int parallelism) {
+        super();
+        this.cryptoSupplier = Objects.requireNonNull(cryptoSupplier, "cryptoSupplier is null");
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism(" + parallelism + ") is not positive");
+        }
+        final var name = "jinahya-crypto-" + SERVICES.getAndIncrement();
+        final var counter = new AtomicInteger();
+        workers = new ThreadPoolExecutor(
+                parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> new Worker(r, name + "-worker-" + counter.getAndIncrement())
+        );
+        blocking = JinahyaCryptoThreads.newBlockingExecutor(name + "-blocking");
+        permits = new Semaphore(parallelism);
+        idle = new ArrayBlockingQueue<>(parallelism);
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "parallelism=" + getParallelism() +
+               '}';
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Shuts down executors of this service; operations already submitted are still completed.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        blocking.shutdown();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Applies, on a worker thread, specified function to the crypto of the worker.
+     *
+     * @param function the function to apply.
+     * @param <R>      result type parameter
+     * @return a future of the result of the {@code function}.
+     */
+    public <R> CompletableFuture<R> submit(final Function<? super JinahyaCrypto, ? extends R> function) {
+        Objects.requireNonNull(function, "function is null");
+        return CompletableFuture.supplyAsync(() -> function.apply(crypto()), workers);
+    }
+
+    /**
+     * Applies, on a blocking thread, specified function to a crypto borrowed for the operation. The blocking thread
+     * waits, before borrowing a crypto, until less than the {@link #getParallelism() parallelism} of operations are
+     * running.
+     *
+     * @param function the function to apply.
+     * @param <R>      result type parameter
+     * @return a future of the result of the {@code function}; completed exceptionally with an {@link IOException}
+     * thrown by the {@code function}.
+     */
+    public <R> CompletableFuture<R> submitIo(final IoFunction<? extends R> function) {
+        Objects.requireNonNull(function, "function is null");
+        final var future = new CompletableFuture<R>();
+        blocking.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(ie);
+                return;
+            }
+            JinahyaCrypto crypto = null;
+            try {
+                crypto = idle.poll();
+                if (crypto == null) {
+                    crypto = newCrypto();
+                }
+                future.complete(function.apply(crypto));
+            } catch (final Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                if (crypto != null) {
+                    idle.offer(crypto); // dropped when already full
+                }
+                permits.release();
+            }
+        });
+        return future;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts specified input asynchronously.
+     *
+     * @param in the input to encrypt.
+     * @return a future of an array of encrypted bytes.
+     * @see JinahyaCrypto#encrypt(byte[])
+     */
+    public CompletableFuture<byte[]> encrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        return submit(c -> c.encrypt(in));
+    }
+
+    /**
+     * Encrypts remaining bytes of specified input buffer, asynchronously, into specified output buffer. Neither buffer
+     * should be accessed until the result completes.
+     *
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return a future of the number of bytes put on the {@code output}.
+     * @see JinahyaCrypto#encrypt(ByteBuffer, ByteBuffer)
+     */
+    public CompletableFuture<Integer> encrypt(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        return submit(c -> c.encrypt(input, output));
+    }
+
+    /**
+     * Decrypts specified input asynchronously.
+     *
+     * @param in the input to decrypt.
+     * @return a future of an array of decrypted bytes.
+     * @see JinahyaCrypto#decrypt(byte[])
+     */
+    public CompletableFuture<byte[]> decrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        return submit(c -> c.decrypt(in));
+    }
+
+    /**
+     * Decrypts remaining bytes of specified input buffer, asynchronously, into specified output buffer. Neither buffer
+     * should be accessed until the result completes.
+     *
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return a future of the number of bytes put on the {@code output}.
+     * @see JinahyaCrypto#decrypt(ByteBuffer, ByteBuffer)
+     */
+    public CompletableFuture<Integer> decrypt(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        return submit(c -> c.decrypt(input, output));
+    }
+
+    /**
+     * Encrypts specified source file into specified target file asynchronously.
+     *
+     * @param source the source file.
+     * @param target the target file.
+     * @return a future of the number of bytes written to the {@code target}.
+     * @see JinahyaCrypto#encrypt(Path, Path)
+     */
+    public CompletableFuture<Long> encrypt(final Path source, final Path target) {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        return submitIo(c -> c.encrypt(source, target));
+    }
+
+    /**
+     * Decrypts specified source file into specified target file asynchronously.
+     *
+     * @param source the source file.
+     * @param target the target file.
+     * @return a future of the number of bytes written to the {@code target}.
+     * @see JinahyaCrypto#decrypt(Path, Path)
+     */
+    public CompletableFuture<Long> decrypt(final Path source, final Path target) {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        return submitIo(c -> c.decrypt(source, target));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the crypto owned by current worker thread, creating one if absent.
+     *
+     * @return the crypto of current worker thread.
+     */
+    private JinahyaCrypto crypto() {
+        final var worker = (Worker) Thread.currentThread();
+        if (worker.crypto == null) {
+            worker.crypto = newCrypto();
+        }
+        return worker.crypto;
+    }
+
+    private JinahyaCrypto newCrypto() {
+        return Objects.requireNonNull(cryptoSupplier.get(), "null crypto supplied from " + cryptoSupplier);
+    }
+
+    /**
+     * Returns the number of platform threads for compute-bound operations, which is also the number of blocking
+     * operations running at once.
+     *
+     * @return the number of platform threads for compute-bound operations.
+     */
+    public int getParallelism() {
+        return workers.getMaximumPoolSize();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * a supplier for new cryptos.
+     */
+    protected final Supplier<? extends JinahyaCrypto> cryptoSupplier;
+
+    private final ThreadPoolExecutor workers;
+
+    private final ExecutorService blocking;
+
+    // the number of blocking operations allowed to run at once
+    private final Semaphore permits;
+
+    private final BlockingQueue<JinahyaCrypto> idle;
+}
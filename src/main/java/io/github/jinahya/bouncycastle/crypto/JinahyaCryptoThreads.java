@@ -0,0 +1,71 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utilities for threads which run blocking, I/O-bound, tasks.
+ * <p>
+ * This class is replaced, on Java 21 and later, with a version which runs each task on a virtual thread.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+final class JinahyaCryptoThreads {
+
+    // Thread#isVirtual(), if available; this class is also loaded on Java 21 from a plain directory, e.g. for tests
+    private static final MethodHandle IS_VIRTUAL;
+
+    static {
+        MethodHandle isVirtual;
+        try {
+            isVirtual = MethodHandles.publicLookup().findVirtual(
+                    Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (final NoSuchMethodException | IllegalAccessException e) {
+            isVirtual = null;
+        }
+        IS_VIRTUAL = isVirtual;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new executor for blocking tasks; each task runs on a daemon platform thread.
+     *
+     * @param name the prefix of the names of threads.
+     * @return a new executor.
+     */
+    static ExecutorService newBlockingExecutor(final String name) {
+        final var counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            final var thread = new Thread(r, name + '-' + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks whether specified thread is a virtual thread.
+     *
+     * @param thread the thread to check.
+     * @return {@code true} if the {@code thread} is a virtual thread; {@code false} otherwise.
+     */
+    static boolean isVirtual(final Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (final Throwable t) {
+            throw new IllegalStateException("failed to check " + thread, t);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaCryptoThreads() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metrics which records counters and timers with {@link LongAdder}s; safe to be shared among threads.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public class JinahyaLongAdderCryptoMetrics
+        implements JinahyaCryptoMetrics {
+
+    /**
+     * Creates a new instance.
+     */
+    public JinahyaLongAdderCryptoMetrics() {
+        super();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "encryptions=" + getEncryptionCount() +
+               ",decryptions=" + getDecryptionCount() +
+               ",inputBytes=" + getInputBytes() +
+               ",outputBytes=" + getOutputBytes() +
+               ",initializations=" + getInitializationCount() +
+               ",initializationNanos=" + getInitializationNanos() +
+               ",processingNanos=" + getProcessingNanos() +
+               ",reallocations=" + getReallocationCount() +
+               ",authenticationFailures=" + getAuthenticationFailureCount() +
+               '}';
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void initialized(final boolean encryption, final long start) {
+        initializations.increment();
+        initializationNanos.add(System.nanoTime() - start);
+    }
+
+    @Override
+    public void processed(final boolean encryption, final long start) {
+        (encryption ? encryptions : decryptions).increment();
+        processingNanos.add(System.nanoTime() - start);
+    }
+
+    @Override
+    public void input(final long bytes) {
+        inputBytes.add(bytes);
+    }
+
+    @Override
+    public void output(final long bytes) {
+        outputBytes.add(bytes);
+    }
+
+    @Override
+    public void reallocated(final int from, final int to) {
+        reallocations.increment();
+    }
+
+    @Override
+    public void authenticationFailed() {
+        authenticationFailures.increment();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of completed encryptions.
+     *
+     * @return the number of completed encryptions.
+     */
+    public long getEncryptionCount() {
+        return encryptions.sum();
+    }
+
+    /**
+     * Returns the number of completed decryptions.
+     *
+     * @return the number of completed decryptions.
+     */
+    public long getDecryptionCount() {
+        return decryptions.sum();
+    }
+
+    /**
+     * Returns the total number of input bytes.
+     *
+     * @return the total number of input bytes.
+     */
+    public long getInputBytes() {
+        return inputBytes.sum();
+    }
+
+    /**
+     * Returns the total number of output bytes.
+     *
+     * @return the total number of output bytes.
+     */
+    public long getOutputBytes() {
+        return outputBytes.sum();
+    }
+
+    /**
+     * Returns the number of cipher initializations.
+     *
+     * @return the number of cipher initializations.
+     */
+    public long getInitializationCount() {
+        return initializations.sum();
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, spent for cipher initializations, including key schedules.
+     *
+     * @return the total initialization time in nanoseconds.
+     */
+    public long getInitializationNanos() {
+        return initializationNanos.sum();
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, spent for processing bytes, excluding initializations.
+     *
+     * @return the total processing time in nanoseconds.
+     */
+    public long getProcessingNanos() {
+        return processingNanos.sum();
+    }
+
+    /**
+     * Returns the number of buffer re-allocations.
+     *
+     * @return the number of buffer re-allocations.
+     */
+    public long getReallocationCount() {
+        return reallocations.sum();
+    }
+
+    /**
+     * Returns the number of authentication tags failed to verify.
+     *
+     * @return the number of authentication failures.
+     */
+    public long getAuthenticationFailureCount() {
+        return authenticationFailures.sum();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final LongAdder encryptions = new LongAdder();
+
+    private final LongAdder decryptions = new LongAdder();
+
+    private final LongAdder inputBytes = new LongAdder();
+
+    private final LongAdder outputBytes = new LongAdder();
+
+    private final LongAdder initializations = new LongAdder();
+
+    private final LongAdder initializationNanos = new LongAdder();
+
+    private final LongAdder processingNanos = new LongAdder();
+
+    private final LongAdder reallocations = new LongAdder();
+
+    private final LongAdder authenticationFailures = new LongAdder();
+}
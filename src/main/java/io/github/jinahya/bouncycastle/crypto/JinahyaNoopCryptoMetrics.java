@@ -0,0 +1,54 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+/**
+ * A metrics which records nothing.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCryptoMetrics#noop()
+ */
+final class JinahyaNoopCryptoMetrics
+        implements JinahyaCryptoMetrics {
+
+    static final JinahyaCryptoMetrics INSTANCE = new JinahyaNoopCryptoMetrics();
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaNoopCryptoMetrics() {
+        super();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long start() {
+        return 0L;
+    }
+
+    @Override
+    public void initialized(final boolean encryption, final long start) {
+        // empty
+    }
+
+    @Override
+    public void processed(final boolean encryption, final long start) {
+        // empty
+    }
+
+    @Override
+    public void input(final long bytes) {
+        // empty
+    }
+
+    @Override
+    public void output(final long bytes) {
+        // empty
+    }
+
+    @Override
+    public void reallocated(final int from, final int to) {
+        // empty
+    }
+
+    @Override
+    public void authenticationFailed() {
+        // empty
+    }
+}
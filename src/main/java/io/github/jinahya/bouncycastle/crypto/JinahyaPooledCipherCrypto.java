@@ -0,0 +1,413 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe crypto which hands out {@link JinahyaCipherCrypto cipher cryptos} from a bounded, lock-free pool.
+ * <p>
+ * Each pooled crypto owns its own cipher instance, created, on demand, with the {@link #cipherSupplier} and the
+ * {@link #params}. An operation borrows an idle crypto from the pool (a <em>hit</em>), or creates a new one when the
+ * pool is empty (a <em>miss</em>), and returns it to the pool afterward. A returned crypto is <em>discarded</em> when
+ * the pool is already full.
+ *
+ * @param <CIPHER> cipher type parameter
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCipherCrypto
+ */
+@SuppressWarnings({
+        "java:S119" // <CIPHER>
+})
+public class JinahyaPooledCipherCrypto<CIPHER>
+        implements JinahyaCrypto {
+
+    /**
+     * Creates a new instance for {@link BufferedBlockCipher}s.
+     *
+     * @param cipherSupplier a supplier for new cipher instances.
+     * @param params         the cipher parameters for initializing each cipher.
+     * @param maximumSize    the maximum number of idle cryptos in the pool.
+     * @return a new instance.
+     * @see JinahyaBufferedBlockCipherCrypto
+     */
+    public static JinahyaPooledCipherCrypto<BufferedBlockCipher> ofBufferedBlockCipher(
+            final Supplier<? extends BufferedBlockCipher> cipherSupplier, final CipherParameters params,
+            final int maximumSize) {
+        return new JinahyaPooledCipherCrypto<>(
+                cipherSupplier,
+                params,
+                JinahyaBufferedBlockCipherCrypto::new,
+                maximumSize
+        );
+    }
+
+    /**
+     * Creates a new instance for {@link StreamCipher}s.
+     *
+     * @param cipherSupplier a supplier for new cipher instances.
+     * @param params         the cipher parameters for initializing each cipher.
+     * @param maximumSize    the maximum number of idle cryptos in the pool.
+     * @return a new instance.
+     * @see JinahyaStreamCipherCrypto
+     */
+    public static JinahyaPooledCipherCrypto<StreamCipher> ofStreamCipher(
+            final Supplier<? extends StreamCipher> cipherSupplier, final CipherParameters params,
+            final int maximumSize) {
+        return new JinahyaPooledCipherCrypto<>(
+                cipherSupplier,
+                params,
+                JinahyaStreamCipherCrypto::new,
+                maximumSize
+        );
+    }
+
+    /**
+     * Creates a new instance for {@link AEADCipher}s.
+     *
+     * @param cipherSupplier a supplier for new cipher instances.
+     * @param params         the cipher parameters for initializing each cipher.
+     * @param maximumSize    the maximum number of idle cryptos in the pool.
+     * @return a new instance.
+     * @see JinahyaAEADCipherCrypto
+     */
+    public static JinahyaPooledCipherCrypto<AEADCipher> ofAEADCipher(
+            final Supplier<? extends AEADCipher> cipherSupplier, final CipherParameters params,
+            final int maximumSize) {
+        return new JinahyaPooledCipherCrypto<>(
+                cipherSupplier,
+                params,
+                JinahyaAEADCipherCrypto::new,
+                maximumSize
+        );
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param cipherSupplier a supplier for new cipher instances.
+     * @param params         the cipher parameters for initializing each cipher.
+     * @param cryptoFactory  a function for creating a crypto from a cipher and the {@code params}.
+     * @param maximumSize    the maximum number of idle cryptos in the pool; must be positive.
+     */
+    public JinahyaPooledCipherCrypto(
+            final Supplier<? extends CIPHER> cipherSupplier, final CipherParameters params,
+            final BiFunction<? super CIPHER, ? super CipherParameters, ? extends JinahyaCrypto> cryptoFactory,
+            final int maximumSize) {
+        super();
+        this.cipherSupplier = Objects.requireNonNull(cipherSupplier, "cipherSupplier is null");
+        this.params = Objects.requireNonNull(params, "params is null");
+        this.cryptoFactory = Objects.requireNonNull(cryptoFactory, "cryptoFactory is null");
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize(" + maximumSize + ") is not positive");
+        }
+        slots = new AtomicReferenceArray<>(maximumSize);
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "maximumSize=" + getMaximumSize() +
+               ",hits=" + getHitCount() +
+               ",misses=" + getMissCount() +
+               ",discards=" + getDiscardCount() +
+               '}';
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public int getOutputSize(final boolean encryption, final int inlen) {
+        return apply(c -> c.getOutputSize(encryption, inlen));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] encrypt(final byte[] in) {
+        return apply(c -> c.encrypt(in));
+    }
+
+    @Override
+    public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+        return apply(c -> c.encrypt(input, output));
+    }
+
+    @Override
+    public int encrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return apply(c -> c.encrypt(in, inoff, inlen, out, outoff));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] decrypt(final byte[] in) {
+        return apply(c -> c.decrypt(in));
+    }
+
+    @Override
+    public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+        return apply(c -> c.decrypt(input, output));
+    }
+
+    @Override
+    public int decrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return apply(c -> c.decrypt(in, inoff, inlen, out, outoff));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        return applyIo(c -> c.encrypt(in, out, inbuf));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        return applyIo(c -> c.decrypt(in, out, inbuf));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final Path source, final Path target) throws IOException {
+        return applyIo(c -> c.encrypt(source, target));
+    }
+
+    @Override
+    public long decrypt(final Path source, final Path target) throws IOException {
+        return applyIo(c -> c.decrypt(source, target));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final ReadableByteChannel in, final WritableByteChannel out) throws IOException {
+        return applyIo(c -> c.encrypt(in, out));
+    }
+
+    @Override
+    public long decrypt(final ReadableByteChannel in, final WritableByteChannel out) throws IOException {
+        return applyIo(c -> c.decrypt(in, out));
+    }
+
+    // ------------------------------------------------------------------------------------------------------------ pool
+    @FunctionalInterface
+    private interface IoFunction<R> {
+
+        R apply(JinahyaCrypto crypto) throws IOException;
+    }
+
+    private <R> R apply(final Function<? super JinahyaCrypto, ? extends R> function) {
+        final var crypto = borrow();
+        try {
+            return function.apply(crypto);
+        } finally {
+            release(crypto);
+        }
+    }
+
+    private <R> R applyIo(final IoFunction<? extends R> function) throws IOException {
+        final var crypto = borrow();
+        try {
+            return function.apply(crypto);
+        } finally {
+            release(crypto);
+        }
+    }
+
+    /**
+     * Returns the index from which the current thread starts probing the {@link #slots}; threads are spread across
+     * the slots so that they rarely contend for the same one.
+     *
+     * @return the starting index.
+     */
+    private int probe() {
+        final var h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Borrows an idle crypto from the pool, or creates a new one if the pool is empty.
+     *
+     * @return a crypto for exclusive use of the current thread.
+     */
+    JinahyaCrypto borrow() {
+        final var length = slots.length();
+        final var start = probe();
+        for (int i = 0; i < length; i++) {
+            final var index = (start + i) % length;
+            final var crypto = slots.get(index);
+            if (crypto != null && slots.compareAndSet(index, crypto, null)) {
+                hits.increment();
+                return crypto;
+            }
+        }
+        misses.increment();
+        final var crypto = Objects.requireNonNull(
+                cryptoFactory.apply(
+                        Objects.requireNonNull(cipherSupplier.get(), "null cipher supplied from " + cipherSupplier),
+                        params
+                ),
+                "null crypto created by " + cryptoFactory
+        );
+        if (crypto instanceof JinahyaCipherCrypto) {
+            ((JinahyaCipherCrypto<?>) crypto).setMetrics(metrics);
+            ((JinahyaCipherCrypto<?>) crypto).setBufferPool(bufferPool);
+        }
+        return crypto;
+    }
+
+    /**
+     * Returns specified crypto, previously {@link #borrow() borrowed}, back to the pool; the crypto is discarded when
+     * the pool is full.
+     *
+     * @param crypto the crypto to return.
+     */
+    void release(final JinahyaCrypto crypto) {
+        final var length = slots.length();
+        final var start = probe();
+        for (int i = 0; i < length; i++) {
+            final var index = (start + i) % length;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, crypto)) {
+                return;
+            }
+        }
+        discards.increment();
+    }
+
+    // --------------------------------------------------------------------------------------------------------- metrics
+
+    /**
+     * Returns current value of the {@code metrics} which is set to each {@link JinahyaCipherCrypto} created by this
+     * pool.
+     *
+     * @return current value of the {@code metrics}.
+     */
+    public JinahyaCryptoMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Replaces current value of the {@code metrics} with specified value. Note that cryptos already created are not
+     * affected.
+     *
+     * @param metrics new value for the {@code metrics}; should be safe to be shared among threads.
+     * @see JinahyaLongAdderCryptoMetrics
+     */
+    public void setMetrics(final JinahyaCryptoMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics is null");
+    }
+
+    // ----------------------------------------------------------------------------------------------------- buffer pool
+
+    /**
+     * Returns current value of the {@code bufferPool} which is set to each {@link JinahyaCipherCrypto} created by this
+     * pool.
+     *
+     * @return current value of the {@code bufferPool}.
+     */
+    public JinahyaBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Replaces current value of the {@code bufferPool} with specified value. Note that cryptos already created are not
+     * affected.
+     *
+     * @param bufferPool new value for the {@code bufferPool}; should be safe to be shared among threads.
+     */
+    public void setBufferPool(final JinahyaBufferPool bufferPool) {
+        this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool is null");
+    }
+
+    /**
+     * Returns the maximum number of idle cryptos in the pool.
+     *
+     * @return the maximum number of idle cryptos.
+     */
+    public int getMaximumSize() {
+        return slots.length();
+    }
+
+    /**
+     * Returns the current number of idle cryptos in the pool.
+     *
+     * @return the current number of idle cryptos.
+     */
+    public int getIdleCount() {
+        var count = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of operations served with an idle crypto from the pool.
+     *
+     * @return the number of pool hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of operations served with a newly created crypto.
+     *
+     * @return the number of pool misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of cryptos discarded because the pool was full.
+     *
+     * @return the number of discarded cryptos.
+     */
+    public long getDiscardCount() {
+        return discards.sum();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * a supplier for new cipher instances.
+     */
+    protected final Supplier<? extends CIPHER> cipherSupplier;
+
+    /**
+     * a cipher parameters for initializing each cipher.
+     */
+    protected final CipherParameters params;
+
+    private final BiFunction<? super CIPHER, ? super CipherParameters, ? extends JinahyaCrypto> cryptoFactory;
+
+    private final AtomicReferenceArray<JinahyaCrypto> slots;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder discards = new LongAdder();
+
+    private volatile JinahyaCryptoMetrics metrics = JinahyaCryptoMetrics.noop();
+
+    private volatile JinahyaBufferPool bufferPool = JinahyaBufferPool.getDefault();
+}
@@ -0,0 +1,330 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.StreamCipher;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A stream cipher which precomputes the keystream of another stream cipher, on a worker thread, ahead of demand, so
+ * that the calling thread only XORs input bytes with the keystream.
+ * <p>
+ * The keystream is generated, by processing zeros with the underlying cipher, into a ring of buffers; which is only
+ * valid for ciphers whose output is the input XORed with a keystream independent of the input. E.g. the
+ * {@link org.bouncycastle.crypto.modes.SICBlockCipher SIC (CTR)}, and the
+ * {@link org.bouncycastle.crypto.modes.OFBBlockCipher OFB}; not the
+ * {@link org.bouncycastle.crypto.modes.CFBBlockCipher CFB}.
+ * <pre>{@code
+ * try (var cipher = new JinahyaPrefetchingStreamCipher(new OFBBlockCipher(new SEEDEngine(), 128))) {
+ *     final var crypto = new JinahyaStreamCipherCrypto(cipher, params);
+ *     ...
+ * }
+ * }</pre>
+ * The keystream is generated lazily; the worker is started on the first demand after each initialization, and it
+ * stops, rather than waits, once the ring is full, to be started again when a buffer is consumed. Hence, no thread is
+ * held by an idle instance, even if it is never closed.
+ * <p>
+ * The underlying cipher is used exclusively by an instance of this class, and an instance of this class, as any other
+ * cipher, should be used by a single thread at a time. Instances should be {@link #close() closed} when no longer
+ * used so that the keystream is zeroed.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaStreamCipherCrypto
+ */
+public class JinahyaPrefetchingStreamCipher
+        implements StreamCipher, AutoCloseable {
+
+    /**
+     * The default number of bytes of each buffer of the keystream. The value is {@value}.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 16384;
+
+    /**
+     * The default number of buffers of the keystream. The value is {@value}.
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    private static final ExecutorService PREFETCHERS = JinahyaCryptoThreads.newBlockingExecutor("jinahya-keystream");
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified cipher, which uses the {@link #DEFAULT_BUFFER_SIZE}, and the
+     * {@link #DEFAULT_BUFFER_COUNT}, and runs on a shared executor.
+     *
+     * @param cipher the underlying cipher whose keystream is prefetched.
+     */
+    public JinahyaPrefetchingStreamCipher(final StreamCipher cipher) {
+        this(cipher, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT, PREFETCHERS);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param cipher      the underlying cipher whose keystream is prefetched.
+     * @param bufferSize  the number of bytes of each buffer of the keystream.
+     * @param bufferCount the number of buffers of the keystream.
+     * @param executor    the executor on which the keystream is generated; each instance occupies a thread of it
+     *                    only while filling the ring.
+     */
+    public JinahyaPrefetchingStreamCipher(final StreamCipher cipher, final int bufferSize, final int bufferCount,
+                                          final Executor executor) {
+        super();
+        this.cipher = Objects.requireNonNull(cipher, "cipher is null");
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize(" + bufferSize + ") is not positive");
+        }
+        if (bufferCount <= 0) {
+            throw new IllegalArgumentException("bufferCount(" + bufferCount + ") is not positive");
+        }
+        this.executor = Objects.requireNonNull(executor, "executor is null");
+        zeros = new byte[bufferSize];
+        ring = new byte[bufferCount][bufferSize];
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '{' +
+               "cipher=" + cipher +
+               ",bufferSize=" + zeros.length +
+               ",bufferCount=" + ring.length +
+               '}';
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Stops generating the keystream, and zeroes buffers of the keystream. This cipher should be re-initialized to be
+     * used again.
+     */
+    @Override
+    public void close() {
+        stop();
+        initialized = false;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public void init(final boolean forEncryption, final CipherParameters params) {
+        stop();
+        initialized = false;
+        cipher.init(forEncryption, params);
+        initialized = true;
+        start();
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return cipher.getAlgorithmName();
+    }
+
+    @Override
+    public byte returnByte(final byte in) {
+        final var out = new byte[1];
+        processBytes(new byte[] {in}, 0, 1, out, 0);
+        return out[0];
+    }
+
+    @Override
+    public int processBytes(final byte[] in, int inOff, final int len, final byte[] out, int outOff) {
+        if (!initialized) {
+            throw new IllegalStateException(getAlgorithmName() + " not initialised");
+        }
+        if (inOff + len > in.length) {
+            throw new DataLengthException("input buffer too short");
+        }
+        if (outOff + len > out.length) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        for (var remaining = len; remaining > 0; ) {
+            if (position == zeros.length || position < 0) {
+                acquire();
+            }
+            final var keystream = ring[(int) (consumed % ring.length)];
+            final var n = Math.min(remaining, zeros.length - position);
+            for (int i = 0; i < n; i++) {
+                out[outOff++] = (byte) (in[inOff++] ^ keystream[position++]);
+            }
+            remaining -= n;
+        }
+        return len;
+    }
+
+    @Override
+    public void reset() {
+        stop();
+        cipher.reset();
+        if (initialized) {
+            start();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Releases the current buffer, if any, starts the worker unless active, and waits for the next buffer of the
+     * keystream.
+     */
+    private void acquire() {
+        final boolean execute;
+        lock.lock();
+        try {
+            if (position >= 0) {
+                Arrays.fill(ring[(int) (consumed % ring.length)], (byte) 0);
+                consumed++;
+            }
+            execute = running && !active && failure == null;
+            if (execute) {
+                active = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (execute) {
+            execute();
+        }
+        lock.lock();
+        try {
+            while (produced == consumed) {
+                if (failure != null) {
+                    throw new IllegalStateException("failed to generate keystream", failure);
+                }
+                notEmpty.awaitUninterruptibly();
+            }
+            position = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // submits the worker, which has been marked as active
+    private void execute() {
+        try {
+            executor.execute(this::produce);
+        } catch (final RuntimeException re) {
+            lock.lock();
+            try {
+                active = false;
+                stopped.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw re;
+        }
+    }
+
+    /**
+     * Generates the keystream into free buffers of the ring until the ring is full, or stopped.
+     */
+    private void produce() {
+        try {
+            while (true) {
+                final byte[] buffer;
+                lock.lock();
+                try {
+                    if (!running || produced - consumed == ring.length) {
+                        // marked as inactive in the same hold, so that the consumer never misses to start it again
+                        active = false;
+                        stopped.signalAll();
+                        return;
+                    }
+                    buffer = ring[(int) (produced % ring.length)];
+                } finally {
+                    lock.unlock();
+                }
+                cipher.processBytes(zeros, 0, zeros.length, buffer, 0);
+                lock.lock();
+                try {
+                    produced++;
+                    notEmpty.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (final Throwable t) {
+            lock.lock();
+            try {
+                failure = t;
+                active = false;
+                notEmpty.signalAll();
+                stopped.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // resets the ring; the worker is started on the first demand
+    private void start() {
+        lock.lock();
+        try {
+            produced = 0L;
+            consumed = 0L;
+            position = -1;
+            failure = null;
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // stops, and waits for, the worker, and zeroes the ring
+    private void stop() {
+        lock.lock();
+        try {
+            running = false;
+            while (active) {
+                stopped.awaitUninterruptibly();
+            }
+            for (final var buffer : ring) {
+                Arrays.fill(buffer, (byte) 0);
+            }
+            position = -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final StreamCipher cipher;
+
+    private final Executor executor;
+
+    // the input with which the keystream is generated
+    private final byte[] zeros;
+
+    private final byte[][] ring;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition stopped = lock.newCondition();
+
+    // guarded by the lock
+    private long produced;
+
+    // guarded by the lock; read, without the lock, only by the consuming thread
+    private long consumed;
+
+    // guarded by the lock
+    private boolean running;
+
+    // guarded by the lock; true while the worker is submitted, or running
+    private boolean active;
+
+    // guarded by the lock
+    private Throwable failure;
+
+    // the position in the current buffer; -1 for no buffer; accessed only by the consuming thread
+    private int position = -1;
+
+    private volatile boolean initialized;
+}
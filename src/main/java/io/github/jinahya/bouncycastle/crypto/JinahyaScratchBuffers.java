@@ -0,0 +1,48 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+/**
+ * Scratch windows for moving bytes between non-array byte buffers and ciphers.
+ * <p>
+ * A window is {@link #acquire(int) acquired} before use, and should be {@link #release(byte[]) released}, in a
+ * {@code finally} block, right after use. Windows are drawn from, and returned to, the
+ * {@link JinahyaBufferPool#getDefault() default buffer pool}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaBufferPool
+ */
+public final class JinahyaScratchBuffers {
+
+    /**
+     * The default length of a scratch window, in bytes.
+     */
+    public static final int WINDOW_SIZE = 8192;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Acquires a window whose length is at least {@code max(length, }{@value #WINDOW_SIZE}{@code )}.
+     *
+     * @param length the minimum length of the window.
+     * @return a window whose length is not less than {@code length}.
+     */
+    public static byte[] acquire(final int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length(" + length + ") is negative");
+        }
+        return JinahyaBufferPool.getDefault().acquireArray(Math.max(length, WINDOW_SIZE));
+    }
+
+    /**
+     * Releases specified window, previously acquired, after filling it with zeros.
+     *
+     * @param window the window to release.
+     */
+    public static void release(final byte[] window) {
+        JinahyaBufferPool.getDefault().releaseArray(window);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaScratchBuffers() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
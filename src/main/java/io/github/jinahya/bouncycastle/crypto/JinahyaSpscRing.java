@@ -0,0 +1,164 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A bounded, lock-free, ring buffer for a single producer thread and a single consumer thread.
+ * <p>
+ * Blocking operations spin for a while, and then park the calling thread until woken by the other side; parking is
+ * bounded by {@link #PARK_NANOS} so that cancellations are noticed promptly.
+ *
+ * @param <E> element type parameter
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCipherPipeline
+ */
+final class JinahyaSpscRing<E> {
+
+    /**
+     * The number of spins before parking. The value is {@value}.
+     */
+    static final int SPINS = 128;
+
+    /**
+     * The maximum number of nanoseconds of each parking. The value is {@value}.
+     */
+    static final long PARK_NANOS = 100_000L;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified capacity.
+     *
+     * @param capacity the capacity; rounded up to a power of two.
+     */
+    JinahyaSpscRing(final int capacity) {
+        super();
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("invalid capacity(" + capacity + ")");
+        }
+        final var size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        elements = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Adds specified element, if not full; invoked only by the producer.
+     *
+     * @param element the element to add.
+     * @return {@code true} if added; {@code false} if full.
+     */
+    boolean offer(final E element) {
+        final var t = tail.get();
+        if (t - head.get() == elements.length()) {
+            return false;
+        }
+        elements.lazySet((int) t & mask, element);
+        tail.set(t + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element, if not empty; invoked only by the consumer.
+     *
+     * @return the oldest element; {@code null} if empty.
+     */
+    E poll() {
+        final var h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        final var index = (int) h & mask;
+        final var element = elements.get(index);
+        elements.lazySet(index, null);
+        head.set(h + 1);
+        return element;
+    }
+
+    /**
+     * Adds specified element, waiting while full.
+     *
+     * @param element   the element to add.
+     * @param cancelled a supplier of the cancellation flag.
+     * @return {@code true} if added; {@code false} if cancelled while waiting.
+     */
+    boolean put(final E element, final BooleanSupplier cancelled) {
+        for (int spins = 0; ; spins++) {
+            final var parking = spins >= SPINS;
+            if (parking) {
+                producer = Thread.currentThread();
+            }
+            if (offer(element)) {
+                producer = null;
+                unpark(consumer);
+                return true;
+            }
+            if (cancelled.getAsBoolean()) {
+                producer = null;
+                return false;
+            }
+            if (parking) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element, waiting while empty.
+     *
+     * @param cancelled a supplier of the cancellation flag.
+     * @return the oldest element; {@code null} if cancelled while waiting.
+     */
+    E take(final BooleanSupplier cancelled) {
+        for (int spins = 0; ; spins++) {
+            final var parking = spins >= SPINS;
+            if (parking) {
+                consumer = Thread.currentThread();
+            }
+            final var element = poll();
+            if (element != null) {
+                consumer = null;
+                unpark(producer);
+                return element;
+            }
+            if (cancelled.getAsBoolean()) {
+                consumer = null;
+                return null;
+            }
+            if (parking) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static void unpark(final Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final AtomicReferenceArray<E> elements;
+
+    private final int mask;
+
+    // the index of the next element to poll
+    private final AtomicLong head = new AtomicLong();
+
+    // the index of the next element to offer
+    private final AtomicLong tail = new AtomicLong();
+
+    // the producer parked while full
+    private volatile Thread producer;
+
+    // the consumer parked while empty
+    private volatile Thread consumer;
+}
@@ -2,6 +2,9 @@ package io.github.jinahya.bouncycastle.crypto;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.CTRModeCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -22,27 +25,99 @@ public class JinahyaStreamCipherCrypto
         cipher.init(encryption, params);
     }
 
+    @Override
+    protected void initFor(final boolean encryption, final CipherParameters params) {
+        cipher.init(encryption, params);
+    }
+
+    @Override
+    protected CipherParameters newMessageParameters(final KeyParameter key, final byte[] iv, final byte[] aad) {
+        return new ParametersWithIV(key, iv);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the block size of the {@link #cipher} when it is a {@link CTRModeCipher}; {@code 0} otherwise.
+     * @throws UnsupportedOperationException if the {@link #cipher} is in CFB mode, whose IVs must be unpredictable.
+     */
+    @Override
+    protected int getBatchCounterBlockSize() {
+        if (cipher instanceof CTRModeCipher) {
+            return ((CTRModeCipher) cipher).getBlockSize();
+        }
+        if (isFeedbackMode(cipher)) {
+            throw new UnsupportedOperationException("batches are not supported by " + cipher.getAlgorithmName());
+        }
+        return 0;
+    }
+
+    @Override
+    protected int getUpdateOutputSize(final int inlen) {
+        return JinahyaStreamCipherUtils.getOutputSize(cipher, inlen);
+    }
+
+    @Override
+    protected int getFinalOutputSize() {
+        return 0;
+    }
+
+    @Override
+    protected int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    @Override
+    protected int doFinal(final byte[] out, final int outoff) {
+        return 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public int getOutputSize(final boolean encryption, final int inlen) {
+        return JinahyaStreamCipherUtils.getOutputSize(cipher, inlen);
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public byte[] encrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForEncryption();
-        return JinahyaStreamCipherUtils.processBytes(
+        final var start = metrics.start();
+        final var out = JinahyaStreamCipherUtils.processBytes(
                 cipher,
                 in,
                 0,
                 in.length
         );
+        processed(true, start, in.length, out.length);
+        return out;
     }
 
     @Override
     public int encrypt(final ByteBuffer input, final ByteBuffer output) {
         initForEncryption();
-        return JinahyaStreamCipherUtils.processBytes(
+        final var start = metrics.start();
+        final var inlen = input.remaining();
+        return processed(true, start, inlen, JinahyaStreamCipherUtils.processBytes(
                 cipher,
                 input,
                 output
-        );
+        ));
+    }
+
+    @Override
+    public int encrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        initForEncryption();
+        final var start = metrics.start();
+        return processed(true, start, inlen, JinahyaStreamCipherUtils.processBytes(
+                cipher,
+                in,
+                inoff,
+                inlen,
+                out,
+                outoff
+        ));
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -50,47 +125,152 @@ public class JinahyaStreamCipherCrypto
     public byte[] decrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForDecryption();
-        return JinahyaStreamCipherUtils.processBytes(
+        final var start = metrics.start();
+        final var out = JinahyaStreamCipherUtils.processBytes(
                 cipher,
                 in,
                 0,
                 in.length
         );
+        processed(false, start, in.length, out.length);
+        return out;
     }
 
     @Override
     public int decrypt(final ByteBuffer input, final ByteBuffer output) {
         initForDecryption();
-        return JinahyaStreamCipherUtils.processBytes(
+        final var start = metrics.start();
+        final var inlen = input.remaining();
+        return processed(false, start, inlen, JinahyaStreamCipherUtils.processBytes(
                 cipher,
                 input,
                 output
-        );
+        ));
+    }
+
+    @Override
+    public int decrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        initForDecryption();
+        final var start = metrics.start();
+        return processed(false, start, inlen, JinahyaStreamCipherUtils.processBytes(
+                cipher,
+                in,
+                inoff,
+                inlen,
+                out,
+                outoff
+        ));
     }
 
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForEncryption();
-        return JinahyaStreamCipherUtils.processAllBytes(
+        final var start = metrics.start();
+        final var bytes = JinahyaStreamCipherUtils.processAllBytes(
                 cipher,
                 in,
                 out,
                 inbuf,
-                null
+                null,
+                metrics
         );
+        metrics.processed(true, start);
+        return bytes;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForDecryption();
-        return JinahyaStreamCipherUtils.processAllBytes(
+        final var start = metrics.start();
+        final var bytes = JinahyaStreamCipherUtils.processAllBytes(
                 cipher,
                 in,
                 out,
                 inbuf,
-                null
+                null,
+                metrics
         );
+        metrics.processed(false, start);
+        return bytes;
+    }
+
+    // --------------------------------------------------------------------------------------------------------- message
+
+    /**
+     * Encrypts specified input with specified IV, reusing the key schedule of the {@link #cipher} when it has
+     * already been initialized with the key for encryption.
+     *
+     * @param iv the IV for the message.
+     * @param in the input to encrypt.
+     * @return an array of encrypted bytes.
+     * @see #initForMessage(boolean, byte[], byte[])
+     */
+    public byte[] encrypt(final byte[] iv, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        initForMessage(true, iv, null);
+        final var start = metrics.start();
+        final var out = JinahyaStreamCipherUtils.processBytes(cipher, in, 0, in.length);
+        processed(true, start, in.length, out.length);
+        return out;
+    }
+
+    /**
+     * Encrypts bytes in specified range of specified input array with specified IV, reusing the key schedule of the
+     * {@link #cipher} when it has already been initialized with the key for encryption.
+     *
+     * @param iv     the IV for the message.
+     * @param in     the input array.
+     * @param inoff  a starting index of the {@code in}.
+     * @param inlen  the number of bytes to encrypt.
+     * @param out    the output array.
+     * @param outoff a starting index of the {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     */
+    public int encrypt(final byte[] iv, final byte[] in, final int inoff, final int inlen, final byte[] out,
+                       final int outoff) {
+        initForMessage(true, iv, null);
+        final var start = metrics.start();
+        return processed(true, start, inlen, JinahyaStreamCipherUtils.processBytes(
+                cipher, in, inoff, inlen, out, outoff));
+    }
+
+    /**
+     * Decrypts specified input with specified IV, reusing the key schedule of the {@link #cipher} when it has
+     * already been initialized with the key for decryption.
+     *
+     * @param iv the IV for the message.
+     * @param in the input to decrypt.
+     * @return an array of decrypted bytes.
+     * @see #initForMessage(boolean, byte[], byte[])
+     */
+    public byte[] decrypt(final byte[] iv, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        initForMessage(false, iv, null);
+        final var start = metrics.start();
+        final var out = JinahyaStreamCipherUtils.processBytes(cipher, in, 0, in.length);
+        processed(false, start, in.length, out.length);
+        return out;
+    }
+
+    /**
+     * Decrypts bytes in specified range of specified input array with specified IV, reusing the key schedule of the
+     * {@link #cipher} when it has already been initialized with the key for decryption.
+     *
+     * @param iv     the IV for the message.
+     * @param in     the input array.
+     * @param inoff  a starting index of the {@code in}.
+     * @param inlen  the number of bytes to decrypt.
+     * @param out    the output array.
+     * @param outoff a starting index of the {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     */
+    public int decrypt(final byte[] iv, final byte[] in, final int inoff, final int inlen, final byte[] out,
+                       final int outoff) {
+        initForMessage(false, iv, null);
+        final var start = metrics.start();
+        return processed(false, start, inlen, JinahyaStreamCipherUtils.processBytes(
+                cipher, in, inoff, inlen, out, outoff));
     }
 }
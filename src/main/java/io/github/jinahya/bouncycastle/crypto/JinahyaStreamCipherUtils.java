@@ -1,13 +1,13 @@
 package io.github.jinahya.bouncycastle.crypto;
 
-import org.bouncycastle.crypto.DataLengthException;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherProcessEvent;
 import org.bouncycastle.crypto.StreamCipher;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -21,36 +21,48 @@ import java.util.Objects;
 public final class JinahyaStreamCipherUtils {
 
     // -----------------------------------------------------------------------------------------------------------------
-//    private static int processBytes_(final StreamCipher cipher, final byte[] in, final int inoff, final int inlen,
-//                                     final byte[] out, final int outoff) {
-//        return cipher.processBytes(in, inoff, inlen, out, outoff);
-//    }
-//
-//    public static int processBytes(final StreamCipher cipher, final byte[] in, final int inoff, final int inlen,
-//                                   final byte[] out, final int outoff) {
-//        Objects.requireNonNull(cipher, "cipher is null");
-//        Objects.requireNonNull(in, "in is null");
-//        if (inoff < 0) {
-//            throw new IllegalArgumentException("inoff(" + inoff + ") is negative");
-//        }
-//        if (inlen < 0) {
-//            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
-//        }
-//        if (inoff + inlen > in.length) {
-//            throw new IllegalArgumentException(
-//                    "inoff(" + inoff + ") + inlen(" + inlen + ") > in.length(" + in.length + ")");
-//        }
-//        Objects.requireNonNull(out, "out is null");
-//        if (outoff < 0) {
-//            throw new IllegalArgumentException("outoff(" + inoff + ") is negative");
-//        }
-//        if (outoff > out.length) {
-//            throw new IllegalArgumentException("outoff(" + outoff + ") > out.length(" + out.length + ")");
-//        }
-//        return processBytes_(cipher, in, inoff, inlen, out, outoff);
-//    }
 
-    public static byte[] processBytes(final StreamCipher cipher, final byte[] in, final int inoff, final int inlen) {
+    /**
+     * Returns the number of output bytes that specified cipher produces for specified number of input bytes.
+     * <p>
+     * Every {@link StreamCipher} is length-preserving; including the {@link org.bouncycastle.crypto.StreamBlockCipher}s
+     * such as {@link org.bouncycastle.crypto.modes.SICBlockCipher CTR}, {@link org.bouncycastle.crypto.modes.OFBBlockCipher
+     * OFB}, and {@link org.bouncycastle.crypto.modes.CFBBlockCipher CFB}. Hence, this method returns the
+     * {@code inlen} as is, and is the single place for output sizes of stream ciphers.
+     *
+     * @param cipher the cipher.
+     * @param inlen  the number of input bytes.
+     * @return the number of output bytes for the {@code inlen}.
+     */
+    public static int getOutputSize(final StreamCipher cipher, final int inlen) {
+        Objects.requireNonNull(cipher, "cipher is null");
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        return inlen;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private static int processBytes_(final StreamCipher cipher, final byte[] in, final int inoff, final int inlen,
+                                     final byte[] out, final int outoff) {
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    /**
+     * Processes, using specified cipher, bytes in specified range of specified input array, and set processed bytes
+     * to specified output array starting at specified index.
+     *
+     * @param cipher the cipher.
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of bytes to process in {@code in}.
+     * @param out    the output array.
+     * @param outoff the starting index of {@code out} on which processed bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     * @see #getOutputSize(StreamCipher, int)
+     */
+    public static int processBytes(final StreamCipher cipher, final byte[] in, final int inoff, final int inlen,
+                                   final byte[] out, final int outoff) {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(in, "in is null");
         if (inoff < 0) {
@@ -63,45 +75,132 @@ public final class JinahyaStreamCipherUtils {
             throw new IllegalArgumentException(
                     "inoff(" + inoff + ") + inlen(" + inlen + ") > in.length(" + in.length + ")");
         }
-        for (var out = new byte[in.length == 0 ? 1 : in.length]; ; ) {
-            try {
-                final var outlen = cipher.processBytes(in, inoff, inlen, out, 0);
-                return Arrays.copyOf(out, outlen);
-            } catch (final DataLengthException dle) {
-                System.err.println("doubling up out.length(" + out.length + ")");
-                out = new byte[out.length << 1];
-            }
+        Objects.requireNonNull(out, "out is null");
+        if (outoff < 0) {
+            throw new IllegalArgumentException("outoff(" + outoff + ") is negative");
+        }
+        final var os = getOutputSize(cipher, inlen);
+        if (outoff + os > out.length) {
+            throw new IllegalArgumentException(
+                    "outoff(" + outoff + ") + output size(" + os + ") > out.length(" + out.length + ")");
         }
+        final var event = new JinahyaCipherProcessEvent();
+        event.begin();
+        final var outlen = processBytes_(cipher, in, inoff, inlen, out, outoff);
+        event.complete(cipher, inlen, outlen);
+        return outlen;
     }
 
+    /**
+     * Processes, using specified cipher, bytes in specified range of specified input array, and returns an array of
+     * processed bytes, which is allocated, exactly, for the {@link #getOutputSize(StreamCipher, int) output size}.
+     *
+     * @param cipher the cipher.
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of bytes to process in {@code in}.
+     * @return an array of processed bytes.
+     */
+    public static byte[] processBytes(final StreamCipher cipher, final byte[] in, final int inoff, final int inlen) {
+        Objects.requireNonNull(cipher, "cipher is null");
+        final var out = new byte[getOutputSize(cipher, inlen)];
+        final var outlen = processBytes(cipher, in, inoff, inlen, out, 0);
+        assert outlen == out.length;
+        return out;
+    }
+
+    /**
+     * Processes, using specified cipher, all remaining bytes of specified input buffer, and put processed bytes to
+     * specified output buffer. Neither buffer is modified when the {@code output} has not enough room for the
+     * result.
+     *
+     * @param cipher the cipher.
+     * @param input  the input buffer whose remaining bytes are processed.
+     * @param output the output buffer onto which processed bytes are put.
+     * @return the number of bytes put on the {@code output}.
+     * @throws BufferOverflowException if {@code output} has not enough remaining bytes.
+     */
     public static int processBytes(final StreamCipher cipher, final ByteBuffer input, final ByteBuffer output) {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(input, "input is null");
         Objects.requireNonNull(output, "output is null");
-        final byte[] in;
-        final int inoff;
-        final int inlen = input.remaining();
-        if (input.hasArray()) {
-            in = input.array();
-            inoff = input.arrayOffset() + input.position();
-        } else {
-            in = new byte[inlen];
-//            input.get(0, in); // Since 13
-            for (int p = input.position(), i = 0; i < in.length; p++, i++) {
-                in[i] = input.get(p);
+        final var inlen = input.remaining();
+        final var outlen = getOutputSize(cipher, inlen);
+        if (output.remaining() < outlen) {
+            throw new BufferOverflowException();
+        }
+        final var event = new JinahyaCipherProcessEvent();
+        event.begin();
+        if (input.hasArray() && output.hasArray()) {
+            processBytes_(
+                    cipher,
+                    input.array(),
+                    input.arrayOffset() + input.position(),
+                    inlen,
+                    output.array(),
+                    output.arrayOffset() + output.position()
+            );
+            input.position(input.position() + inlen);
+            output.position(output.position() + outlen);
+            event.complete(cipher, inlen, outlen);
+            return outlen;
+        }
+        final var in = JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+        final var out = JinahyaScratchBuffers.acquire(getOutputSize(cipher, JinahyaScratchBuffers.WINDOW_SIZE));
+        try {
+            while (input.hasRemaining()) {
+                final var l = Math.min(input.remaining(), JinahyaScratchBuffers.WINDOW_SIZE);
+                input.get(in, 0, l);
+                output.put(out, 0, processBytes_(cipher, in, 0, l, out, 0));
             }
-            inoff = 0;
+        } finally {
+            JinahyaScratchBuffers.release(in);
+            JinahyaScratchBuffers.release(out);
         }
-        final var out = processBytes(cipher, in, inoff, inlen);
-        output.put(out); // BufferOverflowException
-        // input's position should be modified only after the output.put(out) succeeded
-        input.position(input.position() + inlen);
-        return out.length;
+        event.complete(cipher, inlen, outlen);
+        return outlen;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes, using specified cipher, all bytes from specified input stream, and writes processed bytes to
+     * specified output stream.
+     *
+     * @param cipher the cipher.
+     * @param in     the input stream from which unprocessed bytes are read.
+     * @param out    the output stream to which processed bytes are written.
+     * @param inbuf  a buffer for reading bytes from the input stream.
+     * @param outbuf a buffer for processed bytes; may be {@code null}, or shorter than the output size of the
+     *               {@code inbuf.length}, for a buffer to be drawn, once, from the
+     *               {@link JinahyaBufferPool#getDefault() default buffer pool}.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static long processAllBytes(final StreamCipher cipher, final InputStream in, final OutputStream out,
+                                       final byte[] inbuf, final byte[] outbuf)
+            throws IOException {
+        return processAllBytes(cipher, in, out, inbuf, outbuf, JinahyaCryptoMetrics.noop());
+    }
+
+    /**
+     * Processes, using specified cipher, all bytes from specified input stream, and writes processed bytes to
+     * specified output stream, while recording numbers of bytes to specified metrics.
+     *
+     * @param cipher  the cipher.
+     * @param in      the input stream from which unprocessed bytes are read.
+     * @param out     the output stream to which processed bytes are written.
+     * @param inbuf   a buffer for reading bytes from the input stream.
+     * @param outbuf  a buffer for processed bytes; may be {@code null}, or shorter than the output size of the
+     *                {@code inbuf.length}, for a buffer to be drawn, once, from the
+     *                {@link JinahyaBufferPool#getDefault() default buffer pool}.
+     * @param metrics the metrics to record.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     * @see #processAllBytes(StreamCipher, InputStream, OutputStream, byte[], byte[])
+     */
     public static long processAllBytes(final StreamCipher cipher, final InputStream in, final OutputStream out,
-                                       final byte[] inbuf, byte[] outbuf)
+                                       final byte[] inbuf, byte[] outbuf, final JinahyaCryptoMetrics metrics)
             throws IOException {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(in, "in is null");
@@ -109,25 +208,30 @@ public final class JinahyaStreamCipherUtils {
         if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
             throw new IllegalArgumentException("inbuf.length is zero");
         }
-        if (outbuf == null || outbuf.length == 0) {
-            outbuf = new byte[inbuf.length];
+        Objects.requireNonNull(metrics, "metrics is null");
+        final var os = getOutputSize(cipher, inbuf.length);
+        final var pooled = outbuf == null || outbuf.length < os;
+        if (pooled) {
+            outbuf = JinahyaBufferPool.getDefault().acquireArray(os);
         }
-        var bytes = 0L;
-        for (int outlen, r; (r = in.read(inbuf)) != -1; ) {
-            while (true) {
-                try {
-                    outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0);
-                    out.write(outbuf, 0, outlen);
-                    bytes += outlen;
-                    break;
-                } catch (final DataLengthException dle) {
-                    System.err.println("doubling up outbuf.length(" + outbuf.length + ")");
-                    Arrays.fill(outbuf, (byte) 0);
-                    outbuf = new byte[outbuf.length << 1];
-                }
+        try {
+            final var event = new JinahyaCipherProcessEvent();
+            event.begin();
+            var bytes = 0L;
+            for (int outlen, r; (r = in.read(inbuf)) != -1; ) {
+                metrics.input(r);
+                outlen = processBytes_(cipher, inbuf, 0, r, outbuf, 0);
+                out.write(outbuf, 0, outlen);
+                bytes += outlen;
+            }
+            event.complete(cipher, bytes, bytes);
+            metrics.output(bytes);
+            return bytes;
+        } finally {
+            if (pooled) {
+                JinahyaBufferPool.getDefault().releaseArray(outbuf);
             }
         }
-        return bytes;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
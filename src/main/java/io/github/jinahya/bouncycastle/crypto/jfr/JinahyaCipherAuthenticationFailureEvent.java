@@ -0,0 +1,47 @@
+package io.github.jinahya.bouncycastle.crypto.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An event for an authentication tag failed to verify.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+@Name(JinahyaCipherAuthenticationFailureEvent.NAME)
+@Label("Cipher Authentication Failure")
+@Description("An authentication tag has been failed to verify")
+public class JinahyaCipherAuthenticationFailureEvent
+        extends JinahyaCipherEvent {
+
+    /**
+     * The name of this event type. The value is {@value}.
+     */
+    public static final String NAME = "io.github.jinahya.bouncycastle.CipherAuthenticationFailure";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Commits a new event, if it should be committed, for specified cipher.
+     *
+     * @param cipher the cipher.
+     */
+    public static void commit(final Object cipher) {
+        final var event = new JinahyaCipherAuthenticationFailureEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.setCipher(cipher);
+        event.commit();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     */
+    public JinahyaCipherAuthenticationFailureEvent() {
+        super();
+    }
+}
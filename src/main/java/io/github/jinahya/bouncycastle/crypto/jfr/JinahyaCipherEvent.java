@@ -0,0 +1,120 @@
+package io.github.jinahya.bouncycastle.crypto.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+
+/**
+ * An abstract event of a cipher.
+ * <p>
+ * Each subclass is used in the form of
+ * <pre>{@code
+ * final var event = new JinahyaCipherProcessEvent();
+ * event.begin();
+ * // ...
+ * event.complete(cipher, inlen, outlen);
+ * }</pre>
+ * which costs nearly nothing when the event is not enabled; the name of the cipher is evaluated only when the event is
+ * going to be committed.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+@Category({"Jinahya", "Bouncy Castle"})
+public abstract class JinahyaCipherEvent
+        extends Event {
+
+    /**
+     * Returns the name of specified cipher, in a form of {@code <algorithm>/<mode>}.
+     *
+     * @param cipher the cipher; one of {@link BufferedBlockCipher}, {@link AEADCipher}, {@link StreamCipher}, or
+     *               {@link BlockCipher}.
+     * @return the name of the {@code cipher}.
+     */
+    static String name(final Object cipher) {
+        if (cipher instanceof BufferedBlockCipher) {
+            return ((BufferedBlockCipher) cipher).getUnderlyingCipher().getAlgorithmName();
+        }
+        if (cipher instanceof AEADCipher) {
+            return ((AEADCipher) cipher).getAlgorithmName();
+        }
+        if (cipher instanceof StreamCipher) {
+            return ((StreamCipher) cipher).getAlgorithmName();
+        }
+        if (cipher instanceof BlockCipher) {
+            return ((BlockCipher) cipher).getAlgorithmName();
+        }
+        return cipher == null ? null : cipher.getClass().getSimpleName();
+    }
+
+    /**
+     * Returns the algorithm part of specified cipher name; e.g. {@code AES} of {@code AES/CBC}.
+     *
+     * @param name the cipher name.
+     * @return the algorithm part of the {@code name}.
+     */
+    static String algorithm(final String name) {
+        if (name == null) {
+            return null;
+        }
+        final var index = name.indexOf('/');
+        return index == -1 ? name : name.substring(0, index);
+    }
+
+    /**
+     * Returns the mode part of specified cipher name; e.g. {@code CBC} of {@code AES/CBC}, or {@code ECB} when the
+     * {@code name} has no mode part.
+     *
+     * @param name the cipher name.
+     * @return the mode part of the {@code name}.
+     */
+    static String mode(final String name) {
+        if (name == null) {
+            return null;
+        }
+        final var index = name.indexOf('/');
+        return index == -1 ? "ECB" : name.substring(index + 1);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     */
+    protected JinahyaCipherEvent() {
+        super();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Sets the {@link #algorithm} and the {@link #mode} from the name of specified cipher.
+     *
+     * @param cipher the cipher.
+     */
+    protected void setCipher(final Object cipher) {
+        final var name = name(cipher);
+        algorithm = algorithm(name);
+        mode = mode(name);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * the name of the algorithm; e.g. {@code AES}.
+     */
+    @Label("Algorithm")
+    @Description("The name of the block cipher, or the stream cipher, algorithm")
+    protected String algorithm;
+
+    /**
+     * the name of the mode; e.g. {@code CBC}.
+     */
+    @Label("Mode")
+    @Description("The name of the mode of operation")
+    protected String mode;
+}
@@ -0,0 +1,56 @@
+package io.github.jinahya.bouncycastle.crypto.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An event for finalizing a cipher; e.g. padding, or computing/verifying an authentication tag.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+@Name(JinahyaCipherFinalizeEvent.NAME)
+@Label("Cipher Finalize")
+@Description("A cipher has been finalized")
+public class JinahyaCipherFinalizeEvent
+        extends JinahyaCipherEvent {
+
+    /**
+     * The name of this event type. The value is {@value}.
+     */
+    public static final String NAME = "io.github.jinahya.bouncycastle.CipherFinalize";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     */
+    public JinahyaCipherFinalizeEvent() {
+        super();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Ends and commits this event, if it should be committed, with specified values.
+     *
+     * @param cipher      the cipher.
+     * @param outputBytes the number of bytes produced.
+     */
+    public void complete(final Object cipher, final long outputBytes) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        setCipher(cipher);
+        this.outputBytes = outputBytes;
+        commit();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Label("Output Bytes")
+    @Description("The number of bytes produced")
+    @DataAmount
+    private long outputBytes;
+}
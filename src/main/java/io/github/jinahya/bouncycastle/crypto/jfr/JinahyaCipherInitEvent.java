@@ -0,0 +1,54 @@
+package io.github.jinahya.bouncycastle.crypto.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An event for initializing a cipher, including its key schedule.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+@Name(JinahyaCipherInitEvent.NAME)
+@Label("Cipher Init")
+@Description("A cipher has been initialized")
+public class JinahyaCipherInitEvent
+        extends JinahyaCipherEvent {
+
+    /**
+     * The name of this event type. The value is {@value}.
+     */
+    public static final String NAME = "io.github.jinahya.bouncycastle.CipherInit";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     */
+    public JinahyaCipherInitEvent() {
+        super();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Ends and commits this event, if it should be committed, with specified values.
+     *
+     * @param cipher     the cipher.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     */
+    public void complete(final Object cipher, final boolean encryption) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        setCipher(cipher);
+        this.encryption = encryption;
+        commit();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Label("For Encryption")
+    @Description("Whether the cipher has been initialized for encryption")
+    private boolean encryption;
+}
@@ -0,0 +1,63 @@
+package io.github.jinahya.bouncycastle.crypto.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An event for processing bytes, excluding the final block, with a cipher.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+@Name(JinahyaCipherProcessEvent.NAME)
+@Label("Cipher Process")
+@Description("Bytes have been processed with a cipher")
+public class JinahyaCipherProcessEvent
+        extends JinahyaCipherEvent {
+
+    /**
+     * The name of this event type. The value is {@value}.
+     */
+    public static final String NAME = "io.github.jinahya.bouncycastle.CipherProcess";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     */
+    public JinahyaCipherProcessEvent() {
+        super();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Ends and commits this event, if it should be committed, with specified values.
+     *
+     * @param cipher      the cipher.
+     * @param inputBytes  the number of bytes processed.
+     * @param outputBytes the number of bytes produced.
+     */
+    public void complete(final Object cipher, final long inputBytes, final long outputBytes) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        setCipher(cipher);
+        this.inputBytes = inputBytes;
+        this.outputBytes = outputBytes;
+        commit();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Label("Input Bytes")
+    @Description("The number of bytes processed")
+    @DataAmount
+    private long inputBytes;
+
+    @Label("Output Bytes")
+    @Description("The number of bytes produced")
+    @DataAmount
+    private long outputBytes;
+}
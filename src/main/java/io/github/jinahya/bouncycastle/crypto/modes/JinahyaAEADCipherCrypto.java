@@ -2,9 +2,13 @@ package io.github.jinahya.bouncycastle.crypto.modes;
 
 import io.github.jinahya.bouncycastle.crypto.JinahyaCipherCrypto;
 import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherAuthenticationFailureEvent;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
 import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -22,6 +26,9 @@ import java.util.Objects;
 public class JinahyaAEADCipherCrypto
         extends JinahyaCipherCrypto<AEADCipher> {
 
+    // the maximum MAC size, in bytes, assumed for a non-block AEAD cipher; e.g. ChaCha20-Poly1305
+    private static final int DEFAULT_MAXIMUM_MAC_SIZE = 16;
+
     public JinahyaAEADCipherCrypto(final AEADCipher cipher, final CipherParameters params) {
         super(cipher, params);
     }
@@ -32,11 +39,100 @@ public class JinahyaAEADCipherCrypto
         cipher.init(encryption, params);
     }
 
+    @Override
+    protected void initFor(final boolean encryption, final CipherParameters params) {
+        cipher.init(encryption, params);
+    }
+
+    @Override
+    protected CipherParameters newMessageParameters(final KeyParameter key, final byte[] iv, final byte[] aad) {
+        final var macSize = params instanceof AEADParameters
+                            ? ((AEADParameters) params).getMacSize()
+                            : DEFAULT_MAXIMUM_MAC_SIZE << 3;
+        return new AEADParameters(key, macSize, iv, aad);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code 0}, since the counter blocks of an AEAD cipher, if any, are derived from, not equal to, its nonce.
+     */
+    @Override
+    protected int getBatchCounterBlockSize() {
+        return 0;
+    }
+
+    @Override
+    protected int getUpdateOutputSize(final int inlen) {
+        return cipher.getUpdateOutputSize(inlen);
+    }
+
+    @Override
+    protected int getFinalOutputSize() {
+        return cipher.getOutputSize(0);
+    }
+
+    @Override
+    protected int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    @Override
+    protected void processAADBytes(final byte[] in, final int inoff, final int inlen) {
+        cipher.processAADBytes(in, inoff, inlen);
+    }
+
+    @Override
+    protected void processAADBytes(final ByteBuffer aad) {
+        JinahyaAEADCipherUtils.processAADBytes(cipher, aad);
+    }
+
+    @Override
+    protected int doFinal(final byte[] out, final int outoff) throws InvalidCipherTextException {
+        try {
+            return cipher.doFinal(out, outoff);
+        } catch (final InvalidCipherTextException icte) {
+            metrics.authenticationFailed();
+            JinahyaCipherAuthenticationFailureEvent.commit(cipher);
+            throw icte;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote This method never initializes the {@link #cipher}, since re-initializing a cipher such as the
+     * {@link org.bouncycastle.crypto.modes.GCMBlockCipher} with the same key and nonce fails for a following
+     * encryption. The size of the MAC is taken from the {@link #params} when it is an {@link AEADParameters}.
+     * Otherwise, the result is the maximum for the block size of an {@link AEADBlockCipher}, or for
+     * {@value #DEFAULT_MAXIMUM_MAC_SIZE} bytes of MAC.
+     */
+    @Override
+    public int getOutputSize(final boolean encryption, final int inlen) {
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        if (params instanceof AEADParameters) {
+            final var macSize = ((AEADParameters) params).getMacSize() >> 3;
+            return encryption ? inlen + macSize : Math.max(inlen - macSize, 0);
+        }
+        if (!encryption) {
+            return inlen;
+        }
+        if (cipher instanceof AEADBlockCipher) {
+            return inlen + ((AEADBlockCipher) cipher).getUnderlyingCipher().getBlockSize();
+        }
+        return inlen + DEFAULT_MAXIMUM_MAC_SIZE;
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public byte[] encrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForEncryption();
+        final var start = metrics.start();
         final var out = new byte[Math.max(cipher.getOutputSize(in.length), 1)];
         try {
             final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(
@@ -47,7 +143,7 @@ public class JinahyaAEADCipherCrypto
                     out,
                     0
             );
-            return Arrays.copyOf(out, outlen);
+            return Arrays.copyOf(out, processed(true, start, in.length, outlen));
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofEncryptionFailure(icte);
         }
@@ -56,8 +152,22 @@ public class JinahyaAEADCipherCrypto
     @Override
     public int encrypt(final ByteBuffer input, final ByteBuffer output) {
         initForEncryption();
+        final var start = metrics.start();
+        final var inlen = input.remaining();
+        try {
+            return processed(true, start, inlen, JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output));
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+        }
+    }
+
+    @Override
+    public int encrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        initForEncryption();
+        final var start = metrics.start();
         try {
-            return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output);
+            return processed(true, start, inlen,
+                             JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff));
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofEncryptionFailure(icte);
         }
@@ -68,11 +178,13 @@ public class JinahyaAEADCipherCrypto
     public byte[] decrypt(byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForDecryption();
+        final var start = metrics.start();
         final var out = new byte[Math.max(cipher.getOutputSize(in.length), 1)];
         try {
             final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
-            return Arrays.copyOf(out, outlen);
+            return Arrays.copyOf(out, processed(false, start, in.length, outlen));
         } catch (final InvalidCipherTextException icte) {
+            metrics.authenticationFailed();
             throw JinahyaCryptoException.ofDecryptionFailure(icte);
         }
     }
@@ -80,9 +192,25 @@ public class JinahyaAEADCipherCrypto
     @Override
     public int decrypt(final ByteBuffer input, final ByteBuffer output) {
         initForDecryption();
+        final var start = metrics.start();
+        final var inlen = input.remaining();
+        try {
+            return processed(false, start, inlen, JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output));
+        } catch (final InvalidCipherTextException icte) {
+            metrics.authenticationFailed();
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    @Override
+    public int decrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        initForDecryption();
+        final var start = metrics.start();
         try {
-            return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output);
+            return processed(false, start, inlen,
+                             JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff));
         } catch (final InvalidCipherTextException icte) {
+            metrics.authenticationFailed();
             throw JinahyaCryptoException.ofDecryptionFailure(icte);
         }
     }
@@ -91,14 +219,18 @@ public class JinahyaAEADCipherCrypto
     @Override
     public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForEncryption();
+        final var start = metrics.start();
         try {
-            return JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
+            final var bytes = JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
                     cipher,
                     in,
                     out,
                     inbuf,
-                    null
+                    null,
+                    metrics
             );
+            metrics.processed(true, start);
+            return bytes;
         } catch (final InvalidCipherTextException icte) {
             throw JinahyaCryptoException.ofEncryptionFailure(icte);
         }
@@ -108,16 +240,315 @@ public class JinahyaAEADCipherCrypto
     @Override
     public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForDecryption();
+        final var start = metrics.start();
         try {
-            return JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
+            final var bytes = JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
                     cipher,
                     in,
                     out,
                     inbuf,
-                    null
+                    null,
+                    metrics
             );
+            metrics.processed(false, start);
+            return bytes;
         } catch (final InvalidCipherTextException icte) {
+            metrics.authenticationFailed();
             throw JinahyaCryptoException.ofDecryptionFailure(icte);
         }
     }
+
+    // ------------------------------------------------------------------------------------------------------------- aad
+
+    /**
+     * Encrypts specified input with all remaining bytes of specified buffer as associated text, following the initial
+     * associated text of the {@link #params}, if any. The {@code aad} is processed in place, or through a scratch
+     * window when it has no accessible array, e.g. a direct buffer, and is never copied as a whole.
+     * <p>
+     * Note that the {@link #cipher} is initialized with the {@link #params}, whose nonce is, therefore, the same for
+     * every call; use {@link #encrypt(ByteBuffer, byte[], byte[])} for a nonce per message.
+     *
+     * @param aad the buffer of the associated text.
+     * @param in  the input to encrypt.
+     * @return an array of encrypted bytes, including the tag.
+     * @see JinahyaAEADCipherUtils#processAADBytes(AEADCipher, ByteBuffer)
+     */
+    public byte[] encrypt(final ByteBuffer aad, final byte[] in) {
+        Objects.requireNonNull(aad, "aad is null");
+        Objects.requireNonNull(in, "in is null");
+        initForEncryption();
+        return process(true, aad, in);
+    }
+
+    /**
+     * Decrypts specified input with all remaining bytes of specified buffer as associated text, following the initial
+     * associated text of the {@link #params}, if any.
+     *
+     * @param aad the buffer of the associated text.
+     * @param in  the input to decrypt, including the tag.
+     * @return an array of decrypted bytes.
+     * @see #encrypt(ByteBuffer, byte[])
+     */
+    public byte[] decrypt(final ByteBuffer aad, final byte[] in) {
+        Objects.requireNonNull(aad, "aad is null");
+        Objects.requireNonNull(in, "in is null");
+        initForDecryption();
+        return process(false, aad, in);
+    }
+
+    /**
+     * Encrypts all bytes of specified input stream, with all bytes of specified associated text stream, which are
+     * read, and processed, before the input, into specified output stream.
+     * <p>
+     * Note that the {@link #cipher} is initialized with the {@link #params}, whose nonce is, therefore, the same for
+     * every call; use {@link #encrypt(InputStream, byte[], InputStream, OutputStream, byte[])} for a nonce per message.
+     *
+     * @param aad   the stream of the associated text.
+     * @param in    the input stream to encrypt.
+     * @param out   the output stream to which encrypted bytes are written.
+     * @param inbuf a buffer for reading bytes from both the {@code aad} and the {@code in}.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     * @see JinahyaAEADCipherUtils#processAADBytes(AEADCipher, InputStream, byte[])
+     */
+    public long encrypt(final InputStream aad, final InputStream in, final OutputStream out, final byte[] inbuf)
+            throws IOException {
+        Objects.requireNonNull(aad, "aad is null");
+        initForEncryption();
+        return process(true, aad, in, out, inbuf);
+    }
+
+    /**
+     * Decrypts all bytes of specified input stream, with all bytes of specified associated text stream, which are
+     * read, and processed, before the input, into specified output stream.
+     *
+     * @param aad   the stream of the associated text.
+     * @param in    the input stream to decrypt.
+     * @param out   the output stream to which decrypted bytes are written.
+     * @param inbuf a buffer for reading bytes from both the {@code aad} and the {@code in}.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     * @see #encrypt(InputStream, InputStream, OutputStream, byte[])
+     */
+    public long decrypt(final InputStream aad, final InputStream in, final OutputStream out, final byte[] inbuf)
+            throws IOException {
+        Objects.requireNonNull(aad, "aad is null");
+        initForDecryption();
+        return process(false, aad, in, out, inbuf);
+    }
+
+    private byte[] process(final boolean encryption, final ByteBuffer aad, final byte[] in) {
+        final var start = metrics.start();
+        JinahyaAEADCipherUtils.processAADBytes(cipher, aad);
+        final var out = new byte[Math.max(cipher.getOutputSize(in.length), 1)];
+        try {
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+            return Arrays.copyOf(out, processed(encryption, start, in.length, outlen));
+        } catch (final InvalidCipherTextException icte) {
+            if (encryption) {
+                throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            }
+            metrics.authenticationFailed();
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    private long process(final boolean encryption, final InputStream aad, final InputStream in, final OutputStream out,
+                         final byte[] inbuf)
+            throws IOException {
+        final var start = metrics.start();
+        JinahyaAEADCipherUtils.processAADBytes(cipher, aad, inbuf);
+        try {
+            final var bytes = JinahyaAEADCipherUtils.processAllBytesAndDoFinal(cipher, in, out, inbuf, null, metrics);
+            metrics.processed(encryption, start);
+            return bytes;
+        } catch (final InvalidCipherTextException icte) {
+            if (encryption) {
+                throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            }
+            metrics.authenticationFailed();
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------------------- message
+
+    /**
+     * Encrypts specified input with specified nonce, and associated text, reusing the key schedule of the
+     * {@link #cipher} when it has already been initialized with the key for encryption.
+     *
+     * @param nonce the nonce for the message.
+     * @param aad   the associated text for the message; may be {@code null}.
+     * @param in    the input to encrypt.
+     * @return an array of encrypted bytes, including the tag.
+     * @see #initForMessage(boolean, byte[], byte[])
+     */
+    public byte[] encrypt(final byte[] nonce, final byte[] aad, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        initForMessage(true, nonce, aad);
+        final var start = metrics.start();
+        final var out = new byte[Math.max(cipher.getOutputSize(in.length), 1)];
+        try {
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+            return Arrays.copyOf(out, processed(true, start, in.length, outlen));
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Encrypts bytes in specified range of specified input array with specified nonce, and associated text, reusing
+     * the key schedule of the {@link #cipher} when it has already been initialized with the key for encryption.
+     *
+     * @param nonce  the nonce for the message.
+     * @param aad    the associated text for the message; may be {@code null}.
+     * @param in     the input array.
+     * @param inoff  a starting index of the {@code in}.
+     * @param inlen  the number of bytes to encrypt.
+     * @param out    the output array.
+     * @param outoff a starting index of the {@code out}.
+     * @return the number of bytes set on the {@code out}, including the tag.
+     */
+    public int encrypt(final byte[] nonce, final byte[] aad, final byte[] in, final int inoff, final int inlen,
+                       final byte[] out, final int outoff) {
+        initForMessage(true, nonce, aad);
+        final var start = metrics.start();
+        try {
+            return processed(true, start, inlen,
+                             JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff));
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Decrypts specified input with specified nonce, and associated text, reusing the key schedule of the
+     * {@link #cipher} when it has already been initialized with the key for decryption.
+     *
+     * @param nonce the nonce for the message.
+     * @param aad   the associated text for the message; may be {@code null}.
+     * @param in    the input to decrypt, including the tag.
+     * @return an array of decrypted bytes.
+     * @see #initForMessage(boolean, byte[], byte[])
+     */
+    public byte[] decrypt(final byte[] nonce, final byte[] aad, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        initForMessage(false, nonce, aad);
+        final var start = metrics.start();
+        final var out = new byte[Math.max(cipher.getOutputSize(in.length), 1)];
+        try {
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+            return Arrays.copyOf(out, processed(false, start, in.length, outlen));
+        } catch (final InvalidCipherTextException icte) {
+            metrics.authenticationFailed();
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Decrypts bytes in specified range of specified input array with specified nonce, and associated text, reusing
+     * the key schedule of the {@link #cipher} when it has already been initialized with the key for decryption.
+     *
+     * @param nonce  the nonce for the message.
+     * @param aad    the associated text for the message; may be {@code null}.
+     * @param in     the input array.
+     * @param inoff  a starting index of the {@code in}.
+     * @param inlen  the number of bytes to decrypt, including the tag.
+     * @param out    the output array.
+     * @param outoff a starting index of the {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     */
+    public int decrypt(final byte[] nonce, final byte[] aad, final byte[] in, final int inoff, final int inlen,
+                       final byte[] out, final int outoff) {
+        initForMessage(false, nonce, aad);
+        final var start = metrics.start();
+        try {
+            return processed(false, start, inlen,
+                             JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff));
+        } catch (final InvalidCipherTextException icte) {
+            metrics.authenticationFailed();
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Encrypts specified input with specified nonce, and all remaining bytes of specified buffer as associated text,
+     * reusing the key schedule of the {@link #cipher} when it has already been initialized with the key for
+     * encryption.
+     *
+     * @param aad   the buffer of the associated text for the message.
+     * @param nonce the nonce for the message.
+     * @param in    the input to encrypt.
+     * @return an array of encrypted bytes, including the tag.
+     * @see #initForMessage(boolean, byte[], byte[])
+     * @see #encrypt(ByteBuffer, byte[])
+     */
+    public byte[] encrypt(final ByteBuffer aad, final byte[] nonce, final byte[] in) {
+        Objects.requireNonNull(aad, "aad is null");
+        Objects.requireNonNull(in, "in is null");
+        initForMessage(true, nonce, null);
+        return process(true, aad, in);
+    }
+
+    /**
+     * Decrypts specified input with specified nonce, and all remaining bytes of specified buffer as associated text,
+     * reusing the key schedule of the {@link #cipher} when it has already been initialized with the key for
+     * decryption.
+     *
+     * @param aad   the buffer of the associated text for the message.
+     * @param nonce the nonce for the message.
+     * @param in    the input to decrypt, including the tag.
+     * @return an array of decrypted bytes.
+     * @see #encrypt(ByteBuffer, byte[], byte[])
+     */
+    public byte[] decrypt(final ByteBuffer aad, final byte[] nonce, final byte[] in) {
+        Objects.requireNonNull(aad, "aad is null");
+        Objects.requireNonNull(in, "in is null");
+        initForMessage(false, nonce, null);
+        return process(false, aad, in);
+    }
+
+    /**
+     * Encrypts all bytes of specified input stream with specified nonce, and all bytes of specified associated text
+     * stream, into specified output stream, reusing the key schedule of the {@link #cipher} when it has already been
+     * initialized with the key for encryption.
+     *
+     * @param aad   the stream of the associated text for the message.
+     * @param nonce the nonce for the message.
+     * @param in    the input stream to encrypt.
+     * @param out   the output stream to which encrypted bytes are written.
+     * @param inbuf a buffer for reading bytes from both the {@code aad} and the {@code in}.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     * @see #encrypt(InputStream, InputStream, OutputStream, byte[])
+     */
+    public long encrypt(final InputStream aad, final byte[] nonce, final InputStream in, final OutputStream out,
+                        final byte[] inbuf)
+            throws IOException {
+        Objects.requireNonNull(aad, "aad is null");
+        initForMessage(true, nonce, null);
+        return process(true, aad, in, out, inbuf);
+    }
+
+    /**
+     * Decrypts all bytes of specified input stream with specified nonce, and all bytes of specified associated text
+     * stream, into specified output stream, reusing the key schedule of the {@link #cipher} when it has already been
+     * initialized with the key for decryption.
+     *
+     * @param aad   the stream of the associated text for the message.
+     * @param nonce the nonce for the message.
+     * @param in    the input stream to decrypt.
+     * @param out   the output stream to which decrypted bytes are written.
+     * @param inbuf a buffer for reading bytes from both the {@code aad} and the {@code in}.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     * @see #encrypt(InputStream, byte[], InputStream, OutputStream, byte[])
+     */
+    public long decrypt(final InputStream aad, final byte[] nonce, final InputStream in, final OutputStream out,
+                        final byte[] inbuf)
+            throws IOException {
+        Objects.requireNonNull(aad, "aad is null");
+        initForMessage(false, nonce, null);
+        return process(false, aad, in, out, inbuf);
+    }
 }
@@ -1,5 +1,11 @@
 package io.github.jinahya.bouncycastle.crypto.modes;
 
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferPool;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoMetrics;
+import io.github.jinahya.bouncycastle.crypto.JinahyaScratchBuffers;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherAuthenticationFailureEvent;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherFinalizeEvent;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherProcessEvent;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.modes.AEADCipher;
 
@@ -41,8 +47,11 @@ public final class JinahyaAEADCipherUtils {
         if (outoff > out.length) {
             throw new IllegalArgumentException("outoff(" + outoff + ") > out.length(" + out.length + ")");
         }
+        final var event = new JinahyaCipherProcessEvent();
+        event.begin();
         final var processed = cipher.processBytes(in, inoff, inlen, out, outoff); // DataLengthException
-        final var finalized = cipher.doFinal(out, outoff + processed); // InvalidCipherTextException
+        event.complete(cipher, inlen, processed);
+        final var finalized = doFinal(cipher, out, outoff + processed); // InvalidCipherTextException
         return processed + finalized;
     }
 
@@ -51,42 +60,152 @@ public final class JinahyaAEADCipherUtils {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(input, "input is null");
         Objects.requireNonNull(output, "output is null");
-        final byte[] in;
-        final int inoff;
-        final int inlen = input.remaining();
-        if (input.hasArray()) {
-            in = input.array();
-            inoff = input.arrayOffset() + input.position();
-        } else {
-            in = new byte[inlen];
-//            input.get(0, in); // Java 13
-            for (int p = input.position(), i = 0; i < in.length; p++, i++) {
-                in[i] = input.get(p);
-            }
-            inoff = 0;
-        }
-        final byte[] out;
-        final int outoff;
-        if (output.hasArray()) {
-            out = output.array();
-            outoff = output.arrayOffset() + output.position();
-        } else {
-            out = new byte[output.remaining()];
-            outoff = 0;
+        if (!input.hasArray() || !output.hasArray()) {
+            return processBytesAndDoFinalWindowed(cipher, input, output);
         }
+        final var in = input.array();
+        final var inoff = input.arrayOffset() + input.position();
+        final var inlen = input.remaining();
+        final var out = output.array();
+        final var outoff = output.arrayOffset() + output.position();
         final var outlen = processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff);
         input.position(input.position() + inlen);
-        if (output.hasArray()) {
-            output.position(output.position() + outlen);
-        } else {
-            output.put(out, outoff, outlen);
-        }
+        output.position(output.position() + outlen);
         return outlen;
     }
 
+    /**
+     * Processes and finalizes, using specified cipher, all remaining bytes of specified input buffer, through scratch
+     * windows, and put processed bytes to specified output buffer. When processing fails, bytes already put on the
+     * output buffer are zeroed, and positions of both buffers are restored.
+     *
+     * @param cipher the cipher.
+     * @param input  the input buffer whose remaining bytes are processed.
+     * @param output the output buffer onto which processed bytes are put.
+     * @return the number of bytes put on the output buffer.
+     * @throws InvalidCipherTextException if the authentication tag does not match.
+     */
+    private static int processBytesAndDoFinalWindowed(final AEADCipher cipher, final ByteBuffer input,
+                                                      final ByteBuffer output)
+            throws InvalidCipherTextException {
+        final var inpos = input.position();
+        final var outpos = output.position();
+        final var in = input.hasArray() ? null : JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+        var out = JinahyaScratchBuffers.acquire(cipher.getUpdateOutputSize(JinahyaScratchBuffers.WINDOW_SIZE));
+        try {
+            final var event = new JinahyaCipherProcessEvent();
+            event.begin();
+            var outlen = 0;
+            while (input.hasRemaining()) {
+                final var inlen = Math.min(input.remaining(), JinahyaScratchBuffers.WINDOW_SIZE);
+                final var uos = cipher.getUpdateOutputSize(inlen);
+                if (out.length < uos) {
+                    JinahyaScratchBuffers.release(out);
+                    out = JinahyaScratchBuffers.acquire(uos);
+                }
+                final int processed;
+                if (in == null) {
+                    processed = cipher.processBytes(
+                            input.array(), input.arrayOffset() + input.position(), inlen, out, 0);
+                    input.position(input.position() + inlen);
+                } else {
+                    input.get(in, 0, inlen);
+                    processed = cipher.processBytes(in, 0, inlen, out, 0); // DataLengthException
+                }
+                output.put(out, 0, processed);
+                outlen += processed;
+            }
+            event.complete(cipher, input.position() - inpos, outlen);
+            final var os = cipher.getOutputSize(0);
+            if (out.length < os) {
+                JinahyaScratchBuffers.release(out);
+                out = JinahyaScratchBuffers.acquire(os);
+            }
+            final var finalized = doFinal(cipher, out, 0); // InvalidCipherTextException
+            output.put(out, 0, finalized);
+            return outlen + finalized;
+        } catch (final RuntimeException | InvalidCipherTextException e) {
+            // bytes already put are unverified; e.g. the plaintext of a message whose tag doesn't match
+            for (int i = outpos; i < output.position(); i++) {
+                output.put(i, (byte) 0);
+            }
+            input.position(inpos);
+            output.position(outpos);
+            throw e;
+        } finally {
+            if (in != null) {
+                JinahyaScratchBuffers.release(in);
+            }
+            JinahyaScratchBuffers.release(out);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------------------- aad
+
+    /**
+     * Processes all remaining bytes of specified buffer as associated text of specified cipher. Bytes of a buffer
+     * without an accessible array, e.g. a direct buffer, are copied through a scratch window.
+     *
+     * @param cipher the cipher.
+     * @param aad    the buffer of the associated text.
+     * @return the number of bytes processed.
+     */
+    public static int processAADBytes(final AEADCipher cipher, final ByteBuffer aad) {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(aad, "aad is null");
+        final var len = aad.remaining();
+        if (aad.hasArray()) {
+            cipher.processAADBytes(aad.array(), aad.arrayOffset() + aad.position(), len);
+            aad.position(aad.limit());
+            return len;
+        }
+        final var window = JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+        try {
+            while (aad.hasRemaining()) {
+                final var n = Math.min(aad.remaining(), window.length);
+                aad.get(window, 0, n);
+                cipher.processAADBytes(window, 0, n);
+            }
+            return len;
+        } finally {
+            JinahyaScratchBuffers.release(window);
+        }
+    }
+
+    /**
+     * Processes all bytes of specified stream as associated text of specified cipher.
+     *
+     * @param cipher the cipher.
+     * @param aad    the stream of the associated text.
+     * @param buf    a buffer for reading bytes from the {@code aad}.
+     * @return the number of bytes processed.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static long processAADBytes(final AEADCipher cipher, final InputStream aad, final byte[] buf)
+            throws IOException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(aad, "aad is null");
+        if (Objects.requireNonNull(buf, "buf is null").length == 0) {
+            throw new IllegalArgumentException("buf.length is zero");
+        }
+        var bytes = 0L;
+        for (int r; (r = aad.read(buf)) != -1; ) {
+            cipher.processAADBytes(buf, 0, r);
+            bytes += r;
+        }
+        return bytes;
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     public static long processAllBytesAndDoFinal(final AEADCipher cipher, final InputStream in, final OutputStream out,
-                                                 final byte[] inbuf, byte[] outbuf)
+                                                 final byte[] inbuf, final byte[] outbuf)
+            throws IOException, InvalidCipherTextException {
+        return processAllBytesAndDoFinal(cipher, in, out, inbuf, outbuf, JinahyaCryptoMetrics.noop());
+    }
+
+    public static long processAllBytesAndDoFinal(final AEADCipher cipher, final InputStream in, final OutputStream out,
+                                                 final byte[] inbuf, byte[] outbuf,
+                                                 final JinahyaCryptoMetrics metrics)
             throws IOException, InvalidCipherTextException {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(in, "in is null");
@@ -94,31 +213,92 @@ public final class JinahyaAEADCipherUtils {
         if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
             throw new IllegalArgumentException("inbuf.length is zero");
         }
-        if (outbuf == null || outbuf.length == 0) {
-            outbuf = new byte[cipher.getOutputSize(inbuf.length)];
+        Objects.requireNonNull(metrics, "metrics is null");
+        final var pool = JinahyaBufferPool.getDefault();
+        var pooled = outbuf == null || outbuf.length == 0;
+        if (pooled) {
+            outbuf = pool.acquireArray(cipher.getOutputSize(inbuf.length));
         }
-        var bytes = 0L;
-        for (int r; (r = in.read(inbuf)) != -1; ) {
-            for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
-                System.err.println("re-allocating outbuf(" + outbuf.length +
-                                           ") for an intermediate update output size: " + uos);
-                Arrays.fill(outbuf, (byte) 0);
-                outbuf = new byte[uos];
+        try {
+            final var event = new JinahyaCipherProcessEvent();
+            event.begin();
+            var inbytes = 0L;
+            var bytes = 0L;
+            for (int r; (r = in.read(inbuf)) != -1; ) {
+                metrics.input(r);
+                inbytes += r;
+                for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
+                    metrics.reallocated(outbuf.length, uos);
+                    outbuf = reacquire(pool, outbuf, pooled, uos);
+                    pooled = true;
+                }
+                final var outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0); // DataLengthException
+                out.write(outbuf, 0, outlen);
+                bytes += outlen;
+            }
+            event.complete(cipher, inbytes, bytes);
+            for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
+                metrics.reallocated(outbuf.length, os);
+                outbuf = reacquire(pool, outbuf, pooled, os);
+                pooled = true;
             }
-            final var outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0); // DataLengthException
+            final var outlen = doFinal(cipher, outbuf, 0); // InvalidCipherTextException
             out.write(outbuf, 0, outlen);
             bytes += outlen;
+            metrics.output(bytes);
+            return bytes;
+        } finally {
+            if (pooled) {
+                pool.releaseArray(outbuf);
+            } else {
+                Arrays.fill(outbuf, (byte) 0);
+            }
         }
-        for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
-            System.err.println("re-allocating outbuf(" + outbuf.length + ") for the final output size: " + os);
-            Arrays.fill(outbuf, (byte) 0);
-            outbuf = new byte[os];
+    }
+
+    /**
+     * Finalizes specified cipher while emitting a {@link JinahyaCipherFinalizeEvent}, or, when the authentication tag
+     * does not match, a {@link JinahyaCipherAuthenticationFailureEvent}.
+     *
+     * @param cipher the cipher.
+     * @param out    the output array.
+     * @param outoff the starting index of {@code out} on which finalized bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     * @throws InvalidCipherTextException if the authentication tag does not match.
+     */
+    private static int doFinal(final AEADCipher cipher, final byte[] out, final int outoff)
+            throws InvalidCipherTextException {
+        final var event = new JinahyaCipherFinalizeEvent();
+        event.begin();
+        final int outlen;
+        try {
+            outlen = cipher.doFinal(out, outoff);
+        } catch (final InvalidCipherTextException icte) {
+            JinahyaCipherAuthenticationFailureEvent.commit(cipher);
+            throw icte;
         }
-        final var outlen = cipher.doFinal(outbuf, 0); // InvalidCipherTextException
-        out.write(outbuf, 0, outlen);
-        bytes += outlen;
-        Arrays.fill(outbuf, (byte) 0);
-        return bytes;
+        event.complete(cipher, outlen);
+        return outlen;
+    }
+
+    /**
+     * Replaces specified buffer with a pooled one whose length is not less than specified length. The old buffer is
+     * released to the pool when it is a pooled one; otherwise filled with zeros.
+     *
+     * @param pool   the pool.
+     * @param buffer the buffer to replace.
+     * @param pooled a flag indicates whether the {@code buffer} is acquired from the {@code pool}.
+     * @param length the minimum length of the new buffer.
+     * @return a new pooled buffer.
+     */
+    private static byte[] reacquire(final JinahyaBufferPool pool, final byte[] buffer, final boolean pooled,
+                                    final int length) {
+        if (pooled) {
+            pool.releaseArray(buffer);
+        } else {
+            Arrays.fill(buffer, (byte) 0);
+        }
+        return pool.acquireArray(length);
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -0,0 +1,269 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A read-only {@link SeekableByteChannel} which decrypts, on demand, a ciphertext channel encrypted with a
+ * {@link SkippingStreamCipher}; e.g. a {@link SICBlockCipher CTR} mode cipher.
+ * <p>
+ * For any position, the cipher is {@link SkippingStreamCipher#seekTo(long) sought} to the position, and only the pages
+ * covering the requested range are read, and decrypted. A small number of recently decrypted pages are cached in
+ * least-recently-used order. Instances of this class are not safe for use by multiple concurrent threads.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public class JinahyaCTRDecryptingChannel
+        implements SeekableByteChannel {
+
+    /**
+     * The default number of bytes of each page. The value is {@value}.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    /**
+     * The default number of cached pages. The value is {@value}.
+     */
+    public static final int DEFAULT_CACHED_PAGES = 16;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Decrypts bytes of specified ciphertext buffer, starting at specified position, into specified destination
+     * buffer. The index {@code 0} of the {@code ciphertext} corresponds to the keystream position {@code 0}; the
+     * {@code ciphertext}'s position, and limit, are not modified.
+     *
+     * @param cipher     the cipher initialized with the parameters of the {@code ciphertext}.
+     * @param ciphertext the ciphertext buffer.
+     * @param position   the position from which bytes are decrypted.
+     * @param dst        the destination buffer into which decrypted bytes are put.
+     * @return the number of bytes put on the {@code dst}; {@code -1} if the {@code position} is not less than the
+     * {@code ciphertext}'s limit.
+     */
+    public static int decrypt(final SkippingStreamCipher cipher, final ByteBuffer ciphertext, final long position,
+                              final ByteBuffer dst) {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(ciphertext, "ciphertext is null");
+        if (position < 0L) {
+            throw new IllegalArgumentException("position(" + position + ") is negative");
+        }
+        Objects.requireNonNull(dst, "dst is null");
+        if (position >= ciphertext.limit()) {
+            return -1;
+        }
+        final var length = (int) Math.min(dst.remaining(), ciphertext.limit() - position);
+        cipher.seekTo(position);
+        if (ciphertext.hasArray() && dst.hasArray()) {
+            cipher.processBytes(ciphertext.array(), ciphertext.arrayOffset() + (int) position, length,
+                                dst.array(), dst.arrayOffset() + dst.position());
+            dst.position(dst.position() + length);
+            return length;
+        }
+        final var source = ciphertext.duplicate().position((int) position).limit((int) position + length);
+        final var buf = new byte[Math.min(length, DEFAULT_PAGE_SIZE)];
+        while (source.hasRemaining()) {
+            final var n = Math.min(source.remaining(), buf.length);
+            source.get(buf, 0, n);
+            cipher.processBytes(buf, 0, n, buf, 0);
+            dst.put(buf, 0, n);
+        }
+        return length;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with the {@link #DEFAULT_PAGE_SIZE} and the {@link #DEFAULT_CACHED_PAGES}.
+     *
+     * @param channel the ciphertext channel.
+     * @param cipher  the cipher.
+     * @param params  the parameters for initializing the {@code cipher}.
+     */
+    public JinahyaCTRDecryptingChannel(final SeekableByteChannel channel, final SkippingStreamCipher cipher,
+                                       final CipherParameters params) {
+        this(channel, cipher, params, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param channel     the ciphertext channel.
+     * @param cipher      the cipher.
+     * @param params      the parameters for initializing the {@code cipher}.
+     * @param pageSize    the number of bytes of each page.
+     * @param cachedPages the maximum number of cached pages; {@code 0} for no cache.
+     */
+    public JinahyaCTRDecryptingChannel(final SeekableByteChannel channel, final SkippingStreamCipher cipher,
+                                       final CipherParameters params, final int pageSize, final int cachedPages) {
+        super();
+        this.channel = Objects.requireNonNull(channel, "channel is null");
+        this.cipher = Objects.requireNonNull(cipher, "cipher is null");
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize(" + pageSize + ") is not positive");
+        }
+        this.pageSize = pageSize;
+        if (cachedPages < 0) {
+            throw new IllegalArgumentException("cachedPages(" + cachedPages + ") is negative");
+        }
+        this.cachedPages = cachedPages;
+        this.cipher.init(false, Objects.requireNonNull(params, "params is null"));
+        pages = new LinkedHashMap<>(16, .75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, byte[]> eldest) {
+                if (size() > cachedPages) {
+                    Arrays.fill(eldest.getValue(), (byte) 0);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        Objects.requireNonNull(dst, "dst is null");
+        ensureOpen();
+        final var size = channel.size();
+        if (position >= size) {
+            return -1;
+        }
+        var read = 0;
+        while (dst.hasRemaining() && position < size) {
+            final var index = position / pageSize;
+            final var page = page(index, size);
+            final var skip = (int) (position - index * pageSize);
+            final var length = Math.min(dst.remaining(), page.length - skip);
+            dst.put(page, skip, length);
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    /**
+     * Throws a {@link NonWritableChannelException}.
+     *
+     * @param src the buffer.
+     * @return never returns.
+     */
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public JinahyaCTRDecryptingChannel position(final long newPosition) throws IOException {
+        if (newPosition < 0L) {
+            throw new IllegalArgumentException("newPosition(" + newPosition + ") is negative");
+        }
+        ensureOpen();
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Throws a {@link NonWritableChannelException}.
+     *
+     * @param size the size.
+     * @return never returns.
+     */
+    @Override
+    public SeekableByteChannel truncate(final long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Clears, zeroing, cached pages, and closes the ciphertext channel.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            pages.values().forEach(p -> Arrays.fill(p, (byte) 0));
+            pages.clear();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void ensureOpen() throws ClosedChannelException {
+        if (!channel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Returns the decrypted page of specified index, from the cache, or by reading, and decrypting, the page.
+     *
+     * @param index the index of the page.
+     * @param size  the size of the ciphertext channel.
+     * @return the decrypted page.
+     * @throws IOException if an I/O error occurs.
+     */
+    private byte[] page(final long index, final long size) throws IOException {
+        final var cached = pages.get(index);
+        if (cached != null) {
+            return cached;
+        }
+        final var offset = index * pageSize;
+        final var page = new byte[(int) Math.min(size - offset, pageSize)];
+        channel.position(offset);
+        for (final var buffer = ByteBuffer.wrap(page); buffer.hasRemaining(); ) {
+            if (channel.read(buffer) == -1) {
+                throw new EOFException("unexpected end of channel");
+            }
+        }
+        cipher.seekTo(offset);
+        cipher.processBytes(page, 0, page.length, page, 0);
+        if (cachedPages > 0) {
+            pages.put(index, page);
+        }
+        return page;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final SeekableByteChannel channel;
+
+    private final SkippingStreamCipher cipher;
+
+    private final int pageSize;
+
+    private final int cachedPages;
+
+    private final Map<Long, byte[]> pages;
+
+    private long position;
+}
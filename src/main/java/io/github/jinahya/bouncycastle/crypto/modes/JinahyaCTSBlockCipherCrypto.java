@@ -0,0 +1,341 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import io.github.jinahya.bouncycastle.crypto.JinahyaScratchBuffers;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherFinalizeEvent;
+import io.github.jinahya.bouncycastle.crypto.jfr.JinahyaCipherProcessEvent;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.modes.CTSBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A crypto for a {@link CTSBlockCipher}, which keeps no more than two blocks of lookahead.
+ * <p>
+ * Every block but the last two is processed, with the underlying cipher of the {@link #cipher}, as soon as it is
+ * known not to be one of the last two, and only the last two blocks, the last one of which may be partial, are handed
+ * to the {@link #cipher} when finalized. That is, the output of processing {@code n} bytes is known exactly, the
+ * output is always as long as the input, and the memory usage is constant no matter how long the input is.
+ * <p>
+ * The output is the same as of the {@link CTSBlockCipher}; and, as with it, an input shorter than a block fails with a
+ * {@link org.bouncycastle.crypto.DataLengthException}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see CTSBlockCipher
+ */
+public class JinahyaCTSBlockCipherCrypto
+        extends JinahyaCipherCrypto<CTSBlockCipher> {
+
+    public JinahyaCTSBlockCipherCrypto(final CTSBlockCipher cipher, final CipherParameters params) {
+        super(cipher, params);
+        blockSize = cipher.getBlockSize();
+        lookahead = new byte[blockSize << 1];
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+    @Override
+    protected void initFor(final boolean encryption) {
+        cipher.init(encryption, params);
+        clearLookahead();
+    }
+
+    @Override
+    protected void initFor(final boolean encryption, final CipherParameters params) {
+        cipher.init(encryption, params);
+        clearLookahead();
+    }
+
+    @Override
+    protected CipherParameters newMessageParameters(final KeyParameter key, final byte[] iv, final byte[] aad) {
+        return new ParametersWithIV(key, iv);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote The result is exact; all bytes but the last two blocks, or more than a block, are processed.
+     */
+    @Override
+    protected int getUpdateOutputSize(final int inlen) {
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        final var total = (long) lookaheadLength + inlen;
+        if (total <= lookahead.length) {
+            return 0;
+        }
+        return (int) ((total - blockSize - 1) / blockSize * blockSize);
+    }
+
+    @Override
+    protected int getFinalOutputSize() {
+        return lookaheadLength;
+    }
+
+    @Override
+    protected int processBytes(final byte[] in, int inoff, int inlen, final byte[] out, int outoff) {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        final var outlen = getUpdateOutputSize(inlen);
+        if (outoff + outlen > out.length) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        final var underlying = cipher.getUnderlyingCipher();
+        var remaining = outlen;
+        // full blocks in the lookahead
+        while (remaining > 0 && lookaheadLength >= blockSize) {
+            underlying.processBlock(lookahead, 0, out, outoff);
+            lookaheadLength -= blockSize;
+            System.arraycopy(lookahead, blockSize, lookahead, 0, lookaheadLength);
+            outoff += blockSize;
+            remaining -= blockSize;
+        }
+        // a partial block in the lookahead, completed with the input
+        if (remaining > 0 && lookaheadLength > 0) {
+            final var gap = blockSize - lookaheadLength;
+            System.arraycopy(in, inoff, lookahead, lookaheadLength, gap);
+            underlying.processBlock(lookahead, 0, out, outoff);
+            lookaheadLength = 0;
+            inoff += gap;
+            inlen -= gap;
+            outoff += blockSize;
+            remaining -= blockSize;
+        }
+        // full blocks in the input
+        for (; remaining > 0; remaining -= blockSize) {
+            underlying.processBlock(in, inoff, out, outoff);
+            inoff += blockSize;
+            inlen -= blockSize;
+            outoff += blockSize;
+        }
+        System.arraycopy(in, inoff, lookahead, lookaheadLength, inlen);
+        lookaheadLength += inlen;
+        return outlen;
+    }
+
+    @Override
+    protected int doFinal(final byte[] out, final int outoff) throws InvalidCipherTextException {
+        try {
+            final var processed = cipher.processBytes(lookahead, 0, lookaheadLength, out, outoff);
+            return processed + cipher.doFinal(out, outoff + processed);
+        } finally {
+            clearLookahead();
+        }
+    }
+
+    private void clearLookahead() {
+        Arrays.fill(lookahead, (byte) 0);
+        lookaheadLength = 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote The result is always the {@code inlen}.
+     */
+    @Override
+    public int getOutputSize(final boolean encryption, final int inlen) {
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        return inlen;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] encrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var out = new byte[in.length];
+        process(true, in, 0, in.length, out, 0);
+        return out;
+    }
+
+    @Override
+    public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+        return process(true, input, output);
+    }
+
+    @Override
+    public int encrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return process(true, in, inoff, inlen, out, outoff);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] decrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var out = new byte[in.length];
+        process(false, in, 0, in.length, out, 0);
+        return out;
+    }
+
+    @Override
+    public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+        return process(false, input, output);
+    }
+
+    @Override
+    public int decrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        return process(false, in, inoff, inlen, out, outoff);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        return process(true, in, out, inbuf);
+    }
+
+    @Override
+    public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        return process(false, in, out, inbuf);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void init(final boolean encryption) {
+        if (encryption) {
+            initForEncryption();
+        } else {
+            initForDecryption();
+        }
+    }
+
+    private int doFinal(final boolean encryption, final byte[] out, final int outoff) {
+        final var event = new JinahyaCipherFinalizeEvent();
+        event.begin();
+        try {
+            final var outlen = doFinal(out, outoff);
+            event.complete(cipher, outlen);
+            return outlen;
+        } catch (final InvalidCipherTextException icte) {
+            throw encryption
+                  ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                  : JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    private int process(final boolean encryption, final byte[] in, final int inoff, final int inlen,
+                        final byte[] out, final int outoff) {
+        Objects.requireNonNull(in, "in is null");
+        if (inoff < 0) {
+            throw new IllegalArgumentException("inoff(" + inoff + ") is negative");
+        }
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        if (inoff + inlen > in.length) {
+            throw new IllegalArgumentException(
+                    "inoff(" + inoff + ") + inlen(" + inlen + ") > in.length(" + in.length + ")");
+        }
+        Objects.requireNonNull(out, "out is null");
+        if (outoff < 0) {
+            throw new IllegalArgumentException("outoff(" + outoff + ") is negative");
+        }
+        if (outoff + inlen > out.length) {
+            throw new IllegalArgumentException(
+                    "outoff(" + outoff + ") + inlen(" + inlen + ") > out.length(" + out.length + ")");
+        }
+        init(encryption);
+        final var start = metrics.start();
+        final var event = new JinahyaCipherProcessEvent();
+        event.begin();
+        final var processed = processBytes(in, inoff, inlen, out, outoff);
+        event.complete(cipher, inlen, processed);
+        final var finalized = doFinal(encryption, out, outoff + processed);
+        return processed(encryption, start, inlen, processed + finalized);
+    }
+
+    private int process(final boolean encryption, final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inlen = input.remaining();
+        if (output.remaining() < inlen) {
+            throw new BufferOverflowException();
+        }
+        if (input.hasArray() && output.hasArray()) {
+            final var outlen = process(encryption, input.array(), input.arrayOffset() + input.position(), inlen,
+                                       output.array(), output.arrayOffset() + output.position());
+            input.position(input.limit());
+            output.position(output.position() + outlen);
+            return outlen;
+        }
+        init(encryption);
+        final var start = metrics.start();
+        final var inbuf = JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+        final var outbuf = JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE + lookahead.length);
+        try {
+            final var event = new JinahyaCipherProcessEvent();
+            event.begin();
+            var outlen = 0;
+            while (input.hasRemaining()) {
+                final var n = Math.min(input.remaining(), JinahyaScratchBuffers.WINDOW_SIZE);
+                input.get(inbuf, 0, n);
+                final var processed = processBytes(inbuf, 0, n, outbuf, 0);
+                output.put(outbuf, 0, processed);
+                outlen += processed;
+            }
+            event.complete(cipher, inlen, outlen);
+            final var finalized = doFinal(encryption, outbuf, 0);
+            output.put(outbuf, 0, finalized);
+            return processed(encryption, start, inlen, outlen + finalized);
+        } finally {
+            JinahyaScratchBuffers.release(inbuf);
+            JinahyaScratchBuffers.release(outbuf);
+        }
+    }
+
+    private long process(final boolean encryption, final InputStream in, final OutputStream out, final byte[] inbuf)
+            throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
+            throw new IllegalArgumentException("inbuf.length is zero");
+        }
+        init(encryption);
+        final var start = metrics.start();
+        final var pool = bufferPool;
+        final var outbuf = pool.acquireArray(inbuf.length + lookahead.length);
+        try {
+            final var event = new JinahyaCipherProcessEvent();
+            event.begin();
+            var inbytes = 0L;
+            var bytes = 0L;
+            for (int r; (r = in.read(inbuf)) != -1; ) {
+                inbytes += r;
+                final var outlen = processBytes(inbuf, 0, r, outbuf, 0);
+                out.write(outbuf, 0, outlen);
+                bytes += outlen;
+            }
+            event.complete(cipher, inbytes, bytes);
+            final var outlen = doFinal(encryption, outbuf, 0);
+            out.write(outbuf, 0, outlen);
+            bytes += outlen;
+            metrics.input(inbytes);
+            metrics.output(bytes);
+            metrics.processed(encryption, start);
+            return bytes;
+        } finally {
+            pool.releaseArray(outbuf);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final int blockSize;
+
+    // the last two blocks, at most, of the input processed so far
+    private final byte[] lookahead;
+
+    private int lookaheadLength;
+}
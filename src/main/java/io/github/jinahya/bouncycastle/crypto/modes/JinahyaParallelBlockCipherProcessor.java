@@ -0,0 +1,641 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferPool;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CFBBlockCipher;
+import org.bouncycastle.crypto.paddings.BlockCipherPadding;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * A processor which processes, in parallel, bytes in modes, and directions, whose output blocks do not depend on each
+ * other; ECB encryption/decryption, CBC decryption, and CFB decryption.
+ * <p>
+ * The input is split at block boundaries into chunks, and each chunk is processed, on a {@link ForkJoinPool}, with its
+ * own cipher whose IV, if any, is the ciphertext block preceding the chunk. Padding, if any, is added to, or removed
+ * from, only the final block.
+ * <p>
+ * For decryption, an arbitrary block-aligned range of a ciphertext is decrypted with {@code decryptRange} methods,
+ * which read only the range, and the block preceding it.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaParallelCTRProcessor
+ */
+public class JinahyaParallelBlockCipherProcessor {
+
+    /**
+     * The default number of bytes of each chunk. The value is {@value}.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private enum Mode {
+        ECB,
+        CBC,
+        CFB
+    }
+
+    /**
+     * An accessor for reading, and writing, regions of the input, and the output, at absolute offsets.
+     */
+    private interface Regions {
+
+        void read(long offset, byte[] buf, int len) throws IOException;
+
+        void write(long offset, byte[] buf, int len) throws IOException;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance for ECB mode.
+     *
+     * @param engineSupplier a supplier for a new block cipher engine for each chunk; e.g.
+     *                       {@code AESEngine::newInstance}.
+     * @param encryption     {@code true} for encryption; {@code false} for decryption.
+     * @param params         the parameters, a key, for initializing the engine of each chunk.
+     * @param padding        a padding for the final block; {@code null} for no padding.
+     * @param pool           the pool on which chunks are processed.
+     * @param chunkSize      the number of bytes of each chunk; must be a positive multiple of the block size.
+     * @return a new instance.
+     */
+    public static JinahyaParallelBlockCipherProcessor ofECB(final Supplier<? extends BlockCipher> engineSupplier,
+                                                            final boolean encryption, final CipherParameters params,
+                                                            final BlockCipherPadding padding,
+                                                            final ForkJoinPool pool, final int chunkSize) {
+        return new JinahyaParallelBlockCipherProcessor(
+                engineSupplier, Mode.ECB, 0, encryption, params, null, padding, pool, chunkSize);
+    }
+
+    /**
+     * Creates a new instance for CBC mode decryption.
+     *
+     * @param engineSupplier a supplier for a new block cipher engine for each chunk; e.g.
+     *                       {@code AESEngine::newInstance}.
+     * @param params         the parameters, a key with an IV, for initializing the cipher of each chunk.
+     * @param padding        a padding of the final block; {@code null} for no padding.
+     * @param pool           the pool on which chunks are processed.
+     * @param chunkSize      the number of bytes of each chunk; must be a positive multiple of the block size.
+     * @return a new instance.
+     */
+    public static JinahyaParallelBlockCipherProcessor ofCBCDecryption(
+            final Supplier<? extends BlockCipher> engineSupplier, final ParametersWithIV params,
+            final BlockCipherPadding padding, final ForkJoinPool pool, final int chunkSize) {
+        Objects.requireNonNull(params, "params is null");
+        return new JinahyaParallelBlockCipherProcessor(
+                engineSupplier, Mode.CBC, 0, false, params.getParameters(), params.getIV(), padding, pool, chunkSize);
+    }
+
+    /**
+     * Creates a new instance for CFB mode decryption.
+     *
+     * @param engineSupplier a supplier for a new block cipher engine for each chunk; e.g.
+     *                       {@code AESEngine::newInstance}.
+     * @param bitBlockSize   the number of bits of each feedback segment; e.g. {@code 8} for CFB8.
+     * @param params         the parameters, a key with an IV, for initializing the cipher of each chunk.
+     * @param pool           the pool on which chunks are processed.
+     * @param chunkSize      the number of bytes of each chunk; must be a positive multiple of the block size.
+     * @return a new instance.
+     */
+    public static JinahyaParallelBlockCipherProcessor ofCFBDecryption(
+            final Supplier<? extends BlockCipher> engineSupplier, final int bitBlockSize,
+            final ParametersWithIV params, final ForkJoinPool pool, final int chunkSize) {
+        Objects.requireNonNull(params, "params is null");
+        return new JinahyaParallelBlockCipherProcessor(
+                engineSupplier, Mode.CFB, bitBlockSize, false, params.getParameters(), params.getIV(), null, pool,
+                chunkSize);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaParallelBlockCipherProcessor(final Supplier<? extends BlockCipher> engineSupplier,
+                                                final Mode mode, final int bitBlockSize, final boolean encryption,
+                                                final CipherParameters key, final byte[] iv,
+                                                final BlockCipherPadding padding, final ForkJoinPool pool,
+                                                final int chunkSize) {
+        super();
+        this.engineSupplier = Objects.requireNonNull(engineSupplier, "engineSupplier is null");
+        this.mode = mode;
+        this.bitBlockSize = bitBlockSize;
+        this.encryption = encryption;
+        this.key = Objects.requireNonNull(key, "key is null");
+        this.padding = padding;
+        this.pool = Objects.requireNonNull(pool, "pool is null");
+        blockSize = newEngine().getBlockSize();
+        if (iv != null && iv.length != blockSize) {
+            throw new IllegalArgumentException(
+                    "iv.length(" + iv.length + ") != the block size(" + blockSize + ")");
+        }
+        this.iv = iv == null ? null : iv.clone();
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize(" + chunkSize + ") is not positive");
+        }
+        if (chunkSize % blockSize != 0) {
+            throw new IllegalArgumentException(
+                    "chunkSize(" + chunkSize + ") is not a multiple of the block size(" + blockSize + ")");
+        }
+        this.chunkSize = chunkSize;
+        if (this.padding != null) {
+            this.padding.init(null);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the maximum number of output bytes for processing specified number of input bytes.
+     *
+     * @param inlen the number of input bytes.
+     * @return the maximum number of output bytes for the {@code inlen}.
+     */
+    public long getOutputSize(final long inlen) {
+        if (inlen < 0L) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        if (padding != null && encryption) {
+            return inlen - inlen % blockSize + blockSize;
+        }
+        return inlen;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes bytes in specified range of specified input array, and sets processed bytes on specified output array
+     * starting at specified index.
+     *
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of bytes to process in {@code in}.
+     * @param out    the output array; should have room for, at least, {@link #getOutputSize(long) getOutputSize(inlen)}
+     *               bytes.
+     * @param outoff the starting index of {@code out} on which processed bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    public int process(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(in, "in is null");
+        if (inoff < 0) {
+            throw new IllegalArgumentException("inoff(" + inoff + ") is negative");
+        }
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        if (inoff + inlen > in.length) {
+            throw new IllegalArgumentException(
+                    "inoff(" + inoff + ") + inlen(" + inlen + ") > in.length(" + in.length + ")");
+        }
+        Objects.requireNonNull(out, "out is null");
+        if (outoff < 0) {
+            throw new IllegalArgumentException("outoff(" + outoff + ") is negative");
+        }
+        final var os = getOutputSize(inlen);
+        if (outoff + os > out.length) {
+            throw new IllegalArgumentException(
+                    "outoff(" + outoff + ") + output size(" + os + ") > out.length(" + out.length + ")");
+        }
+        try {
+            return (int) process(inlen, new Regions() {
+                @Override
+                public void read(final long offset, final byte[] buf, final int len) {
+                    System.arraycopy(in, inoff + (int) offset, buf, 0, len);
+                }
+
+                @Override
+                public void write(final long offset, final byte[] buf, final int len) {
+                    System.arraycopy(buf, 0, out, outoff + (int) offset, len);
+                }
+            });
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected I/O error", ioe);
+        }
+    }
+
+    /**
+     * Processes specified input bytes, and returns the result.
+     *
+     * @param in the input bytes.
+     * @return an array of processed bytes.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    public byte[] process(final byte[] in) throws InvalidCipherTextException {
+        Objects.requireNonNull(in, "in is null");
+        final var out = new byte[(int) getOutputSize(in.length)];
+        final var outlen = process(in, 0, in.length, out, 0);
+        return outlen == out.length ? out : Arrays.copyOf(out, outlen);
+    }
+
+    /**
+     * Processes all remaining bytes of specified input buffer, and puts processed bytes to specified output buffer.
+     *
+     * @param input  the input buffer whose remaining bytes are processed.
+     * @param output the output buffer onto which processed bytes are put; should have, at least,
+     *               {@link #getOutputSize(long) getOutputSize(input.remaining())} bytes remaining.
+     * @return the number of bytes put on the {@code output}.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     * @throws BufferOverflowException    if {@code output} has not enough remaining bytes.
+     */
+    public int process(final ByteBuffer input, final ByteBuffer output) throws InvalidCipherTextException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inlen = input.remaining();
+        if (output.remaining() < getOutputSize(inlen)) {
+            throw new BufferOverflowException();
+        }
+        final var inpos = input.position();
+        final var outpos = output.position();
+        final int outlen;
+        try {
+            outlen = (int) process(inlen, new Regions() {
+                @Override
+                public void read(final long offset, final byte[] buf, final int len) {
+                    input.duplicate().position(inpos + (int) offset).get(buf, 0, len);
+                }
+
+                @Override
+                public void write(final long offset, final byte[] buf, final int len) {
+                    output.duplicate().position(outpos + (int) offset).put(buf, 0, len);
+                }
+            });
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected I/O error", ioe);
+        }
+        input.position(inpos + inlen);
+        output.position(outpos + outlen);
+        return outlen;
+    }
+
+    /**
+     * Processes all bytes of specified source file, and writes processed bytes to specified target file. Each chunk of
+     * the source file is mapped into memory, and written to the target file at the same position.
+     *
+     * @param source the source file.
+     * @param target the target file; must not be the same file as the {@code source}.
+     * @return the number of bytes written to the {@code target}.
+     * @throws IOException                if an I/O error occurs.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    public long process(final Path source, final Path target) throws IOException, InvalidCipherTextException {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("source(" + source + ") and target(" + target + ") are the same");
+        }
+        try (var sc = FileChannel.open(source, StandardOpenOption.READ);
+             var tc = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING)) {
+            return process(sc.size(), new Regions() {
+                @Override
+                public void read(final long offset, final byte[] buf, final int len) throws IOException {
+                    sc.map(FileChannel.MapMode.READ_ONLY, offset, len).get(buf, 0, len);
+                }
+
+                @Override
+                public void write(final long offset, final byte[] buf, final int len) throws IOException {
+                    for (final var buffer = ByteBuffer.wrap(buf, 0, len); buffer.hasRemaining(); ) {
+                        tc.write(buffer, offset + buffer.position());
+                    }
+                }
+            });
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- range
+
+    /**
+     * Decrypts a range of specified ciphertext array, and sets decrypted bytes on specified output array starting at
+     * specified index. Only the block preceding the range is read besides the range itself; padding is removed only
+     * when the range includes the last block.
+     *
+     * @param ciphertext the whole ciphertext.
+     * @param offset     the offset of the range; must be a multiple of the block size.
+     * @param length     the number of bytes of the range; must be a multiple of the block size unless the range
+     *                   reaches the end of the {@code ciphertext}, or the mode is CFB.
+     * @param out        the output array.
+     * @param outoff     the starting index of {@code out} on which decrypted bytes are set.
+     * @return the number of bytes set on the {@code out}.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    public int decryptRange(final byte[] ciphertext, final long offset, final int length, final byte[] out,
+                            final int outoff)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(ciphertext, "ciphertext is null");
+        Objects.requireNonNull(out, "out is null");
+        if (outoff < 0) {
+            throw new IllegalArgumentException("outoff(" + outoff + ") is negative");
+        }
+        try {
+            return decryptRange(ciphertext.length, offset, length, new Regions() {
+                @Override
+                public void read(final long offset, final byte[] buf, final int len) {
+                    System.arraycopy(ciphertext, (int) offset, buf, 0, len);
+                }
+
+                @Override
+                public void write(final long offset, final byte[] buf, final int len) {
+                    if (outoff + len > out.length) {
+                        throw new IllegalArgumentException(
+                                "outoff(" + outoff + ") + len(" + len + ") > out.length(" + out.length + ")");
+                    }
+                    System.arraycopy(buf, 0, out, outoff, len);
+                }
+            });
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected I/O error", ioe);
+        }
+    }
+
+    /**
+     * Decrypts a range of specified ciphertext buffer, and puts decrypted bytes to specified output buffer. The index
+     * {@code 0} of the {@code ciphertext} is the start of the ciphertext, and its position is not modified.
+     *
+     * @param ciphertext the whole ciphertext, up to its limit.
+     * @param offset     the offset of the range; must be a multiple of the block size.
+     * @param length     the number of bytes of the range; must be a multiple of the block size unless the range
+     *                   reaches the end of the {@code ciphertext}, or the mode is CFB.
+     * @param output     the output buffer onto which decrypted bytes are put.
+     * @return the number of bytes put on the {@code output}.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     * @throws BufferOverflowException    if {@code output} has not enough remaining bytes.
+     */
+    public int decryptRange(final ByteBuffer ciphertext, final long offset, final int length,
+                            final ByteBuffer output)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(ciphertext, "ciphertext is null");
+        Objects.requireNonNull(output, "output is null");
+        try {
+            return decryptRange(ciphertext.limit(), offset, length, new Regions() {
+                @Override
+                public void read(final long offset, final byte[] buf, final int len) {
+                    ciphertext.duplicate().position((int) offset).get(buf, 0, len);
+                }
+
+                @Override
+                public void write(final long offset, final byte[] buf, final int len) {
+                    output.put(buf, 0, len);
+                }
+            });
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected I/O error", ioe);
+        }
+    }
+
+    /**
+     * Decrypts a range of a ciphertext file of specified channel, and puts decrypted bytes to specified output buffer.
+     * The channel's position is not modified.
+     *
+     * @param channel the channel of the ciphertext file.
+     * @param offset  the offset of the range; must be a multiple of the block size.
+     * @param length  the number of bytes of the range; must be a multiple of the block size unless the range reaches
+     *                the end of the file, or the mode is CFB.
+     * @param output  the output buffer onto which decrypted bytes are put.
+     * @return the number of bytes put on the {@code output}.
+     * @throws IOException                if an I/O error occurs.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     * @throws BufferOverflowException    if {@code output} has not enough remaining bytes.
+     */
+    public int decryptRange(final FileChannel channel, final long offset, final int length, final ByteBuffer output)
+            throws IOException, InvalidCipherTextException {
+        Objects.requireNonNull(channel, "channel is null");
+        Objects.requireNonNull(output, "output is null");
+        return decryptRange(channel.size(), offset, length, new Regions() {
+            @Override
+            public void read(final long offset, final byte[] buf, final int len) throws IOException {
+                for (final var buffer = ByteBuffer.wrap(buf, 0, len); buffer.hasRemaining(); ) {
+                    if (channel.read(buffer, offset + buffer.position()) == -1) {
+                        throw new EOFException("unexpected end of file");
+                    }
+                }
+            }
+
+            @Override
+            public void write(final long offset, final byte[] buf, final int len) {
+                output.put(buf, 0, len);
+            }
+        });
+    }
+
+    /**
+     * Decrypts a range of a ciphertext of specified size through specified regions, and writes decrypted bytes at
+     * the offset {@code 0} of the output region.
+     *
+     * @param size    the size of the whole ciphertext.
+     * @param offset  the offset of the range.
+     * @param length  the number of bytes of the range.
+     * @param regions the regions of the ciphertext and the output.
+     * @return the number of decrypted bytes.
+     * @throws IOException                if an I/O error occurs.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    private int decryptRange(final long size, final long offset, final int length, final Regions regions)
+            throws IOException, InvalidCipherTextException {
+        if (encryption) {
+            throw new IllegalStateException("not for decryption");
+        }
+        if (offset < 0L || offset > size) {
+            throw new IllegalArgumentException("offset(" + offset + ") is not in [0, " + size + "]");
+        }
+        if (offset % blockSize != 0) {
+            throw new IllegalArgumentException(
+                    "offset(" + offset + ") is not a multiple of the block size(" + blockSize + ")");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length(" + length + ") is negative");
+        }
+        final var len = (int) Math.min(length, size - offset);
+        final var last = offset + len == size;
+        if (mode != Mode.CFB && len % blockSize != 0) {
+            throw new DataLengthException(
+                    "length(" + len + ") is not a multiple of the block size(" + blockSize + ")");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        final var buf = JinahyaBufferPool.getDefault().acquireArray(len);
+        try {
+            final var cipher = newChunkCipher(mode == Mode.ECB ? null : precedingBlock(regions, offset));
+            regions.read(offset, buf, len);
+            processBytes(cipher, buf, len);
+            var outlen = len;
+            if (padding != null && last) {
+                outlen -= padding.padCount(Arrays.copyOfRange(buf, len - blockSize, len));
+            }
+            regions.write(0L, buf, outlen);
+            return outlen;
+        } finally {
+            JinahyaBufferPool.getDefault().releaseArray(buf);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes specified number of bytes through specified regions; full blocks in parallel, and then the padded
+     * final block, if any.
+     *
+     * @param length  the number of input bytes.
+     * @param regions the regions of the input and the output.
+     * @return the number of output bytes.
+     * @throws IOException                if an I/O error occurs.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    private long process(final long length, final Regions regions) throws IOException, InvalidCipherTextException {
+        final long bulk;
+        if (padding == null) {
+            if (mode != Mode.CFB && length % blockSize != 0) {
+                throw new DataLengthException(
+                        "length(" + length + ") is not a multiple of the block size(" + blockSize + ")");
+            }
+            bulk = length;
+        } else if (encryption) {
+            bulk = length - length % blockSize;
+        } else {
+            if (length == 0L || length % blockSize != 0) {
+                throw new InvalidCipherTextException("last block incomplete in decryption");
+            }
+            bulk = length - blockSize;
+        }
+        // gathers IVs before any output is written; the output may overlap the input
+        final var chunks = JinahyaParallelChunks.count(bulk, chunkSize);
+        final var ivs = mode == Mode.ECB ? null : new byte[Math.toIntExact(chunks + (padding == null ? 0 : 1))][];
+        if (ivs != null) {
+            for (var i = 0; i < ivs.length; i++) {
+                final var offset = Math.min(i * (long) chunkSize, bulk);
+                ivs[i] = precedingBlock(regions, offset);
+            }
+        }
+        JinahyaParallelChunks.invoke(pool, chunks, index -> {
+            final var offset = index * chunkSize;
+            final var len = (int) Math.min(bulk - offset, chunkSize);
+            final var buf = JinahyaBufferPool.getDefault().acquireArray(len);
+            try {
+                regions.read(offset, buf, len);
+                processBytes(newChunkCipher(ivs == null ? null : ivs[(int) index]), buf, len);
+                regions.write(offset, buf, len);
+            } finally {
+                JinahyaBufferPool.getDefault().releaseArray(buf);
+            }
+        });
+        if (padding == null) {
+            return bulk;
+        }
+        final var block = new byte[blockSize];
+        final var cipher = newChunkCipher(ivs == null ? null : ivs[ivs.length - 1]);
+        if (encryption) {
+            final var remaining = (int) (length - bulk);
+            regions.read(bulk, block, remaining);
+            padding.addPadding(block, remaining);
+            processBytes(cipher, block, blockSize);
+            regions.write(bulk, block, blockSize);
+            return bulk + blockSize;
+        }
+        regions.read(bulk, block, blockSize);
+        processBytes(cipher, block, blockSize);
+        final var unpadded = blockSize - padding.padCount(block);
+        regions.write(bulk, block, unpadded);
+        return bulk + unpadded;
+    }
+
+    /**
+     * Returns the IV for a chunk starts at specified offset; the initial IV for the first chunk, or the ciphertext
+     * block preceding the chunk.
+     *
+     * @param regions the regions from which the preceding block is read.
+     * @param offset  the offset of the chunk.
+     * @return the IV for the chunk.
+     * @throws IOException if an I/O error occurs.
+     */
+    private byte[] precedingBlock(final Regions regions, final long offset) throws IOException {
+        if (offset == 0L) {
+            return iv;
+        }
+        final var block = new byte[blockSize];
+        regions.read(offset - blockSize, block, blockSize);
+        return block;
+    }
+
+    /**
+     * Returns a new cipher, initialized, for a chunk.
+     *
+     * @param iv the IV for the chunk; ignored for ECB mode.
+     * @return a new initialized cipher.
+     */
+    BlockCipher newChunkCipher(final byte[] iv) {
+        final BlockCipher cipher;
+        switch (mode) {
+            case CBC:
+                cipher = CBCBlockCipher.newInstance(newEngine());
+                break;
+            case CFB:
+                cipher = CFBBlockCipher.newInstance(newEngine(), bitBlockSize);
+                break;
+            default:
+                final var engine = newEngine();
+                engine.init(encryption, key);
+                return engine;
+        }
+        cipher.init(encryption, new ParametersWithIV(key, iv));
+        return cipher;
+    }
+
+    /**
+     * Processes, in place, specified number of bytes of specified array with specified cipher.
+     *
+     * @param cipher the cipher.
+     * @param buf    the array.
+     * @param len    the number of bytes to process; must be a multiple of the block size unless the {@code cipher}
+     *               is a {@link StreamCipher}.
+     */
+    static void processBytes(final BlockCipher cipher, final byte[] buf, final int len) {
+        if (cipher instanceof StreamCipher) {
+            ((StreamCipher) cipher).processBytes(buf, 0, len, buf, 0);
+            return;
+        }
+        final var blockSize = cipher.getBlockSize();
+        for (var i = 0; i < len; i += blockSize) {
+            cipher.processBlock(buf, i, buf, i);
+        }
+    }
+
+    private BlockCipher newEngine() {
+        return Objects.requireNonNull(engineSupplier.get(), "null engine supplied from " + engineSupplier);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends BlockCipher> engineSupplier;
+
+    private final Mode mode;
+
+    private final int bitBlockSize;
+
+    private final boolean encryption;
+
+    private final CipherParameters key;
+
+    private final byte[] iv;
+
+    private final BlockCipherPadding padding;
+
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+
+    private final int blockSize;
+}
@@ -0,0 +1,252 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferPool;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.CTRModeCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * A processor which encrypts, or decrypts, bytes in CTR mode ({@link SICBlockCipher}) in parallel.
+ * <p>
+ * The input is split into block-aligned chunks, and each chunk is processed, on a {@link ForkJoinPool}, with its own
+ * cipher whose counter is advanced to the offset of the chunk. Since CTR mode is symmetric, a single
+ * {@code process} method serves both encryption and decryption.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public class JinahyaParallelCTRProcessor {
+
+    /**
+     * The default number of bytes of each chunk. The value is {@value}.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified engine supplier and parameters, which uses the
+     * {@link ForkJoinPool#commonPool() common pool} and the {@link #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param engineSupplier a supplier for a new block cipher engine for each chunk; e.g.
+     *                       {@code AESEngine::newInstance}.
+     * @param params         the parameters, with an IV, for initializing the cipher of each chunk.
+     */
+    public JinahyaParallelCTRProcessor(final Supplier<? extends BlockCipher> engineSupplier,
+                                       final CipherParameters params) {
+        this(engineSupplier, params, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param engineSupplier a supplier for a new block cipher engine for each chunk; e.g.
+     *                       {@code AESEngine::newInstance}.
+     * @param params         the parameters, with an IV, for initializing the cipher of each chunk.
+     * @param pool           the pool on which chunks are processed.
+     * @param chunkSize      the number of bytes of each chunk; must be a positive multiple of the block size.
+     */
+    public JinahyaParallelCTRProcessor(final Supplier<? extends BlockCipher> engineSupplier,
+                                       final CipherParameters params, final ForkJoinPool pool,
+                                       final int chunkSize) {
+        super();
+        this.engineSupplier = Objects.requireNonNull(engineSupplier, "engineSupplier is null");
+        this.params = Objects.requireNonNull(params, "params is null");
+        this.pool = Objects.requireNonNull(pool, "pool is null");
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize(" + chunkSize + ") is not positive");
+        }
+        final var blockSize = newEngine().getBlockSize();
+        if (chunkSize % blockSize != 0) {
+            throw new IllegalArgumentException(
+                    "chunkSize(" + chunkSize + ") is not a multiple of the block size(" + blockSize + ")");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes bytes in specified range of specified input array, and sets processed bytes on specified output array
+     * starting at specified index. The output range may be the same as the input range.
+     *
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of bytes to process in {@code in}.
+     * @param out    the output array.
+     * @param outoff the starting index of {@code out} on which processed bytes are set.
+     * @return the number of bytes set on the {@code out}; always equals to the {@code inlen}.
+     */
+    public int process(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        Objects.requireNonNull(in, "in is null");
+        if (inoff < 0) {
+            throw new IllegalArgumentException("inoff(" + inoff + ") is negative");
+        }
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        if (inoff + inlen > in.length) {
+            throw new IllegalArgumentException(
+                    "inoff(" + inoff + ") + inlen(" + inlen + ") > in.length(" + in.length + ")");
+        }
+        Objects.requireNonNull(out, "out is null");
+        if (outoff < 0) {
+            throw new IllegalArgumentException("outoff(" + outoff + ") is negative");
+        }
+        if (outoff + inlen > out.length) {
+            throw new IllegalArgumentException(
+                    "outoff(" + outoff + ") + inlen(" + inlen + ") > out.length(" + out.length + ")");
+        }
+        invoke(JinahyaParallelChunks.count(inlen, chunkSize), index -> {
+            final var offset = (int) index * chunkSize;
+            final var length = Math.min(inlen - offset, chunkSize);
+            newCipher(offset).processBytes(in, inoff + offset, length, out, outoff + offset);
+        });
+        return inlen;
+    }
+
+    /**
+     * Processes specified input bytes, and returns the result.
+     *
+     * @param in the input bytes.
+     * @return an array of processed bytes.
+     */
+    public byte[] process(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var out = new byte[in.length];
+        process(in, 0, in.length, out, 0);
+        return out;
+    }
+
+    /**
+     * Processes all remaining bytes of specified input buffer, and puts processed bytes to specified output buffer.
+     * Neither buffer is modified when the {@code output} has not enough room for the result.
+     *
+     * @param input  the input buffer whose remaining bytes are processed.
+     * @param output the output buffer onto which processed bytes are put.
+     * @return the number of bytes put on the {@code output}.
+     * @throws BufferOverflowException if {@code output} has not enough remaining bytes.
+     */
+    public int process(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inlen = input.remaining();
+        if (output.remaining() < inlen) {
+            throw new BufferOverflowException();
+        }
+        if (input.hasArray() && output.hasArray()) {
+            process(input.array(), input.arrayOffset() + input.position(), inlen,
+                    output.array(), output.arrayOffset() + output.position());
+        } else {
+            final var inpos = input.position();
+            final var outpos = output.position();
+            invoke(JinahyaParallelChunks.count(inlen, chunkSize), index -> {
+                final var offset = (int) index * chunkSize;
+                final var length = Math.min(inlen - offset, chunkSize);
+                final var buf = JinahyaBufferPool.getDefault().acquireArray(length);
+                try {
+                    input.duplicate().position(inpos + offset).get(buf, 0, length);
+                    newCipher(offset).processBytes(buf, 0, length, buf, 0);
+                    output.duplicate().position(outpos + offset).put(buf, 0, length);
+                } finally {
+                    JinahyaBufferPool.getDefault().releaseArray(buf);
+                }
+            });
+        }
+        input.position(input.position() + inlen);
+        output.position(output.position() + inlen);
+        return inlen;
+    }
+
+    /**
+     * Processes all bytes of specified source file, and writes processed bytes to specified target file. Each chunk of
+     * the source file is mapped into memory, and written to the target file at the same position.
+     *
+     * @param source the source file.
+     * @param target the target file; must not be the same file as the {@code source}.
+     * @return the number of bytes written to the {@code target}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long process(final Path source, final Path target) throws IOException {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("source(" + source + ") and target(" + target + ") are the same");
+        }
+        try (var sc = FileChannel.open(source, StandardOpenOption.READ);
+             var tc = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var size = sc.size();
+            invokeIo(JinahyaParallelChunks.count(size, chunkSize), index -> {
+                final var offset = index * chunkSize;
+                final var length = (int) Math.min(size - offset, chunkSize);
+                final var buf = JinahyaBufferPool.getDefault().acquireArray(length);
+                try {
+                    sc.map(FileChannel.MapMode.READ_ONLY, offset, length).get(buf, 0, length);
+                    newCipher(offset).processBytes(buf, 0, length, buf, 0);
+                    for (final var buffer = ByteBuffer.wrap(buf, 0, length); buffer.hasRemaining(); ) {
+                        tc.write(buffer, offset + buffer.position());
+                    }
+                } finally {
+                    JinahyaBufferPool.getDefault().releaseArray(buf);
+                }
+            });
+            return size;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void invoke(final long chunks, final JinahyaParallelChunks.ChunkConsumer consumer) {
+        try {
+            invokeIo(chunks, consumer);
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected I/O error", ioe);
+        }
+    }
+
+    private void invokeIo(final long chunks, final JinahyaParallelChunks.ChunkConsumer consumer) throws IOException {
+        try {
+            JinahyaParallelChunks.invoke(pool, chunks, consumer);
+        } catch (final InvalidCipherTextException icte) {
+            throw new AssertionError("unexpected invalid cipher text", icte);
+        }
+    }
+
+    private BlockCipher newEngine() {
+        return Objects.requireNonNull(engineSupplier.get(), "null engine supplied from " + engineSupplier);
+    }
+
+    /**
+     * Returns a new cipher, initialized, whose counter is advanced to specified offset.
+     *
+     * @param offset the offset, in bytes, of the keystream.
+     * @return a new cipher positioned at the {@code offset}.
+     */
+    private CTRModeCipher newCipher(final long offset) {
+        final var cipher = SICBlockCipher.newInstance(newEngine());
+        cipher.init(true, params);
+        cipher.seekTo(offset);
+        return cipher;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends BlockCipher> engineSupplier;
+
+    private final CipherParameters params;
+
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+}
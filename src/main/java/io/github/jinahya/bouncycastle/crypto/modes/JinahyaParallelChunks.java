@@ -0,0 +1,136 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A utility class for processing chunks in parallel on a {@link ForkJoinPool}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+final class JinahyaParallelChunks {
+
+    /**
+     * A consumer of chunk indices.
+     */
+    @FunctionalInterface
+    interface ChunkConsumer {
+
+        /**
+         * Processes a chunk of specified index.
+         *
+         * @param index the index of the chunk.
+         * @throws IOException                if an I/O error occurs.
+         * @throws InvalidCipherTextException if the chunk is not valid.
+         */
+        void accept(long index) throws IOException, InvalidCipherTextException;
+    }
+
+    /**
+     * An unchecked exception which carries an {@link InvalidCipherTextException} out of a task.
+     */
+    private static final class UncheckedInvalidCipherTextException
+            extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private UncheckedInvalidCipherTextException(final InvalidCipherTextException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized InvalidCipherTextException getCause() {
+            return (InvalidCipherTextException) super.getCause();
+        }
+    }
+
+    /**
+     * A task which splits a range of chunk indices in halves until a single chunk remains.
+     */
+    private static final class ChunkAction
+            extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private ChunkAction(final ChunkConsumer consumer, final long from, final long to) {
+            super();
+            this.consumer = consumer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1L) {
+                try {
+                    consumer.accept(from);
+                } catch (final IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                } catch (final InvalidCipherTextException icte) {
+                    throw new UncheckedInvalidCipherTextException(icte);
+                }
+                return;
+            }
+            final var middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(consumer, from, middle), new ChunkAction(consumer, middle, to));
+        }
+
+        private final transient ChunkConsumer consumer;
+
+        private final long from;
+
+        private final long to;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of chunks of specified size for specified total length.
+     *
+     * @param length    the total length.
+     * @param chunkSize the size of each chunk.
+     * @return the number of chunks.
+     */
+    static long count(final long length, final int chunkSize) {
+        return (length + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * Invokes, on specified pool, specified consumer with each index of specified number of chunks, and waits for all
+     * of them to complete.
+     *
+     * @param pool     the pool.
+     * @param chunks   the number of chunks.
+     * @param consumer the consumer.
+     * @throws IOException                if an I/O error occurs while processing any chunk.
+     * @throws InvalidCipherTextException if any chunk is not valid.
+     */
+    static void invoke(final ForkJoinPool pool, final long chunks, final ChunkConsumer consumer)
+            throws IOException, InvalidCipherTextException {
+        Objects.requireNonNull(pool, "pool is null");
+        if (chunks < 0L) {
+            throw new IllegalArgumentException("chunks(" + chunks + ") is negative");
+        }
+        Objects.requireNonNull(consumer, "consumer is null");
+        if (chunks == 0L) {
+            return;
+        }
+        try {
+            pool.invoke(new ChunkAction(consumer, 0L, chunks));
+        } catch (final UncheckedIOException uioe) {
+            throw uioe.getCause();
+        } catch (final UncheckedInvalidCipherTextException uicte) {
+            throw uicte.getCause();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaParallelChunks() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
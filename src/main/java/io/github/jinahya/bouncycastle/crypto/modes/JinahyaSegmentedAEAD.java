@@ -0,0 +1,648 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferPool;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * A segmented streaming AEAD format built on {@link AEADCipher}s.
+ * <p>
+ * A message consists of a header followed by one, or more, segments.
+ * <pre>
+ * message := header segment* last-segment
+ * header  := version(1) segment-size(4, big-endian) prefix-length(1) nonce-prefix(prefix-length)
+ * segment := ciphertext(segment-size - tag-length) tag(tag-length)
+ * </pre>
+ * Each segment is encrypted with its own nonce, {@code nonce-prefix || segment-index(4, big-endian) ||
+ * last-flag(1)}, and with the header as the associated text, so that segments can be neither reordered, nor truncated,
+ * nor moved between messages. Every segment but the last one has exactly {@code segment-size} bytes. Since the header
+ * is not verified until the first segment is, a message whose {@code segment-size} differs from the configured one is
+ * rejected before any buffer is sized with it.
+ * <p>
+ * Since segments are independent of each other, messages are encrypted, and decrypted, in parallel, each segment is
+ * verified, and released, on its own, and any segment is readable by its offset.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaSegmentedAEADOutputStream
+ * @see JinahyaSegmentedAEADInputStream
+ */
+public class JinahyaSegmentedAEAD {
+
+    /**
+     * The version of the format. The value is {@value}.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The default number of bytes of each segment, including its tag. The value is {@value}.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+    /**
+     * The default size of authentication tags, in bits. The value is {@value}.
+     */
+    public static final int DEFAULT_MAC_SIZE = 128;
+
+    /**
+     * The default number of bytes of nonces. The value is {@value}.
+     */
+    public static final int DEFAULT_NONCE_LENGTH = 12;
+
+    // number of bytes of the segment index and the last-flag in each nonce
+    private static final int NONCE_SUFFIX_LENGTH = Integer.BYTES + 1;
+
+    // number of bytes of the header without the nonce prefix
+    private static final int HEADER_FIXED_LENGTH = 1 + Integer.BYTES + 1;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A parsed header.
+     */
+    static final class Header {
+
+        private Header(final int segmentSize, final byte[] prefix) {
+            super();
+            this.segmentSize = segmentSize;
+            this.prefix = prefix;
+            bytes = ByteBuffer.allocate(HEADER_FIXED_LENGTH + prefix.length)
+                    .put((byte) VERSION)
+                    .putInt(segmentSize)
+                    .put((byte) prefix.length)
+                    .put(prefix)
+                    .array();
+        }
+
+        final int segmentSize;
+
+        final byte[] prefix;
+
+        final byte[] bytes;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified cipher supplier and key, which uses the {@link #DEFAULT_MAC_SIZE}, the
+     * {@link #DEFAULT_NONCE_LENGTH}, the {@link #DEFAULT_SEGMENT_SIZE}, and the
+     * {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param cipherSupplier a supplier for a new AEAD cipher; e.g.
+     *                       {@code () -> GCMBlockCipher.newInstance(AESEngine.newInstance())}.
+     * @param key            the key.
+     */
+    public JinahyaSegmentedAEAD(final Supplier<? extends AEADCipher> cipherSupplier, final KeyParameter key) {
+        this(cipherSupplier, key, DEFAULT_MAC_SIZE, DEFAULT_NONCE_LENGTH, DEFAULT_SEGMENT_SIZE,
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param cipherSupplier a supplier for a new AEAD cipher; e.g.
+     *                       {@code () -> GCMBlockCipher.newInstance(AESEngine.newInstance())}.
+     * @param key            the key.
+     * @param macSize        the size of authentication tags, in bits.
+     * @param nonceLength    the number of bytes of nonces; must be greater than {@code 5}.
+     * @param segmentSize    the number of bytes of each segment, including its tag, of messages to encrypt; messages
+     *                       to decrypt are required to have the same segment size.
+     * @param pool           the pool on which segments are processed in parallel.
+     */
+    public JinahyaSegmentedAEAD(final Supplier<? extends AEADCipher> cipherSupplier, final KeyParameter key,
+                                final int macSize, final int nonceLength, final int segmentSize,
+                                final ForkJoinPool pool) {
+        super();
+        this.cipherSupplier = Objects.requireNonNull(cipherSupplier, "cipherSupplier is null");
+        this.key = Objects.requireNonNull(key, "key is null");
+        if (macSize <= 0 || macSize % Byte.SIZE != 0) {
+            throw new IllegalArgumentException("macSize(" + macSize + ") is not a positive multiple of 8");
+        }
+        this.macSize = macSize;
+        if (nonceLength <= NONCE_SUFFIX_LENGTH || nonceLength - NONCE_SUFFIX_LENGTH > 0xFF) {
+            throw new IllegalArgumentException("invalid nonceLength(" + nonceLength + ")");
+        }
+        this.nonceLength = nonceLength;
+        if (segmentSize <= macSize / Byte.SIZE) {
+            throw new IllegalArgumentException(
+                    "segmentSize(" + segmentSize + ") <= tag length(" + macSize / Byte.SIZE + ")");
+        }
+        this.segmentSize = segmentSize;
+        this.pool = Objects.requireNonNull(pool, "pool is null");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of bytes of each authentication tag.
+     *
+     * @return the number of bytes of each authentication tag.
+     */
+    public int getTagLength() {
+        return macSize / Byte.SIZE;
+    }
+
+    /**
+     * Returns the number of ciphertext bytes for encrypting specified number of plaintext bytes.
+     *
+     * @param plaintextSize the number of plaintext bytes.
+     * @return the number of ciphertext bytes, including the header.
+     */
+    public long getCiphertextSize(final long plaintextSize) {
+        if (plaintextSize < 0L) {
+            throw new IllegalArgumentException("plaintextSize(" + plaintextSize + ") is negative");
+        }
+        final var segments = Math.max(1L, JinahyaParallelChunks.count(plaintextSize, segmentSize - getTagLength()));
+        return getHeaderLength() + plaintextSize + segments * getTagLength();
+    }
+
+    /**
+     * Returns the number of plaintext bytes of specified file of a message.
+     *
+     * @param channel the channel of the file.
+     * @return the number of plaintext bytes.
+     * @throws IOException if an I/O error occurs, or the header is not valid.
+     */
+    public long getPlaintextSize(final FileChannel channel) throws IOException {
+        Objects.requireNonNull(channel, "channel is null");
+        final var header = readHeader(channel);
+        return plaintextSize(header, channel.size() - header.bytes.length);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- header
+    int getHeaderLength() {
+        return HEADER_FIXED_LENGTH + nonceLength - NONCE_SUFFIX_LENGTH;
+    }
+
+    /**
+     * Returns a new header with a random nonce prefix.
+     *
+     * @return a new header.
+     */
+    Header newHeader() {
+        final var prefix = new byte[nonceLength - NONCE_SUFFIX_LENGTH];
+        RANDOM.nextBytes(prefix);
+        return new Header(segmentSize, prefix);
+    }
+
+    private Header parseHeader(final byte[] fixed, final byte[] prefix) throws IOException {
+        if (fixed[0] != VERSION) {
+            throw new IOException("unsupported version: " + fixed[0]);
+        }
+        // the header is authenticated only with the first segment; never size buffers with an unverified value
+        final var segmentSize = ByteBuffer.wrap(fixed, 1, Integer.BYTES).getInt();
+        if (segmentSize != this.segmentSize) {
+            throw new IOException("segment size(" + segmentSize + ") != expected(" + this.segmentSize + ")");
+        }
+        return new Header(segmentSize, prefix);
+    }
+
+    private int prefixLength(final byte[] fixed) throws IOException {
+        final var prefixLength = fixed[HEADER_FIXED_LENGTH - 1] & 0xFF;
+        if (prefixLength != nonceLength - NONCE_SUFFIX_LENGTH) {
+            throw new IOException("invalid nonce prefix length: " + prefixLength);
+        }
+        return prefixLength;
+    }
+
+    Header readHeader(final byte[] in, final int inoff, final int inlen) throws IOException {
+        if (inlen < HEADER_FIXED_LENGTH) {
+            throw new EOFException("incomplete header");
+        }
+        final var fixed = Arrays.copyOfRange(in, inoff, inoff + HEADER_FIXED_LENGTH);
+        final var prefixLength = prefixLength(fixed);
+        if (inlen < HEADER_FIXED_LENGTH + prefixLength) {
+            throw new EOFException("incomplete header");
+        }
+        return parseHeader(fixed, Arrays.copyOfRange(
+                in, inoff + HEADER_FIXED_LENGTH, inoff + HEADER_FIXED_LENGTH + prefixLength));
+    }
+
+    Header readHeader(final InputStream in) throws IOException {
+        final var fixed = new byte[HEADER_FIXED_LENGTH];
+        readFully(in, fixed, 0, fixed.length);
+        final var prefix = new byte[prefixLength(fixed)];
+        readFully(in, prefix, 0, prefix.length);
+        return parseHeader(fixed, prefix);
+    }
+
+    Header readHeader(final FileChannel channel) throws IOException {
+        final var fixed = new byte[HEADER_FIXED_LENGTH];
+        readFully(channel, 0L, fixed, fixed.length);
+        final var prefix = new byte[prefixLength(fixed)];
+        readFully(channel, HEADER_FIXED_LENGTH, prefix, prefix.length);
+        return parseHeader(fixed, prefix);
+    }
+
+    /**
+     * Returns the number of segments of specified number of body bytes, which follow the header.
+     *
+     * @param header the header.
+     * @param body   the number of body bytes.
+     * @return the number of segments.
+     * @throws IOException if the {@code body} is not valid.
+     */
+    long segmentCount(final Header header, final long body) throws IOException {
+        final var segments = JinahyaParallelChunks.count(body, header.segmentSize);
+        if (segments == 0L || body - (segments - 1) * header.segmentSize < getTagLength()) {
+            throw new EOFException("incomplete segment");
+        }
+        if (segments - 1 > Integer.MAX_VALUE) {
+            throw new IOException("too many segments: " + segments);
+        }
+        return segments;
+    }
+
+    private long plaintextSize(final Header header, final long body) throws IOException {
+        return body - segmentCount(header, body) * getTagLength();
+    }
+
+    // --------------------------------------------------------------------------------------------------------- segment
+    AEADCipher newCipher() {
+        return Objects.requireNonNull(cipherSupplier.get(), "null cipher supplied from " + cipherSupplier);
+    }
+
+    private AEADParameters segmentParameters(final Header header, final long index, final boolean last) {
+        final var nonce = ByteBuffer.allocate(nonceLength)
+                .put(header.prefix)
+                .putInt((int) index)
+                .put((byte) (last ? 1 : 0))
+                .array();
+        return new AEADParameters(key, macSize, nonce, header.bytes);
+    }
+
+    /**
+     * Encrypts a segment.
+     *
+     * @param cipher the cipher to use.
+     * @param header the header of the message.
+     * @param index  the index of the segment.
+     * @param last   a flag for the last segment.
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of plaintext bytes of the segment.
+     * @param out    the output array.
+     * @param outoff the starting index of {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     */
+    int encryptSegment(final AEADCipher cipher, final Header header, final long index, final boolean last,
+                       final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        cipher.init(true, segmentParameters(header, index, last));
+        try {
+            return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff);
+        } catch (final InvalidCipherTextException icte) {
+            throw new IllegalStateException("failed to encrypt segment " + index, icte);
+        }
+    }
+
+    /**
+     * Decrypts, and verifies, a segment.
+     *
+     * @param cipher the cipher to use.
+     * @param header the header of the message.
+     * @param index  the index of the segment.
+     * @param last   a flag for the last segment.
+     * @param in     the input array.
+     * @param inoff  a starting index of {@code in}.
+     * @param inlen  number of ciphertext bytes of the segment, including the tag.
+     * @param out    the output array.
+     * @param outoff the starting index of {@code out}.
+     * @return the number of bytes set on the {@code out}.
+     * @throws InvalidCipherTextException if the segment failed to verify.
+     */
+    int decryptSegment(final AEADCipher cipher, final Header header, final long index, final boolean last,
+                       final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff)
+            throws InvalidCipherTextException {
+        cipher.init(false, segmentParameters(header, index, last));
+        return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff);
+    }
+
+    // ------------------------------------------------------------------------------------------------------- byte[]
+
+    /**
+     * Encrypts, in parallel, specified plaintext bytes into a message.
+     *
+     * @param in the plaintext bytes.
+     * @return an array of the message.
+     */
+    public byte[] encrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var header = newHeader();
+        final var out = new byte[Math.toIntExact(getCiphertextSize(in.length))];
+        System.arraycopy(header.bytes, 0, out, 0, header.bytes.length);
+        final var plainSegmentSize = segmentSize - getTagLength();
+        final var segments = Math.max(1L, JinahyaParallelChunks.count(in.length, plainSegmentSize));
+        invoke(segments, index -> {
+            final var inoff = (int) index * plainSegmentSize;
+            final var outoff = header.bytes.length + (int) index * segmentSize;
+            final var inlen = Math.min(in.length - inoff, plainSegmentSize);
+            encryptSegment(newCipher(), header, index, index == segments - 1, in, inoff, inlen, out, outoff);
+        });
+        return out;
+    }
+
+    /**
+     * Decrypts, and verifies, in parallel, specified message.
+     *
+     * @param in the message.
+     * @return an array of the plaintext bytes.
+     * @throws InvalidCipherTextException if the message is malformed, or any segment failed to verify.
+     */
+    public byte[] decrypt(final byte[] in) throws InvalidCipherTextException {
+        Objects.requireNonNull(in, "in is null");
+        final Header header;
+        final long segments;
+        try {
+            header = readHeader(in, 0, in.length);
+            segments = segmentCount(header, in.length - header.bytes.length);
+        } catch (final IOException ioe) {
+            throw new InvalidCipherTextException("malformed message", ioe);
+        }
+        final var body = in.length - header.bytes.length;
+        final var out = new byte[(int) (body - segments * getTagLength())];
+        final var plainSegmentSize = header.segmentSize - getTagLength();
+        try {
+            JinahyaParallelChunks.invoke(pool, segments, index -> {
+                final var inoff = header.bytes.length + (int) index * header.segmentSize;
+                final var inlen = Math.min(in.length - inoff, header.segmentSize);
+                final var outoff = (int) index * plainSegmentSize;
+                decryptSegment(newCipher(), header, index, index == segments - 1, in, inoff, inlen, out, outoff);
+            });
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected I/O error", ioe);
+        }
+        return out;
+    }
+
+    // ------------------------------------------------------------------------------------------------------------ file
+
+    /**
+     * Encrypts, in parallel, all bytes of specified source file into a message written to specified target file.
+     *
+     * @param source the source file.
+     * @param target the target file; must not be the same file as the {@code source}.
+     * @return the number of bytes written to the {@code target}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long encrypt(final Path source, final Path target) throws IOException {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("source(" + source + ") and target(" + target + ") are the same");
+        }
+        try (var sc = FileChannel.open(source, StandardOpenOption.READ);
+             var tc = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var size = sc.size();
+            final var plainSegmentSize = segmentSize - getTagLength();
+            final var segments = Math.max(1L, JinahyaParallelChunks.count(size, plainSegmentSize));
+            if (segments - 1 > Integer.MAX_VALUE) {
+                throw new IOException("too many segments: " + segments);
+            }
+            final var header = newHeader();
+            writeFully(tc, 0L, header.bytes, header.bytes.length);
+            invokeIo(segments, index -> {
+                final var offset = index * plainSegmentSize;
+                final var inlen = (int) Math.min(size - offset, plainSegmentSize);
+                final var buffers = JinahyaBufferPool.getDefault();
+                final var inbuf = buffers.acquireArray(inlen);
+                final var outbuf = buffers.acquireArray(segmentSize);
+                try {
+                    if (inlen > 0) {
+                        sc.map(FileChannel.MapMode.READ_ONLY, offset, inlen).get(inbuf, 0, inlen);
+                    }
+                    final var outlen = encryptSegment(
+                            newCipher(), header, index, index == segments - 1, inbuf, 0, inlen, outbuf, 0);
+                    writeFully(tc, header.bytes.length + index * segmentSize, outbuf, outlen);
+                } finally {
+                    buffers.releaseArray(inbuf);
+                    buffers.releaseArray(outbuf);
+                }
+            });
+            return getCiphertextSize(size);
+        }
+    }
+
+    /**
+     * Decrypts, and verifies, in parallel, a message of specified source file, and writes plaintext bytes to
+     * specified target file.
+     * <p>
+     * Segments are decrypted into a temporary file in the directory of the {@code target}, which is moved to the
+     * {@code target} only when all segments are verified; on any failure, the temporary file is deleted and the
+     * {@code target} is left untouched, so that no partial, or hole-filled, plaintext is ever visible.
+     *
+     * @param source the source file.
+     * @param target the target file; must not be the same file as the {@code source}.
+     * @return the number of bytes written to the {@code target}.
+     * @throws IOException                if an I/O error occurs, or the message is malformed.
+     * @throws InvalidCipherTextException if any segment failed to verify.
+     */
+    public long decrypt(final Path source, final Path target) throws IOException, InvalidCipherTextException {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            throw new IllegalArgumentException("source(" + source + ") and target(" + target + ") are the same");
+        }
+        final var directory = target.toAbsolutePath().getParent();
+        final var temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            final long written;
+            try (var sc = FileChannel.open(source, StandardOpenOption.READ);
+                 var tc = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                final var size = sc.size();
+                final var header = readHeader(sc);
+                final var segments = segmentCount(header, size - header.bytes.length);
+                final var plainSegmentSize = header.segmentSize - getTagLength();
+                JinahyaParallelChunks.invoke(pool, segments, index -> {
+                    final var offset = header.bytes.length + index * header.segmentSize;
+                    final var inlen = (int) Math.min(size - offset, header.segmentSize);
+                    final var buffers = JinahyaBufferPool.getDefault();
+                    final var inbuf = buffers.acquireArray(inlen);
+                    final var outbuf = buffers.acquireArray(inlen);
+                    try {
+                        sc.map(FileChannel.MapMode.READ_ONLY, offset, inlen).get(inbuf, 0, inlen);
+                        final var outlen = decryptSegment(
+                                newCipher(), header, index, index == segments - 1, inbuf, 0, inlen, outbuf, 0);
+                        writeFully(tc, index * plainSegmentSize, outbuf, outlen);
+                    } finally {
+                        buffers.releaseArray(inbuf);
+                        buffers.releaseArray(outbuf);
+                    }
+                });
+                written = plaintextSize(header, size - header.bytes.length);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException amnse) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return written;
+        } catch (final IOException | InvalidCipherTextException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (final IOException ioe) {
+                e.addSuppressed(ioe);
+            }
+            throw e;
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------------- random access
+
+    /**
+     * Reads, decrypting, and verifying, only the segments covering the range, plaintext bytes of a message of
+     * specified file, starting at specified plaintext position, into specified buffer.
+     *
+     * @param channel  the channel of the file.
+     * @param position the plaintext position from which bytes are read.
+     * @param dst      the buffer into which plaintext bytes are put.
+     * @return the number of bytes put on the {@code dst}; {@code -1} if the {@code position} is not less than the
+     * plaintext size.
+     * @throws IOException                if an I/O error occurs, or the message is malformed.
+     * @throws InvalidCipherTextException if any segment failed to verify.
+     */
+    public int read(final FileChannel channel, long position, final ByteBuffer dst)
+            throws IOException, InvalidCipherTextException {
+        Objects.requireNonNull(channel, "channel is null");
+        if (position < 0L) {
+            throw new IllegalArgumentException("position(" + position + ") is negative");
+        }
+        Objects.requireNonNull(dst, "dst is null");
+        final var header = readHeader(channel);
+        final var size = channel.size();
+        final var body = size - header.bytes.length;
+        final var segments = segmentCount(header, body);
+        final var plaintextSize = body - segments * getTagLength();
+        if (position >= plaintextSize) {
+            return -1;
+        }
+        final var plainSegmentSize = header.segmentSize - getTagLength();
+        final var buffers = JinahyaBufferPool.getDefault();
+        final var inbuf = buffers.acquireArray(header.segmentSize);
+        final var outbuf = buffers.acquireArray(header.segmentSize);
+        try {
+            final var cipher = newCipher();
+            var read = 0;
+            while (dst.hasRemaining() && position < plaintextSize) {
+                final var index = position / plainSegmentSize;
+                final var offset = header.bytes.length + index * header.segmentSize;
+                final var inlen = (int) Math.min(size - offset, header.segmentSize);
+                readFully(channel, offset, inbuf, inlen);
+                final var outlen = decryptSegment(
+                        cipher, header, index, index == segments - 1, inbuf, 0, inlen, outbuf, 0);
+                final var skip = (int) (position - index * plainSegmentSize);
+                final var length = Math.min(dst.remaining(), outlen - skip);
+                dst.put(outbuf, skip, length);
+                position += length;
+                read += length;
+            }
+            return read;
+        } finally {
+            buffers.releaseArray(inbuf);
+            buffers.releaseArray(outbuf);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- stream
+
+    /**
+     * Returns a new output stream which encrypts bytes into a message written to specified output stream.
+     *
+     * @param out the output stream to which the message is written.
+     * @return a new output stream.
+     */
+    public JinahyaSegmentedAEADOutputStream newOutputStream(final OutputStream out) {
+        return new JinahyaSegmentedAEADOutputStream(this, out);
+    }
+
+    /**
+     * Returns a new input stream which reads, decrypts, and verifies, a message from specified input stream, releasing
+     * plaintext segment by segment.
+     *
+     * @param in the input stream from which the message is read.
+     * @return a new input stream.
+     */
+    public JinahyaSegmentedAEADInputStream newInputStream(final InputStream in) {
+        return new JinahyaSegmentedAEADInputStream(this, in);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    int getSegmentSize() {
+        return segmentSize;
+    }
+
+    private void invoke(final long segments, final JinahyaParallelChunks.ChunkConsumer consumer) {
+        try {
+            invokeIo(segments, consumer);
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected I/O error", ioe);
+        }
+    }
+
+    private void invokeIo(final long segments, final JinahyaParallelChunks.ChunkConsumer consumer)
+            throws IOException {
+        try {
+            JinahyaParallelChunks.invoke(pool, segments, consumer);
+        } catch (final InvalidCipherTextException icte) {
+            throw new AssertionError("unexpected invalid cipher text", icte);
+        }
+    }
+
+    static void readFully(final InputStream in, final byte[] buf, final int off, final int len)
+            throws IOException {
+        for (int n = 0, r; n < len; n += r) {
+            if ((r = in.read(buf, off + n, len - n)) == -1) {
+                throw new EOFException("unexpected end of stream");
+            }
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final long position, final byte[] buf, final int len)
+            throws IOException {
+        for (final var buffer = ByteBuffer.wrap(buf, 0, len); buffer.hasRemaining(); ) {
+            if (channel.read(buffer, position + buffer.position()) == -1) {
+                throw new EOFException("unexpected end of file");
+            }
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final long position, final byte[] buf, final int len)
+            throws IOException {
+        for (final var buffer = ByteBuffer.wrap(buf, 0, len); buffer.hasRemaining(); ) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends AEADCipher> cipherSupplier;
+
+    private final KeyParameter key;
+
+    private final int macSize;
+
+    private final int nonceLength;
+
+    private final int segmentSize;
+
+    private final ForkJoinPool pool;
+}
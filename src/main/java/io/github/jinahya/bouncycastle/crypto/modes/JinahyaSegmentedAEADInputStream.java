@@ -0,0 +1,173 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.AEADCipher;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An input stream which reads, decrypts, and verifies, a message of {@link JinahyaSegmentedAEAD}. Plaintext bytes are
+ * released segment by segment, each only after its tag has been verified.
+ * <p>
+ * A {@link JinahyaCryptoException} is thrown from {@code read} methods when a segment failed to verify.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaSegmentedAEAD#newInputStream(InputStream)
+ * @see JinahyaSegmentedAEADOutputStream
+ */
+public class JinahyaSegmentedAEADInputStream
+        extends FilterInputStream {
+
+    JinahyaSegmentedAEADInputStream(final JinahyaSegmentedAEAD aead, final InputStream in) {
+        super(Objects.requireNonNull(in, "in is null"));
+        this.aead = Objects.requireNonNull(aead, "aead is null");
+        cipher = aead.newCipher();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return plainbuf[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, Objects.requireNonNull(b, "b is null").length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        final var n = Math.min(len, lim - pos);
+        System.arraycopy(plainbuf, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        var skipped = 0L;
+        while (skipped < n && fill()) {
+            final var s = (int) Math.min(n - skipped, lim - pos);
+            pos += s;
+            skipped += s;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return lim - pos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (plainbuf != null) {
+                Arrays.fill(plainbuf, (byte) 0);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+    }
+
+    /**
+     * Makes sure that some verified plaintext bytes are available.
+     *
+     * @return {@code true} if some plaintext bytes are available; {@code false} if the end of the message is reached.
+     * @throws IOException if an I/O error occurs, or the message is malformed.
+     */
+    private boolean fill() throws IOException {
+        ensureOpen();
+        while (pos == lim) {
+            if (done) {
+                return false;
+            }
+            readSegment();
+        }
+        return true;
+    }
+
+    private void readSegment() throws IOException {
+        if (header == null) {
+            header = aead.readHeader(in);
+            inbuf = new byte[header.segmentSize + 1]; // + one byte of lookahead for detecting the last segment
+            plainbuf = new byte[header.segmentSize];
+        }
+        var n = carry;
+        for (int r; n < inbuf.length && (r = in.read(inbuf, n, inbuf.length - n)) != -1; ) {
+            n += r;
+        }
+        final var last = n <= header.segmentSize;
+        final var inlen = last ? n : header.segmentSize;
+        if (inlen < aead.getTagLength()) {
+            throw new EOFException("incomplete segment");
+        }
+        if (index > Integer.MAX_VALUE) {
+            throw new IOException("too many segments");
+        }
+        try {
+            lim = aead.decryptSegment(cipher, header, index, last, inbuf, 0, inlen, plainbuf, 0);
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+        pos = 0;
+        index++;
+        if (last) {
+            done = true;
+        } else {
+            inbuf[0] = inbuf[header.segmentSize];
+            carry = 1;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final JinahyaSegmentedAEAD aead;
+
+    private final AEADCipher cipher;
+
+    private JinahyaSegmentedAEAD.Header header;
+
+    private byte[] inbuf;
+
+    private byte[] plainbuf;
+
+    private int carry;
+
+    private int pos;
+
+    private int lim;
+
+    private long index;
+
+    private boolean done;
+
+    private boolean closed;
+}
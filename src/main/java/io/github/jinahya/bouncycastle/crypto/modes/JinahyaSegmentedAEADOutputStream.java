@@ -0,0 +1,123 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import org.bouncycastle.crypto.modes.AEADCipher;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An output stream which encrypts bytes into a message of {@link JinahyaSegmentedAEAD}. A segment is written whenever
+ * it is full, and more bytes follow; the last segment is written when the stream is {@link #close() closed}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaSegmentedAEAD#newOutputStream(OutputStream)
+ * @see JinahyaSegmentedAEADInputStream
+ */
+public class JinahyaSegmentedAEADOutputStream
+        extends FilterOutputStream {
+
+    JinahyaSegmentedAEADOutputStream(final JinahyaSegmentedAEAD aead, final OutputStream out) {
+        super(Objects.requireNonNull(out, "out is null"));
+        this.aead = Objects.requireNonNull(aead, "aead is null");
+        header = aead.newHeader();
+        cipher = aead.newCipher();
+        plainbuf = new byte[aead.getSegmentSize() - aead.getTagLength()];
+        outbuf = new byte[aead.getSegmentSize()];
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        if (count == plainbuf.length) {
+            writeSegment(false);
+        }
+        plainbuf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, Objects.requireNonNull(b, "b is null").length);
+        ensureOpen();
+        while (len > 0) {
+            if (count == plainbuf.length) {
+                writeSegment(false);
+            }
+            final var n = Math.min(len, plainbuf.length - count);
+            System.arraycopy(b, off, plainbuf, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Flushes the underlying output stream. Note that bytes of an incomplete segment are not written until the
+     * segment is full, or this stream is closed.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes the last segment, and closes the underlying output stream.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeSegment(true);
+            out.flush();
+        } finally {
+            Arrays.fill(plainbuf, (byte) 0);
+            out.close();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+    }
+
+    private void writeSegment(final boolean last) throws IOException {
+        if (index > Integer.MAX_VALUE) {
+            throw new IOException("too many segments");
+        }
+        if (index == 0L) {
+            out.write(header.bytes);
+        }
+        final var outlen = aead.encryptSegment(cipher, header, index++, last, plainbuf, 0, count, outbuf, 0);
+        out.write(outbuf, 0, outlen);
+        count = 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final JinahyaSegmentedAEAD aead;
+
+    private final JinahyaSegmentedAEAD.Header header;
+
+    private final AEADCipher cipher;
+
+    private final byte[] plainbuf;
+
+    private final byte[] outbuf;
+
+    private int count;
+
+    private long index;
+
+    private boolean closed;
+}
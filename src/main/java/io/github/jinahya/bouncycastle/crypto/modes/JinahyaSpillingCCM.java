@@ -0,0 +1,456 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaScratchBuffers;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A CCM, as specified in NIST SP 800-38C, for streams, whose memory usage is bounded by a configurable threshold.
+ * <p>
+ * Since the length of the payload is authenticated ahead of the payload itself, the {@link CCMBlockCipher} buffers
+ * whole messages on the heap. An instance of this class, instead, reads up to {@link #getThreshold() threshold} bytes
+ * of a message into memory, and spills the message to a temporary file once the message turns out to be longer.
+ * <p>
+ * A message to encrypt is spilled as it is encrypted with the counter, whose blocks don't depend on the length of the
+ * message; then the spilled bytes are written, and are decrypted in memory for the CBC-MAC, in a second pass. A
+ * message to decrypt, which is already encrypted, is spilled as it is; then the message is decrypted in two passes;
+ * the first one verifies the tag, and the second one writes plaintext bytes, so that no unverified plaintext is ever
+ * released. Either way, only encrypted bytes are written to the temporary file; which is deleted once processed.
+ * <p>
+ * Messages are compatible with those of the {@link CCMBlockCipher}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see CCMBlockCipher
+ * @see JinahyaAEADCipherCrypto
+ */
+public class JinahyaSpillingCCM {
+
+    /**
+     * The default threshold, in bytes, of messages processed in memory. The value is {@value}.
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 20;
+
+    private static final int BLOCK_SIZE = 16;
+
+    private static final String SPILL_PREFIX = "jinahya-ccm-";
+
+    private static final String SPILL_SUFFIX = ".spill";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified engine supplier and parameters, which uses the {@link #DEFAULT_THRESHOLD},
+     * and the default temporary-file directory.
+     *
+     * @param engineSupplier a supplier for a new block cipher engine, of 128 bits of block size; e.g.
+     *                       {@code AESEngine::newInstance}.
+     * @param params         the parameters of the key, the size of the tag, the nonce, and the associated text.
+     */
+    public JinahyaSpillingCCM(final Supplier<? extends BlockCipher> engineSupplier, final AEADParameters params) {
+        this(engineSupplier, params, DEFAULT_THRESHOLD, null);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param engineSupplier a supplier for a new block cipher engine, of 128 bits of block size; e.g.
+     *                       {@code AESEngine::newInstance}.
+     * @param params         the parameters of the key, the size of the tag, the nonce, and the associated text.
+     * @param threshold      the maximum number of bytes of messages processed in memory.
+     * @param directory      the directory in which temporary files are created; {@code null} for the default
+     *                       temporary-file directory.
+     */
+    public JinahyaSpillingCCM(final Supplier<? extends BlockCipher> engineSupplier, final AEADParameters params,
+                              final int threshold, final Path directory) {
+        super();
+        this.engineSupplier = Objects.requireNonNull(engineSupplier, "engineSupplier is null");
+        this.params = Objects.requireNonNull(params, "params is null");
+        if (params.getKey() == null) {
+            throw new IllegalArgumentException("no key in " + params);
+        }
+        final var nonce = params.getNonce();
+        if (nonce == null || nonce.length < 7 || nonce.length > 13) {
+            throw new IllegalArgumentException("nonce must have length from 7 to 13 octets");
+        }
+        final var tagLength = params.getMacSize() >> 3;
+        if (params.getMacSize() % Byte.SIZE != 0 || tagLength < 4 || tagLength > 16 || (tagLength & 1) != 0) {
+            throw new IllegalArgumentException("tag length in octets must be one of {4,6,8,10,12,14,16}");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold(" + threshold + ") is negative");
+        }
+        if (threshold > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("threshold(" + threshold + ") is too large");
+        }
+        this.threshold = threshold;
+        this.directory = directory;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts all bytes of specified input stream into specified output stream; followed by the tag.
+     *
+     * @param in  the input stream of plaintext bytes.
+     * @param out the output stream to which encrypted bytes, and the tag, are written.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long encrypt(final InputStream in, final OutputStream out) throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        final var head = in.readNBytes(threshold + 1);
+        if (head.length <= threshold) {
+            try {
+                return encrypt(new ByteArrayInputStream(head), head.length, out);
+            } finally {
+                Arrays.fill(head, (byte) 0);
+            }
+        }
+        try (var channel = spill(head, in, new State())) {
+            final var length = channel.size();
+            final var state = new State(length);
+            state.authenticate(Channels.newInputStream(channel.position(0L)), length, out);
+            final var tag = state.tag();
+            out.write(tag);
+            return length + tag.length;
+        }
+    }
+
+    /**
+     * Decrypts, and verifies, all bytes of specified input stream into specified output stream. Nothing is written to
+     * the {@code out} unless the tag is verified.
+     *
+     * @param in  the input stream of encrypted bytes followed by the tag.
+     * @param out the output stream to which decrypted bytes are written.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException                if an I/O error occurs.
+     * @throws InvalidCipherTextException if the message is too short, or the tag does not match.
+     */
+    public long decrypt(final InputStream in, final OutputStream out) throws IOException, InvalidCipherTextException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        final var head = in.readNBytes(threshold + 1);
+        if (head.length <= threshold) {
+            return decrypt(() -> new ByteArrayInputStream(head), head.length, out);
+        }
+        try (var channel = spill(head, in, null)) {
+            return decrypt(() -> Channels.newInputStream(channel.position(0L)), channel.size(), out);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @FunctionalInterface
+    private interface Source {
+
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Writes specified head bytes, and all remaining bytes of specified stream, encrypted with the counter of specified
+     * state unless {@code null}, to a new temporary file, which is deleted when the returned channel is closed.
+     */
+    private FileChannel spill(final byte[] head, final InputStream in, final State state) throws IOException {
+        final var path = directory == null
+                         ? Files.createTempFile(SPILL_PREFIX, SPILL_SUFFIX)
+                         : Files.createTempFile(directory, SPILL_PREFIX, SPILL_SUFFIX);
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                       StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (final IOException ioe) {
+            Files.deleteIfExists(path);
+            throw ioe;
+        }
+        try {
+            final var output = Channels.newOutputStream(channel);
+            if (state == null) {
+                output.write(head);
+                in.transferTo(output);
+            } else {
+                state.ctr(new SequenceInputStream(new ByteArrayInputStream(head), in), output);
+            }
+            return channel;
+        } catch (final IOException ioe) {
+            channel.close();
+            throw ioe;
+        } finally {
+            Arrays.fill(head, (byte) 0);
+        }
+    }
+
+    private long encrypt(final InputStream source, final long length, final OutputStream out) throws IOException {
+        final var state = new State(length);
+        state.process(source, length, true, out);
+        final var tag = state.tag();
+        out.write(tag);
+        return length + tag.length;
+    }
+
+    private long decrypt(final Source source, final long size, final OutputStream out)
+            throws IOException, InvalidCipherTextException {
+        final var tagLength = params.getMacSize() >> 3;
+        if (size < tagLength) {
+            throw new InvalidCipherTextException("data too short");
+        }
+        final var length = size - tagLength;
+        final State state;
+        try {
+            state = new State(length);
+        } catch (final IllegalStateException ise) {
+            throw new InvalidCipherTextException("data too long", ise);
+        }
+        // streams of the source are not closed, so that the spilled file is kept open for the second pass
+        final var input = source.open();
+        state.process(input, length, false, null);
+        final var received = new byte[tagLength];
+        if (input.readNBytes(received, 0, tagLength) < tagLength) {
+            throw new EOFException("incomplete tag");
+        }
+        if (!org.bouncycastle.util.Arrays.constantTimeAreEqual(state.tag(), received)) {
+            throw new InvalidCipherTextException("mac check in CCM failed");
+        }
+        new State(length).process(source.open(), length, false, out);
+        return length;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A state of the CBC-MAC, and the counter, for a message.
+     */
+    private final class State {
+
+        /**
+         * Creates a new state only for the counter, which doesn't depend on the length of the message.
+         */
+        private State() {
+            super();
+            final var nonce = params.getNonce();
+            nonceLength = nonce.length;
+            engine = engineSupplier.get();
+            if (engine.getBlockSize() != BLOCK_SIZE) {
+                throw new IllegalArgumentException("block size of " + engine + " is not " + BLOCK_SIZE);
+            }
+            engine.init(true, params.getKey());
+            counter[0] = (byte) (15 - nonceLength - 1);
+            System.arraycopy(nonce, 0, counter, 1, nonce.length);
+        }
+
+        /**
+         * Creates a new state for a message of specified length.
+         */
+        private State(final long length) {
+            this();
+            final var q = 15 - nonceLength;
+            if (q < Long.BYTES && length >>> (q << 3) != 0L) {
+                throw new IllegalStateException("CCM packet too large for choice of q.");
+            }
+            final var aad = params.getAssociatedText();
+            final var b0 = counter.clone();
+            b0[0] |= (byte) ((((params.getMacSize() >> 3) - 2) >> 1) << 3);
+            if (aad != null && aad.length > 0) {
+                b0[0] |= 0x40;
+            }
+            for (int i = BLOCK_SIZE - 1, j = 0; j < q; i--, j++) {
+                b0[i] = (byte) (j < Long.BYTES ? length >>> (j << 3) : 0);
+            }
+            mac(b0, 0, BLOCK_SIZE);
+            if (aad != null && aad.length > 0) {
+                final byte[] encoded;
+                if (aad.length < (1 << 16) - (1 << 8)) {
+                    encoded = new byte[] {(byte) (aad.length >> 8), (byte) aad.length};
+                } else {
+                    encoded = new byte[] {(byte) 0xFF, (byte) 0xFE, (byte) (aad.length >> 24),
+                            (byte) (aad.length >> 16), (byte) (aad.length >> 8), (byte) aad.length};
+                }
+                mac(encoded, 0, encoded.length);
+                mac(aad, 0, aad.length);
+                padMac();
+            }
+        }
+
+        // -------------------------------------------------------------------------------------------------------------
+
+        /**
+         * Processes specified number of bytes read from specified stream, and writes processed bytes to specified
+         * output stream, if not {@code null}.
+         */
+        private void process(final InputStream in, final long length, final boolean encryption,
+                             final OutputStream out)
+                throws IOException {
+            final var window = JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+            try {
+                for (var remaining = length; remaining > 0L; ) {
+                    final var n = (int) Math.min(remaining, JinahyaScratchBuffers.WINDOW_SIZE);
+                    if (in.readNBytes(window, 0, n) < n) {
+                        throw new EOFException("unexpected end of stream");
+                    }
+                    if (encryption) {
+                        mac(window, 0, n);
+                        ctr(window, 0, n);
+                    } else {
+                        ctr(window, 0, n);
+                        mac(window, 0, n);
+                    }
+                    if (out != null) {
+                        out.write(window, 0, n);
+                    }
+                    remaining -= n;
+                }
+            } finally {
+                JinahyaScratchBuffers.release(window);
+            }
+        }
+
+        /**
+         * Writes specified number of encrypted bytes, read from specified stream, to specified output stream, as they
+         * are, and then decrypts them, in memory, for the CBC-MAC.
+         */
+        private void authenticate(final InputStream in, final long length, final OutputStream out)
+                throws IOException {
+            final var window = JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+            try {
+                for (var remaining = length; remaining > 0L; ) {
+                    final var n = (int) Math.min(remaining, JinahyaScratchBuffers.WINDOW_SIZE);
+                    if (in.readNBytes(window, 0, n) < n) {
+                        throw new EOFException("unexpected end of stream");
+                    }
+                    out.write(window, 0, n);
+                    ctr(window, 0, n);
+                    mac(window, 0, n);
+                    remaining -= n;
+                }
+            } finally {
+                JinahyaScratchBuffers.release(window);
+            }
+        }
+
+        /**
+         * Encrypts, with the counter only, all bytes read from specified stream, and writes encrypted bytes to
+         * specified output stream.
+         */
+        private void ctr(final InputStream in, final OutputStream out) throws IOException {
+            final var window = JinahyaScratchBuffers.acquire(JinahyaScratchBuffers.WINDOW_SIZE);
+            try {
+                // each read, but the last, fills whole blocks; so that the counter advances over whole blocks
+                for (int r; (r = in.readNBytes(window, 0, JinahyaScratchBuffers.WINDOW_SIZE)) > 0; ) {
+                    ctr(window, 0, r);
+                    out.write(window, 0, r);
+                }
+            } finally {
+                JinahyaScratchBuffers.release(window);
+            }
+        }
+
+        /**
+         * Finishes the CBC-MAC, and returns the tag encrypted with the first counter block.
+         */
+        private byte[] tag() {
+            padMac();
+            final var a0 = counter.clone();
+            Arrays.fill(a0, 1 + nonceLength, BLOCK_SIZE, (byte) 0);
+            engine.processBlock(a0, 0, keystream, 0);
+            final var tag = new byte[params.getMacSize() >> 3];
+            for (int i = 0; i < tag.length; i++) {
+                tag[i] = (byte) (chain[i] ^ keystream[i]);
+            }
+            Arrays.fill(chain, (byte) 0);
+            Arrays.fill(keystream, (byte) 0);
+            return tag;
+        }
+
+        // -------------------------------------------------------------------------------------------------------------
+        private void mac(final byte[] in, final int inoff, final int inlen) {
+            final var end = inoff + inlen;
+            for (int off = inoff; off < end; ) {
+                if (filled == 0 && end - off >= BLOCK_SIZE) {
+                    for (int i = 0; i < BLOCK_SIZE; i++) {
+                        chain[i] ^= in[off++];
+                    }
+                    engine.processBlock(chain, 0, chain, 0);
+                    continue;
+                }
+                chain[filled++] ^= in[off++];
+                if (filled == BLOCK_SIZE) {
+                    engine.processBlock(chain, 0, chain, 0);
+                    filled = 0;
+                }
+            }
+        }
+
+        // pads the CBC-MAC with zeros to a block boundary
+        private void padMac() {
+            if (filled > 0) {
+                engine.processBlock(chain, 0, chain, 0);
+                filled = 0;
+            }
+        }
+
+        // applies the keystream of following counter blocks; the inlen is a multiple of the block size unless last
+        private void ctr(final byte[] in, final int inoff, final int inlen) {
+            for (int off = inoff; off < inoff + inlen; off += BLOCK_SIZE) {
+                for (int i = BLOCK_SIZE - 1; i > nonceLength; i--) {
+                    if (++counter[i] != 0) {
+                        break;
+                    }
+                }
+                engine.processBlock(counter, 0, keystream, 0);
+                for (int i = 0, n = Math.min(BLOCK_SIZE, inoff + inlen - off); i < n; i++) {
+                    in[off + i] ^= keystream[i];
+                }
+            }
+        }
+
+        // -------------------------------------------------------------------------------------------------------------
+        private final BlockCipher engine;
+
+        private final int nonceLength;
+
+        // flags || nonce || block-index
+        private final byte[] counter = new byte[BLOCK_SIZE];
+
+        private final byte[] keystream = new byte[BLOCK_SIZE];
+
+        private final byte[] chain = new byte[BLOCK_SIZE];
+
+        private int filled;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the maximum number of bytes of messages processed in memory.
+     *
+     * @return the maximum number of bytes of messages processed in memory.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends BlockCipher> engineSupplier;
+
+    private final AEADParameters params;
+
+    private final int threshold;
+
+    private final Path directory;
+}
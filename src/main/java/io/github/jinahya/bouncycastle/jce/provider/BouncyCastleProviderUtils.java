@@ -2,6 +2,7 @@ package io.github.jinahya.bouncycastle.jce.provider;
 
 import java.security.Provider;
 import java.security.Security;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Utilities related to the {@value BouncyCastleProviderUtils#BOUNCY_CASTLE_PROVIDER_CLASS_NAME} class.
@@ -51,6 +52,9 @@ public final class BouncyCastleProviderUtils {
     }
 
     // -----------------------------------------------------------------------------------------------------------------
+    // a lock, rather than the synchronized, which does not pin the carrier of a virtual thread
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
     private static volatile boolean added = false;
 
     /**
@@ -59,12 +63,17 @@ public final class BouncyCastleProviderUtils {
      * @see Security#addProvider(Provider)
      * @see #removeBouncyCastleProvider()
      */
-    public static synchronized void addBouncyCastleProvider() {
-        if (added) {
-            return;
+    public static void addBouncyCastleProvider() {
+        LOCK.lock();
+        try {
+            if (added) {
+                return;
+            }
+            Security.addProvider(BOUNCY_CASTLE_PROVIDER);
+            added = true;
+        } finally {
+            LOCK.unlock();
         }
-        Security.addProvider(BOUNCY_CASTLE_PROVIDER);
-        added = true;
     }
 
     /**
@@ -73,9 +82,14 @@ public final class BouncyCastleProviderUtils {
      * @see Security#removeProvider(String)
      * @see #addBouncyCastleProvider()
      */
-    public static synchronized void removeBouncyCastleProvider() {
-        Security.removeProvider(BOUNCY_CASTLE_PROVIDER_NAME);
-        added = false;
+    public static void removeBouncyCastleProvider() {
+        LOCK.lock();
+        try {
+            Security.removeProvider(BOUNCY_CASTLE_PROVIDER_NAME);
+            added = false;
+        } finally {
+            LOCK.unlock();
+        }
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -0,0 +1,39 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Utilities for threads which run blocking, I/O-bound, tasks.
+ * <p>
+ * This is the version for Java 21 and later, which runs each task on a virtual thread.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+final class JinahyaCryptoThreads {
+
+    /**
+     * Creates a new executor for blocking tasks; each task runs on a new virtual thread.
+     *
+     * @param name the prefix of the names of threads.
+     * @return a new executor.
+     */
+    static ExecutorService newBlockingExecutor(final String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + '-', 0L).factory());
+    }
+
+    /**
+     * Checks whether specified thread is a virtual thread.
+     *
+     * @param thread the thread to check.
+     * @return {@code true} if the {@code thread} is a virtual thread; {@code false} otherwise.
+     */
+    static boolean isVirtual(final Thread thread) {
+        return thread.isVirtual();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaCryptoThreads() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaBufferPoolTest {
+
+    @ValueSource(ints = {0, 1, 511, 512, 513, 8192, JinahyaBufferPool.MAXIMUM_CLASS_LENGTH,
+            JinahyaBufferPool.MAXIMUM_CLASS_LENGTH + 1})
+    @ParameterizedTest
+    void acquireArray__(final int length) {
+        final var pool = new JinahyaBufferPool(1, 1);
+        final var array = pool.acquireArray(length);
+        assertThat(array).hasSizeGreaterThanOrEqualTo(length);
+        pool.releaseArray(array);
+    }
+
+    @Test
+    void releaseArray__zeroedAndReused() {
+        final var pool = new JinahyaBufferPool(1, 0);
+        final var array = pool.acquireArray(1024);
+        array[0] = 1;
+        pool.releaseArray(array);
+        final var reused = pool.acquireArray(1000);
+        assertThat(reused).isSameAs(array);
+        assertThat(reused).containsOnly(0);
+        assertThat(pool.getReuseCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void releaseDirect__zeroedAndReused() {
+        final var pool = new JinahyaBufferPool(0, 1);
+        final var buffer = pool.acquireDirect(1024);
+        assertThat(buffer.isDirect()).isTrue();
+        buffer.put((byte) 1);
+        pool.releaseDirect(buffer);
+        final var reused = pool.acquireDirect(1024);
+        assertThat(reused).isSameAs(buffer);
+        assertThat(reused.position()).isZero();
+        assertThat(reused.get(0)).isZero();
+    }
+
+    @Test
+    void acquireArray__virtualThreadBypassesThreadLocalTier() throws InterruptedException {
+        final var pool = new JinahyaBufferPool(1, 0);
+        Thread.ofVirtual().start(() -> {
+            pool.releaseArray(pool.acquireArray(1024));
+            pool.releaseArray(pool.acquireArray(1024));
+        }).join();
+        assertThat(pool.getReuseCount()).isZero();
+        assertThat(pool.getAllocationCount()).isEqualTo(2L);
+    }
+
+    @Test
+    void setBufferPool__drawnByCrypto() throws IOException {
+        final var pool = new JinahyaBufferPool(0, 4);
+        final var crypto = new JinahyaStreamCipherCrypto(
+                SICBlockCipher.newInstance(AESEngine.newInstance()),
+                new ParametersWithIV(new KeyParameter(new byte[16]), new byte[16])
+        );
+        crypto.setBufferPool(pool);
+        final var plain = new byte[1024];
+        for (int i = 0; i < 2; i++) {
+            final var encrypted = new ByteArrayOutputStream();
+            crypto.encrypt(Channels.newChannel(new ByteArrayInputStream(plain)), Channels.newChannel(encrypted));
+            assertThat(encrypted.toByteArray()).isEqualTo(crypto.encrypt(plain));
+        }
+        assertThat(pool.getAllocationCount()).isPositive();
+        assertThat(pool.getReuseCount()).isPositive();
+    }
+}
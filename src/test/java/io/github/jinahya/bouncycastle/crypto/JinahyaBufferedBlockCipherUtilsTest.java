@@ -1,8 +1,19 @@
 package io.github.jinahya.bouncycastle.crypto;
 
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 class JinahyaBufferedBlockCipherUtilsTest {
 
     @Nested
@@ -13,4 +24,58 @@ class JinahyaBufferedBlockCipherUtilsTest {
 //            BufferedBlockCipherUtils.processAllBytes()
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    class ProcessBytesAndDoFinalArrayTest {
+
+        @Test
+        void __nonZeroOutoff() throws Exception {
+            final var cipher = new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()));
+            final var params = new ParametersWithIV(
+                    new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                    _Random_TestUtils.newRandomBytes(16)
+            );
+            final var plain = _Random_TestUtils.newRandomBytes(1025);
+            cipher.init(true, params);
+            final var expected = new byte[cipher.getOutputSize(plain.length)];
+            cipher.doFinal(expected, cipher.processBytes(plain, 0, plain.length, expected, 0));
+            // ----------------------------------------------------------------------------------------------- when
+            final var outoff = 7;
+            final var out = new byte[outoff + expected.length];
+            cipher.init(true, params);
+            final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+                    cipher, plain, 0, plain.length, out, outoff);
+            // ----------------------------------------------------------------------------------------------- then
+            assertThat(outlen).isEqualTo(expected.length);
+            assertThat(Arrays.copyOfRange(out, outoff, outoff + outlen)).isEqualTo(expected);
+        }
+    }
+
+    @Nested
+    class ProcessBytesAndDoFinalDirectTest {
+
+        @Test
+        void __() throws Exception {
+            final var cipher = new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()));
+            final var params = new ParametersWithIV(
+                    new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                    _Random_TestUtils.newRandomBytes(16)
+            );
+            final var plain = _Random_TestUtils.newRandomBytes(JinahyaScratchBuffers.WINDOW_SIZE * 3 + 1);
+            // --------------------------------------------------------------------------------------------- encrypt
+            cipher.init(true, params);
+            final var input = ByteBuffer.allocateDirect(plain.length).put(plain).flip();
+            final var encrypted = ByteBuffer.allocateDirect(cipher.getOutputSize(plain.length));
+            JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(cipher, input, encrypted);
+            assertThat(input.hasRemaining()).isFalse();
+            // --------------------------------------------------------------------------------------------- decrypt
+            cipher.init(false, params);
+            final var decrypted = ByteBuffer.allocateDirect(plain.length + cipher.getBlockSize());
+            JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(cipher, encrypted.flip(), decrypted);
+            // ------------------------------------------------------------------------------------------------ then
+            final var actual = new byte[decrypted.flip().remaining()];
+            decrypted.get(actual);
+            assertThat(actual).isEqualTo(plain);
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.DefaultBufferedBlockCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CFBBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.OFBBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCipherCryptoTest {
+
+    private static JinahyaCipherCrypto<?> newCBC() {
+        return new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                     _Random_TestUtils.newRandomBytes(16))
+        );
+    }
+
+    private static JinahyaCipherCrypto<?> newCTR() {
+        return new JinahyaStreamCipherCrypto(
+                SICBlockCipher.newInstance(AESEngine.newInstance()),
+                new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                     _Random_TestUtils.newRandomBytes(16))
+        );
+    }
+
+    private static JinahyaCipherCrypto<?> newGCM() {
+        return new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                   _Random_TestUtils.newRandomBytes(12))
+        );
+    }
+
+    private static Stream<Arguments> getCryptoStream() {
+        return Stream.of(
+                Arguments.of(Named.<Supplier<JinahyaCipherCrypto<?>>>of(
+                        "AES/CBC/PKCS7Padding", JinahyaCipherCryptoTest::newCBC)),
+                Arguments.of(Named.<Supplier<JinahyaCipherCrypto<?>>>of(
+                        "AES/CTR", JinahyaCipherCryptoTest::newCTR)),
+                Arguments.of(Named.<Supplier<JinahyaCipherCrypto<?>>>of(
+                        "AES/GCM", JinahyaCipherCryptoTest::newGCM))
+        );
+    }
+
+    // ------------------------------------------------------------------------------------------------------------ file
+
+    @MethodSource({"getCryptoStream"})
+    @ParameterizedTest
+    void __file(final Supplier<JinahyaCipherCrypto<?>> supplier, @TempDir final Path dir) throws IOException {
+        final var crypto = supplier.get();
+        final var plain = _Random_TestUtils.newRandomBytes((1 << 18) + 17);
+        final var source = Files.write(dir.resolve("source"), plain);
+        final var encrypted = dir.resolve("encrypted");
+        final var decrypted = dir.resolve("decrypted");
+        assertThat(crypto.encrypt(source, encrypted)).isEqualTo(Files.size(encrypted));
+        assertThat(crypto.decrypt(Files.readAllBytes(encrypted))).isEqualTo(plain);
+        assertThat(crypto.decrypt(encrypted, decrypted)).isEqualTo(plain.length);
+        assertThat(decrypted).hasBinaryContent(plain);
+    }
+
+    @MethodSource({"getCryptoStream"})
+    @ParameterizedTest
+    void __file_crossingRegions(final Supplier<JinahyaCipherCrypto<?>> supplier, @TempDir final Path dir)
+            throws IOException {
+        final var crypto = supplier.get();
+        crypto.mappingWindowSize = 1000; // neither a multiple of the block size nor of the chunk size
+        final var plain = _Random_TestUtils.newRandomBytes(10007);
+        final var source = Files.write(dir.resolve("source"), plain);
+        final var encrypted = dir.resolve("encrypted");
+        final var decrypted = dir.resolve("decrypted");
+        assertThat(crypto.encrypt(source, encrypted)).isEqualTo(Files.size(encrypted));
+        assertThat(crypto.decrypt(Files.readAllBytes(encrypted))).isEqualTo(plain);
+        assertThat(crypto.decrypt(encrypted, decrypted)).isEqualTo(plain.length);
+        assertThat(decrypted).hasBinaryContent(plain);
+    }
+
+    @MethodSource({"getCryptoStream"})
+    @ParameterizedTest
+    void __file_empty(final Supplier<JinahyaCipherCrypto<?>> supplier, @TempDir final Path dir) throws IOException {
+        final var crypto = supplier.get();
+        final var source = Files.createFile(dir.resolve("source"));
+        final var encrypted = dir.resolve("encrypted");
+        final var decrypted = dir.resolve("decrypted");
+        crypto.encrypt(source, encrypted);
+        assertThat(crypto.decrypt(Files.readAllBytes(encrypted))).isEmpty();
+        assertThat(crypto.decrypt(encrypted, decrypted)).isZero();
+        assertThat(decrypted).hasBinaryContent(new byte[0]);
+    }
+
+    @Test
+    void __file_sameFile(@TempDir final Path dir) throws IOException {
+        final var crypto = newCBC();
+        final var file = Files.write(dir.resolve("file"), new byte[1]);
+        assertThatThrownBy(() -> crypto.encrypt(file, file))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> crypto.decrypt(file, file))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Returns a crypto which delegates only its size query, and stream operations, to specified crypto, so that the
+     * default file, and channel, operations of the {@link JinahyaCrypto} interface are not overridden.
+     *
+     * @param delegate the crypto to which the size query, and stream operations, are delegated.
+     * @return a new crypto.
+     */
+    private static JinahyaCrypto newDefault(final JinahyaCrypto delegate) {
+        return new JinahyaCrypto() {
+            @Override
+            public int getOutputSize(final boolean encryption, final int inlen) {
+                return delegate.getOutputSize(encryption, inlen);
+            }
+
+            @Override
+            public byte[] encrypt(final byte[] in) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public byte[] decrypt(final byte[] in) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+                return delegate.encrypt(in, out, inbuf);
+            }
+
+            @Override
+            public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+                return delegate.decrypt(in, out, inbuf);
+            }
+        };
+    }
+
+    /**
+     * Verifies the default file operations of the {@link JinahyaCrypto} interface.
+     */
+    @MethodSource({"getCryptoStream"})
+    @ParameterizedTest
+    void __file_default(final Supplier<JinahyaCipherCrypto<?>> supplier, @TempDir final Path dir) throws IOException {
+        final var delegate = supplier.get();
+        final var crypto = newDefault(delegate);
+        final var plain = _Random_TestUtils.newRandomBytes(10007);
+        final var source = Files.write(dir.resolve("source"), plain);
+        final var encrypted = dir.resolve("encrypted");
+        final var decrypted = dir.resolve("decrypted");
+        assertThat(crypto.encrypt(source, encrypted)).isEqualTo(Files.size(encrypted));
+        assertThat(delegate.decrypt(Files.readAllBytes(encrypted))).isEqualTo(plain);
+        assertThat(crypto.decrypt(encrypted, decrypted)).isEqualTo(plain.length);
+        assertThat(decrypted).hasBinaryContent(plain);
+        assertThatThrownBy(() -> crypto.encrypt(source, source))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // --------------------------------------------------------------------------------------------------------- channel
+
+    @FunctionalInterface
+    private interface ChannelOperation {
+
+        long apply(ReadableByteChannel in, WritableByteChannel out) throws IOException;
+    }
+
+    /**
+     * Applies specified operation from the source of a non-blocking pipe, to which specified input is written by
+     * another thread, to the sink of another non-blocking pipe, whose source is read by another thread.
+     *
+     * @param operation the operation.
+     * @param input     the input to write.
+     * @return the bytes read.
+     */
+    private static byte[] transfer(final ChannelOperation operation, final byte[] input) throws Exception {
+        final var inputPipe = Pipe.open();
+        final var outputPipe = Pipe.open();
+        try (var executor = Executors.newFixedThreadPool(2)) {
+            final var writer = executor.submit(() -> {
+                try (var sink = inputPipe.sink()) {
+                    for (final var buffer = ByteBuffer.wrap(input); buffer.hasRemaining(); ) {
+                        sink.write(buffer);
+                    }
+                }
+                return null;
+            });
+            final var reader = executor.submit(() -> {
+                try (var source = outputPipe.source()) {
+                    return Channels.newInputStream(source).readAllBytes();
+                }
+            });
+            final long bytes;
+            try (var source = inputPipe.source();
+                 var sink = outputPipe.sink()) {
+                source.configureBlocking(false);
+                sink.configureBlocking(false);
+                bytes = operation.apply(source, sink);
+            }
+            writer.get();
+            final var output = reader.get();
+            assertThat(bytes).isEqualTo(output.length);
+            return output;
+        }
+    }
+
+    @MethodSource({"getCryptoStream"})
+    @ParameterizedTest
+    void __channel(final Supplier<JinahyaCipherCrypto<?>> supplier) throws IOException {
+        final var crypto = supplier.get();
+        final var plain = _Random_TestUtils.newRandomBytes((1 << 18) + 17);
+        final var encrypted = new ByteArrayOutputStream();
+        assertThat(crypto.encrypt(Channels.newChannel(new ByteArrayInputStream(plain)), Channels.newChannel(encrypted)))
+                .isEqualTo(encrypted.size());
+        assertThat(crypto.decrypt(encrypted.toByteArray())).isEqualTo(plain);
+        final var decrypted = new ByteArrayOutputStream();
+        assertThat(crypto.decrypt(Channels.newChannel(new ByteArrayInputStream(encrypted.toByteArray())),
+                                  Channels.newChannel(decrypted)))
+                .isEqualTo(plain.length);
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+    }
+
+    @MethodSource({"getCryptoStream"})
+    @ParameterizedTest
+    void __channel_nonBlockingPipe(final Supplier<JinahyaCipherCrypto<?>> supplier) throws Exception {
+        final var crypto = supplier.get();
+        final var plain = _Random_TestUtils.newRandomBytes((1 << 20) + 17); // larger than buffers of pipes
+        final var encrypted = transfer(crypto::encrypt, plain);
+        assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+        assertThat(transfer(crypto::decrypt, encrypted)).isEqualTo(plain);
+    }
+
+    /**
+     * Verifies the default channel operations of the {@link JinahyaCrypto} interface.
+     */
+    @MethodSource({"getCryptoStream"})
+    @ParameterizedTest
+    void __channel_default(final Supplier<JinahyaCipherCrypto<?>> supplier) throws IOException {
+        final var delegate = supplier.get();
+        final var crypto = newDefault(delegate);
+        final var plain = _Random_TestUtils.newRandomBytes(10007);
+        final var encrypted = new ByteArrayOutputStream();
+        assertThat(crypto.encrypt(Channels.newChannel(new ByteArrayInputStream(plain)), Channels.newChannel(encrypted)))
+                .isEqualTo(encrypted.size());
+        assertThat(delegate.decrypt(encrypted.toByteArray())).isEqualTo(plain);
+        final var decrypted = new ByteArrayOutputStream();
+        assertThat(crypto.decrypt(Channels.newChannel(new ByteArrayInputStream(encrypted.toByteArray())),
+                                  Channels.newChannel(decrypted)))
+                .isEqualTo(plain.length);
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+        final var pipe = Pipe.open();
+        try (var source = pipe.source();
+             var sink = pipe.sink()) {
+            source.configureBlocking(false);
+            assertThatThrownBy(() -> crypto.decrypt(source, Channels.newChannel(new ByteArrayOutputStream())))
+                    .isInstanceOf(IllegalBlockingModeException.class);
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------------------- message
+
+    @Test
+    void message__cbc() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                new ParametersWithIV(key, _Random_TestUtils.newRandomBytes(16))
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(1025);
+        final var iv1 = _Random_TestUtils.newRandomBytes(16);
+        final var iv2 = _Random_TestUtils.newRandomBytes(16);
+        final var encrypted1 = crypto.encrypt(iv1, plain); // with the key
+        assertThat(crypto.keyed).isTrue();
+        final var encrypted2 = crypto.encrypt(iv2, plain); // without the key
+        final var expected = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                new ParametersWithIV(key, iv2)
+        ).encrypt(plain);
+        assertThat(encrypted2).isEqualTo(expected);
+        // switching the direction re-keys the cipher
+        assertThat(crypto.decrypt(iv1, encrypted1)).isEqualTo(plain);
+        assertThat(crypto.keyed).isFalse();
+        assertThat(crypto.decrypt(iv2, encrypted2)).isEqualTo(plain);
+        assertThat(crypto.encrypt(iv2, plain)).isEqualTo(expected);
+        assertThat(crypto.keyed).isTrue();
+    }
+
+    @Test
+    void message__ctr() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaStreamCipherCrypto(
+                SICBlockCipher.newInstance(AESEngine.newInstance()),
+                new ParametersWithIV(key, _Random_TestUtils.newRandomBytes(16))
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(1025);
+        final var iv1 = _Random_TestUtils.newRandomBytes(16);
+        final var iv2 = _Random_TestUtils.newRandomBytes(16);
+        final var encrypted1 = crypto.encrypt(iv1, plain);
+        final var encrypted2 = crypto.encrypt(iv2, plain);
+        final var expected = new JinahyaStreamCipherCrypto(
+                SICBlockCipher.newInstance(AESEngine.newInstance()),
+                new ParametersWithIV(key, iv2)
+        ).encrypt(plain);
+        assertThat(encrypted2).isEqualTo(expected);
+        assertThat(encrypted1).isNotEqualTo(encrypted2);
+        assertThat(crypto.decrypt(iv1, encrypted1)).isEqualTo(plain);
+        assertThat(crypto.decrypt(iv2, encrypted2)).isEqualTo(plain);
+        assertThat(crypto.encrypt(iv2, plain)).isEqualTo(expected);
+    }
+
+    @Test
+    void message__gcm() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(key, 128, _Random_TestUtils.newRandomBytes(12))
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(1025);
+        final var aad = _Random_TestUtils.newRandomBytes(17);
+        final var nonce1 = _Random_TestUtils.newRandomBytes(12);
+        final var nonce2 = _Random_TestUtils.newRandomBytes(12);
+        final var encrypted1 = crypto.encrypt(nonce1, aad, plain);
+        final var encrypted2 = crypto.encrypt(nonce2, aad, plain);
+        final var expected = new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(key, 128, nonce2, aad)
+        ).encrypt(plain);
+        assertThat(encrypted2).isEqualTo(expected);
+        assertThat(crypto.decrypt(nonce1, aad, encrypted1)).isEqualTo(plain);
+        assertThat(crypto.decrypt(nonce2, aad, encrypted2)).isEqualTo(plain);
+        assertThatThrownBy(() -> crypto.decrypt(nonce2, null, encrypted2))
+                .isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void message__gcm_repeatedNonce() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(key, 128, _Random_TestUtils.newRandomBytes(12))
+        );
+        final JinahyaCipherCrypto<?> base = crypto;
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        crypto.encrypt(nonce, null, plain);
+        assertThat(base.keyed).isTrue();
+        assertThatThrownBy(() -> crypto.encrypt(nonce, null, plain))
+                .isInstanceOf(IllegalArgumentException.class);
+        // the failed initialization leaves the direction unknown, so the next message is keyed in full
+        assertThat(base.keyed).isNull();
+        final var nonce2 = _Random_TestUtils.newRandomBytes(12);
+        assertThat(crypto.encrypt(nonce2, null, plain)).isEqualTo(new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(key, 128, nonce2)
+        ).encrypt(plain));
+        assertThat(base.keyed).isTrue();
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- batch
+
+    private static int[] offsets(final int... lengths) {
+        final var offsets = new int[lengths.length + 1];
+        for (int i = 0; i < lengths.length; i++) {
+            offsets[i + 1] = offsets[i] + lengths[i];
+        }
+        return offsets;
+    }
+
+    @Test
+    void batch__gcm() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(key, 128, _Random_TestUtils.newRandomBytes(12))
+        );
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        final var aad = _Random_TestUtils.newRandomBytes(13);
+        final var messages = List.of(_Random_TestUtils.newRandomBytes(17), new byte[0],
+                                     _Random_TestUtils.newRandomBytes(1025));
+        final var encrypted = crypto.encryptBatch(nonce, aad, messages);
+        assertThat(encrypted.size()).isEqualTo(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            final var derived = nonce.clone();
+            derived[derived.length - 1] ^= (byte) i;
+            assertThat(encrypted.get(i)).isEqualTo(new JinahyaAEADCipherCrypto(
+                    GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                    new AEADParameters(key, 128, derived, aad)
+            ).encrypt(messages.get(i)));
+        }
+        final var decrypted = crypto.decryptBatch(nonce, aad, encrypted.getOutput(), encrypted.getOffsets());
+        for (int i = 0; i < messages.size(); i++) {
+            assertThat(decrypted.get(i)).isEqualTo(messages.get(i));
+        }
+        final var tampered = encrypted.getOutput().clone();
+        tampered[encrypted.getOffset(2)] ^= 1;
+        assertThatThrownBy(() -> crypto.decryptBatch(nonce, aad, tampered, encrypted.getOffsets()))
+                .isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void batch__ctr() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaStreamCipherCrypto(
+                SICBlockCipher.newInstance(AESEngine.newInstance()),
+                new ParametersWithIV(key, _Random_TestUtils.newRandomBytes(16))
+        );
+        final var iv = _Random_TestUtils.newRandomBytes(16);
+        final var offsets = offsets(17, 32, 0, 1, 40);
+        final var plain = _Random_TestUtils.newRandomBytes(offsets[offsets.length - 1] + 3);
+        final var encrypted = crypto.encryptBatch(iv, null, plain, offsets);
+        assertThat(encrypted.getOffsets()).isEqualTo(offsets);
+        final var decrypted = crypto.decryptBatch(iv, null, encrypted.getOutput(), encrypted.getOffsets());
+        assertThat(Arrays.copyOf(decrypted.getOutput(), offsets[offsets.length - 1]))
+                .isEqualTo(Arrays.copyOf(plain, offsets[offsets.length - 1]));
+        final var messages = new ArrayList<byte[]>();
+        for (int i = 0; i < offsets.length - 1; i++) {
+            messages.add(Arrays.copyOfRange(plain, offsets[i], offsets[i + 1]));
+        }
+        final var listed = crypto.encryptBatch(iv, null, messages);
+        for (int i = 0; i < messages.size(); i++) {
+            assertThat(listed.get(i)).isEqualTo(encrypted.get(i));
+        }
+        assertThat(crypto.decryptBatch(iv, null, List.of(listed.get(4))).get(0))
+                .isNotEqualTo(messages.get(4)); // not with the IV of the first message
+    }
+
+    /**
+     * Verifies that messages of a CTR batch take consecutive, never shared, blocks of a single keystream.
+     */
+    @Test
+    void batch__ctr_keystreamNotOverlapped() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaStreamCipherCrypto(
+                SICBlockCipher.newInstance(AESEngine.newInstance()),
+                new ParametersWithIV(key, _Random_TestUtils.newRandomBytes(16))
+        );
+        final var iv = new byte[16];
+        Arrays.fill(iv, 8, 16, (byte) 0xFF); // carries into the upper half
+        final var lengths = new int[] {17, 32, 1, 0, 40, 16};
+        final var offsets = offsets(lengths);
+        final var encrypted = crypto.encryptBatch(iv, null, new byte[offsets[offsets.length - 1]], offsets);
+        final var keystream = new JinahyaStreamCipherCrypto(
+                SICBlockCipher.newInstance(AESEngine.newInstance()),
+                new ParametersWithIV(key, iv)
+        ).encrypt(new byte[1024]);
+        var block = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            assertThat(encrypted.get(i))
+                    .isEqualTo(Arrays.copyOfRange(keystream, block << 4, (block << 4) + lengths[i]));
+            block += (lengths[i] + 15) >> 4;
+        }
+    }
+
+    @Test
+    void batch__unpredictableIvModesRejected() {
+        final var cbc = newCBC();
+        assertThatThrownBy(() -> cbc.encryptBatch(new byte[16], null, List.of(new byte[1])))
+                .isInstanceOf(UnsupportedOperationException.class);
+        final var ecb = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(AESEngine.newInstance()),
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16))
+        );
+        assertThatThrownBy(() -> ecb.decryptBatch(new byte[16], null, List.of(new byte[16])))
+                .isInstanceOf(UnsupportedOperationException.class);
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                                _Random_TestUtils.newRandomBytes(16));
+        final var cfb = new JinahyaStreamCipherCrypto(CFBBlockCipher.newInstance(AESEngine.newInstance(), 128), params);
+        assertThatThrownBy(() -> cfb.encryptBatch(new byte[16], null, List.of(new byte[1])))
+                .isInstanceOf(UnsupportedOperationException.class);
+        final var bufferedCfb = new JinahyaBufferedBlockCipherCrypto(
+                new DefaultBufferedBlockCipher(CFBBlockCipher.newInstance(AESEngine.newInstance(), 8)), params);
+        assertThatThrownBy(() -> bufferedCfb.encryptBatch(new byte[16], null, List.of(new byte[1])))
+                .isInstanceOf(UnsupportedOperationException.class);
+        // OFB takes IVs which only have to be unique
+        final var ofb = new JinahyaStreamCipherCrypto(new OFBBlockCipher(AESEngine.newInstance(), 128), params);
+        final var plain = _Random_TestUtils.newRandomBytes(17);
+        final var encrypted = ofb.encryptBatch(new byte[16], null, List.of(plain));
+        assertThat(ofb.decryptBatch(new byte[16], null, List.of(encrypted.get(0))).get(0)).isEqualTo(plain);
+    }
+
+    @Test
+    void batch__outputOverflow() {
+        final var crypto = newGCM();
+        final var messages = Collections.nCopies(32, new byte[1 << 26]);
+        assertThatThrownBy(() -> crypto.encryptBatch(new byte[12], null, messages))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
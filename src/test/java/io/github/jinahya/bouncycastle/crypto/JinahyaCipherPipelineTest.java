@@ -0,0 +1,108 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCipherPipelineTest {
+
+    private static JinahyaAEADCipherCrypto newCrypto(final KeyParameter key, final byte[] nonce) {
+        return new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                                           new AEADParameters(key, 128, nonce));
+    }
+
+    @ValueSource(ints = {0, 1, 1023, 1024, 1025, 100000})
+    @ParameterizedTest
+    void __sameAsStream(final int length) throws IOException {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var expected = newCrypto(key, nonce).encrypt(plain);
+        final var pipeline = new JinahyaCipherPipeline(1024, 2);
+        final var crypto = newCrypto(key, nonce);
+        final var encrypted = new ByteArrayOutputStream();
+        assertThat(pipeline.encrypt(crypto, new ByteArrayInputStream(plain), encrypted)).isEqualTo(expected.length);
+        assertThat(encrypted.toByteArray()).isEqualTo(expected);
+        final var decrypted = new ByteArrayOutputStream();
+        pipeline.decrypt(crypto, new ByteArrayInputStream(expected), decrypted);
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+    }
+
+    @Test
+    void encrypt__writerFailure() {
+        final var crypto = newCrypto(new KeyParameter(new byte[16]), new byte[12]);
+        final var out = new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("failed to write");
+            }
+        };
+        assertThatThrownBy(() -> new JinahyaCipherPipeline(1024, 2).encrypt(
+                crypto, new ByteArrayInputStream(new byte[65536]), out))
+                .isInstanceOf(IOException.class)
+                .hasMessage("failed to write");
+    }
+
+    @Test
+    void encrypt__writerFailureWithReaderBlocked() throws Exception {
+        final var crypto = newCrypto(new KeyParameter(new byte[16]), new byte[12]);
+        final var released = new CountDownLatch(1);
+        final var in = new InputStream() {
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) {
+                if (first) {
+                    first = false;
+                    return len;
+                }
+                while (true) { // blocks, like a socket, regardless of any interruption
+                    try {
+                        released.await();
+                        return -1;
+                    } catch (final InterruptedException ie) {
+                        // ignored
+                    }
+                }
+            }
+
+            private boolean first = true;
+        };
+        final var out = new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("failed to write");
+            }
+        };
+        final var executor = Executors.newSingleThreadExecutor();
+        try {
+            final var future = executor.submit(() -> new JinahyaCipherPipeline(1024, 2).encrypt(crypto, in, out));
+            assertThatThrownBy(() -> future.get(10L, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IOException.class);
+        } finally {
+            released.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaCipherProcessorTest {
+
+    private static byte[] process(final JinahyaCipherCrypto<?> crypto, final boolean encryption, final byte[] input)
+            throws Exception {
+        final var processor = new JinahyaCipherProcessor(crypto, encryption);
+        final var output = new ByteArrayOutputStream();
+        final var completed = new CompletableFuture<Void>();
+        try (var publisher = new SubmissionPublisher<ByteBuffer>()) {
+            publisher.subscribe(processor);
+            processor.subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(final Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1L);
+                }
+
+                @Override
+                public void onNext(final ByteBuffer item) {
+                    output.write(item.array(), item.arrayOffset() + item.position(), item.remaining());
+                    processor.release(item);
+                    subscription.request(1L);
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    completed.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.complete(null);
+                }
+
+                private Flow.Subscription subscription;
+            });
+            for (int offset = 0; offset < input.length; offset += 1000) {
+                publisher.submit(ByteBuffer.wrap(input, offset, Math.min(1000, input.length - offset)));
+            }
+        }
+        completed.get(10L, TimeUnit.SECONDS);
+        return output.toByteArray();
+    }
+
+    @Test
+    void __() throws Exception {
+        final var crypto = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                new ParametersWithIV(
+                        new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                        _Random_TestUtils.newRandomBytes(16)
+                )
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(8192);
+        final var encrypted = process(crypto, true, plain);
+        assertThat(encrypted).isEqualTo(crypto.encrypt(plain));
+        assertThat(process(crypto, false, encrypted)).isEqualTo(plain);
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCipherSessionTest {
+
+    @Test
+    void __sameAsOneShot() {
+        final var crypto = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                new ParametersWithIV(
+                        new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                        _Random_TestUtils.newRandomBytes(16)
+                )
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var session = crypto.newSession(true);
+        final var output = ByteBuffer.allocate(plain.length + 16);
+        for (int offset = 0; offset < plain.length; offset += 7) {
+            final var fragment = ByteBuffer.wrap(plain, offset, Math.min(7, plain.length - offset));
+            final var expected = session.getUpdateOutputSize(fragment.remaining());
+            assertThat(session.update(fragment, output)).isEqualTo(expected);
+        }
+        session.doFinal(output);
+        assertThat(session.isFinalized()).isTrue();
+        assertThat(output.flip()).isEqualTo(ByteBuffer.wrap(crypto.encrypt(plain)));
+        assertThatThrownBy(() -> session.doFinal(ByteBuffer.allocate(16)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void doFinal__arrayTooShort() {
+        final var crypto = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                new ParametersWithIV(
+                        new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                        _Random_TestUtils.newRandomBytes(16)
+                )
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var session = crypto.newSession(true);
+        final var out = new byte[crypto.getOutputSize(true, plain.length)];
+        final var outlen = session.update(plain, 0, plain.length, out, 0);
+        assertThatThrownBy(() -> session.doFinal(out, out.length - session.getFinalOutputSize() + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(session.isFinalized()).isFalse();
+        assertThat(session.doFinal(out, outlen)).isEqualTo(out.length - outlen);
+        assertThat(session.isFinalized()).isTrue();
+        assertThat(out).isEqualTo(crypto.encrypt(plain));
+    }
+
+    @Test
+    void getOutputSize__sessionNotReset() {
+        final var crypto = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                new ParametersWithIV(
+                        new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                        _Random_TestUtils.newRandomBytes(16)
+                )
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var session = crypto.newSession(true);
+        final var output = ByteBuffer.allocate(crypto.getOutputSize(true, plain.length));
+        session.update(ByteBuffer.wrap(plain, 0, 50), output);
+        assertThat(crypto.getOutputSize(true, 50)).isEqualTo(64);
+        assertThat(crypto.getOutputSize(false, 50)).isEqualTo(50);
+        session.update(ByteBuffer.wrap(plain, 50, 50), output);
+        session.doFinal(output);
+        assertThat(output.array()).isEqualTo(crypto.encrypt(plain));
+    }
+
+    @Test
+    void updateAAD__sameAsParameters() throws IOException {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        final var aad = _Random_TestUtils.newRandomBytes(100000);
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var expected = new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), new AEADParameters(key, 128, nonce, aad)
+        ).encrypt(plain);
+        final var crypto = new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), new AEADParameters(key, 128, nonce)
+        );
+        final var session = crypto.newSession(true);
+        session.updateAAD(aad, 0, 10);
+        session.updateAAD(ByteBuffer.allocateDirect(990).put(aad, 10, 990).flip());
+        session.updateAAD(new ByteArrayInputStream(aad, 1000, aad.length - 1000));
+        assertThat(session.getAADBytes()).isEqualTo(aad.length);
+        final var output = ByteBuffer.allocate(expected.length);
+        session.update(ByteBuffer.wrap(plain), output);
+        assertThatThrownBy(() -> session.updateAAD(aad, 0, 1))
+                .isInstanceOf(IllegalStateException.class);
+        session.doFinal(output);
+        assertThat(output.array()).isEqualTo(expected);
+    }
+}
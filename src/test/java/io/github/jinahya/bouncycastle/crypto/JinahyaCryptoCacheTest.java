@@ -0,0 +1,139 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCryptoCacheTest {
+
+    private static JinahyaCryptoCache<JinahyaStreamCipherCrypto> newCache(final int maximumSize,
+                                                                           final List<KeyParameter> loaded) {
+        return new JinahyaCryptoCache<>(
+                k -> {
+                    loaded.add(k);
+                    return new JinahyaStreamCipherCrypto(SICBlockCipher.newInstance(AESEngine.newInstance()),
+                                                         new ParametersWithIV(k, new byte[16]));
+                },
+                maximumSize,
+                Duration.ofMinutes(1L)
+        );
+    }
+
+    @Test
+    void apply__sameCryptoForSameKey() {
+        final var cache = newCache(2, new ArrayList<>());
+        final var first = cache.apply(new KeyParameter(new byte[16]), c -> c);
+        final var second = cache.apply(new KeyParameter(new byte[16]), c -> c);
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getHitCount()).isEqualTo(1L);
+        assertThat(cache.getMissCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void apply__evictedKeyZeroed() {
+        final var loaded = new ArrayList<KeyParameter>();
+        final var cache = newCache(1, loaded);
+        final var key1 = new KeyParameter(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        final var key2 = new KeyParameter(new byte[] {2, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        cache.apply(key1, c -> c.encrypt(new byte[16], new byte[1]));
+        cache.apply(key2, c -> c.encrypt(new byte[16], new byte[1]));
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getEvictionCount()).isEqualTo(1L);
+        assertThat(loaded.get(0).getKey()).containsOnly(0);
+        assertThat(key1.getKey()[0]).isEqualTo((byte) 1);
+    }
+
+    @Test
+    void pin__notEvicted() {
+        final var cache = newCache(1, new ArrayList<>());
+        final var key1 = new KeyParameter(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        final var key2 = new KeyParameter(new byte[] {2, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        cache.pin(key1);
+        cache.apply(key2, c -> c);
+        cache.apply(key1, c -> c);
+        assertThat(cache.getMissCount()).isEqualTo(2L);
+        assertThat(cache.unpin(key1)).isTrue();
+    }
+
+    @Test
+    void apply__loadedOutsideLock() throws Exception {
+        final var loading = new CountDownLatch(1);
+        final var proceed = new CountDownLatch(1);
+        final var loads = new AtomicInteger();
+        final var key1 = new KeyParameter(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        final var key2 = new KeyParameter(new byte[] {2, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        final var cache = new JinahyaCryptoCache<JinahyaStreamCipherCrypto>(
+                k -> {
+                    if (k.getKey()[0] == 1) {
+                        loads.incrementAndGet();
+                        loading.countDown();
+                        try {
+                            proceed.await();
+                        } catch (final InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException(ie);
+                        }
+                    }
+                    return new JinahyaStreamCipherCrypto(SICBlockCipher.newInstance(AESEngine.newInstance()),
+                                                         new ParametersWithIV(k, new byte[16]));
+                },
+                2,
+                Duration.ofMinutes(1L)
+        );
+        final var executor = Executors.newFixedThreadPool(2);
+        try {
+            final var first = executor.submit(() -> cache.apply(key1, c -> c));
+            assertThat(loading.await(10L, TimeUnit.SECONDS)).isTrue();
+            final var second = executor.submit(() -> cache.apply(key1, c -> c));
+            // another key is served while the first one is still being loaded
+            final JinahyaStreamCipherCrypto crypto2 = cache.apply(key2, c -> c);
+            assertThat(crypto2).isNotNull();
+            assertThat(first.isDone()).isFalse();
+            proceed.countDown();
+            assertThat(second.get(10L, TimeUnit.SECONDS)).isSameAs(first.get(10L, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(2L);
+        assertThat(cache.getHitCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void apply__failedLoadNotCached() {
+        final var failures = new AtomicInteger(1);
+        final var cache = new JinahyaCryptoCache<JinahyaStreamCipherCrypto>(
+                k -> {
+                    if (failures.getAndDecrement() > 0) {
+                        throw new IllegalStateException("failed to load");
+                    }
+                    return new JinahyaStreamCipherCrypto(SICBlockCipher.newInstance(AESEngine.newInstance()),
+                                                         new ParametersWithIV(k, new byte[16]));
+                },
+                2,
+                Duration.ofMinutes(1L)
+        );
+        final var key = new KeyParameter(new byte[16]);
+        assertThatThrownBy(() -> cache.apply(key, c -> c))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("failed to load");
+        assertThat(cache.size()).isZero();
+        final JinahyaStreamCipherCrypto crypto = cache.apply(key, c -> c);
+        assertThat(crypto).isNotNull();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(2L);
+    }
+}
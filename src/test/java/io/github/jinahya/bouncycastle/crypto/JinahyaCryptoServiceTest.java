@@ -0,0 +1,108 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCryptoServiceTest {
+
+    @Test
+    void __fromVirtualThreads() throws Exception {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var created = new AtomicInteger();
+        try (var service = new JinahyaCryptoService(() -> {
+            created.incrementAndGet();
+            return new JinahyaStreamCipherCrypto(SICBlockCipher.newInstance(AESEngine.newInstance()), params);
+        }, 2);
+             var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 128; i++) {
+                futures.add(executor.submit(() -> {
+                    final var plain = _Random_TestUtils.newRandomBytes(1024);
+                    final var decrypted = service.encrypt(plain).thenCompose(service::decrypt).join();
+                    assertThat(decrypted).isEqualTo(plain);
+                    return null;
+                }));
+            }
+            for (final var future : futures) {
+                future.get();
+            }
+        }
+        assertThat(created).hasValueLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void submitIo__supplierFailed() {
+        try (var service = new JinahyaCryptoService(() -> {
+            throw new IllegalStateException("failed to supply");
+        }, 1)) {
+            final CompletableFuture<Object> future = service.submitIo(c -> {
+                throw new AssertionError("should not be applied");
+            });
+            assertThatThrownBy(() -> future.get(10L, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void submitIo__bounded(@TempDir final Path dir) throws Exception {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var created = new AtomicInteger();
+        final var running = new AtomicInteger();
+        final var maximum = new AtomicInteger();
+        try (var service = new JinahyaCryptoService(() -> {
+            created.incrementAndGet();
+            return new JinahyaStreamCipherCrypto(SICBlockCipher.newInstance(AESEngine.newInstance()), params);
+        }, 2)) {
+            final var futures = new ArrayList<CompletableFuture<byte[]>>();
+            for (int i = 0; i < 32; i++) {
+                final var plain = _Random_TestUtils.newRandomBytes(1024);
+                final var source = Files.write(dir.resolve("plain" + i), plain);
+                final var encrypted = dir.resolve("encrypted" + i);
+                final var decrypted = dir.resolve("decrypted" + i);
+                futures.add(service.submitIo(c -> {
+                    maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        c.encrypt(source, encrypted);
+                        c.decrypt(encrypted, decrypted);
+                        return Files.readAllBytes(decrypted);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }).thenApply(d -> {
+                    assertThat(d).isEqualTo(plain);
+                    return d;
+                }));
+            }
+            for (final var future : futures) {
+                future.get(1L, TimeUnit.MINUTES);
+            }
+        }
+        assertThat(maximum).hasValueLessThanOrEqualTo(2);
+        assertThat(created).hasValueLessThanOrEqualTo(2);
+    }
+}
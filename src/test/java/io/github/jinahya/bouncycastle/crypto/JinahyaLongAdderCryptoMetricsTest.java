@@ -0,0 +1,94 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaLongAdderCryptoMetricsTest {
+
+    private static JinahyaAEADCipherCrypto newCrypto() {
+        return new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                   _Random_TestUtils.newRandomBytes(12))
+        );
+    }
+
+    @Test
+    void __encryptAndDecrypt() {
+        final var crypto = newCrypto();
+        final var metrics = new JinahyaLongAdderCryptoMetrics();
+        crypto.setMetrics(metrics);
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var encrypted = crypto.encrypt(plain);
+        assertThat(metrics.getEncryptionCount()).isEqualTo(1L);
+        assertThat(metrics.getDecryptionCount()).isZero();
+        assertThat(metrics.getInputBytes()).isEqualTo(plain.length);
+        assertThat(metrics.getOutputBytes()).isEqualTo(encrypted.length);
+        assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+        assertThat(metrics.getEncryptionCount()).isEqualTo(1L);
+        assertThat(metrics.getDecryptionCount()).isEqualTo(1L);
+        assertThat(metrics.getInputBytes()).isEqualTo(plain.length + encrypted.length);
+        assertThat(metrics.getOutputBytes()).isEqualTo(encrypted.length + plain.length);
+        assertThat(metrics.getInitializationCount()).isEqualTo(2L);
+        assertThat(metrics.getAuthenticationFailureCount()).isZero();
+    }
+
+    @Test
+    void __stream() throws IOException {
+        final var crypto = newCrypto();
+        final var metrics = new JinahyaLongAdderCryptoMetrics();
+        crypto.setMetrics(metrics);
+        final var plain = _Random_TestUtils.newRandomBytes(10000);
+        final var encrypted = new ByteArrayOutputStream();
+        crypto.encrypt(new ByteArrayInputStream(plain), encrypted, new byte[1024]);
+        assertThat(metrics.getEncryptionCount()).isEqualTo(1L);
+        assertThat(metrics.getInputBytes()).isEqualTo(plain.length);
+        assertThat(metrics.getOutputBytes()).isEqualTo(encrypted.size());
+    }
+
+    @Test
+    void __authenticationFailure() throws IOException {
+        final var crypto = newCrypto();
+        final var metrics = new JinahyaLongAdderCryptoMetrics();
+        crypto.setMetrics(metrics);
+        final var encrypted = crypto.encrypt(_Random_TestUtils.newRandomBytes(100));
+        encrypted[encrypted.length - 1] ^= 1;
+        assertThatThrownBy(() -> crypto.decrypt(encrypted))
+                .isInstanceOf(JinahyaCryptoException.class);
+        assertThat(metrics.getAuthenticationFailureCount()).isEqualTo(1L);
+        assertThatThrownBy(() -> crypto.decrypt(new ByteArrayInputStream(encrypted), new ByteArrayOutputStream(),
+                                                new byte[16]))
+                .isInstanceOf(JinahyaCryptoException.class);
+        assertThat(metrics.getAuthenticationFailureCount()).isEqualTo(2L);
+        assertThat(metrics.getDecryptionCount()).isZero();
+    }
+
+    @Test
+    void __reallocated() throws Exception {
+        final var cipher = new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()));
+        cipher.init(true, new ParametersWithIV(new KeyParameter(new byte[16]), new byte[16]));
+        final var metrics = new JinahyaLongAdderCryptoMetrics();
+        final var out = new ByteArrayOutputStream();
+        JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
+                cipher, new ByteArrayInputStream(new byte[100]), out, new byte[64], new byte[1], metrics);
+        assertThat(out.size()).isEqualTo(112);
+        assertThat(metrics.getReallocationCount()).isPositive();
+        assertThat(metrics.getInputBytes()).isEqualTo(100L);
+        assertThat(metrics.getOutputBytes()).isEqualTo(112L);
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaPooledCipherCryptoTest {
+
+    private static JinahyaPooledCipherCrypto<?> newCrypto(final int maximumSize) {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        return JinahyaPooledCipherCrypto.ofBufferedBlockCipher(
+                () -> new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                params,
+                maximumSize
+        );
+    }
+
+    @Test
+    void __sequential() {
+        final var crypto = newCrypto(1);
+        final var plain = _Random_TestUtils.newRandomBytes(ThreadLocalRandom.current().nextInt(1024));
+        final var encrypted = crypto.encrypt(plain);
+        final var decrypted = crypto.decrypt(encrypted);
+        assertThat(decrypted).isEqualTo(plain);
+        assertThat(crypto.getMissCount()).isEqualTo(1L);
+        assertThat(crypto.getHitCount()).isEqualTo(1L);
+        assertThat(crypto.getIdleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void borrow__bufferPoolPropagated() {
+        final var crypto = newCrypto(1);
+        assertThat(crypto.getBufferPool()).isSameAs(JinahyaBufferPool.getDefault());
+        final var bufferPool = new JinahyaBufferPool(1, 1);
+        crypto.setBufferPool(bufferPool);
+        final var borrowed = (JinahyaCipherCrypto<?>) crypto.borrow();
+        assertThat(borrowed.getBufferPool()).isSameAs(bufferPool);
+        crypto.release(borrowed);
+    }
+
+    @Test
+    void __concurrent() throws Exception {
+        final var crypto = newCrypto(8);
+        final var executor = Executors.newFixedThreadPool(64);
+        try {
+            final var tasks = new ArrayList<Callable<Void>>();
+            for (int i = 0; i < 256; i++) {
+                tasks.add(() -> {
+                    final var plain = _Random_TestUtils.newRandomBytes(ThreadLocalRandom.current().nextInt(1024));
+                    assertThat(crypto.decrypt(crypto.encrypt(plain))).isEqualTo(plain);
+                    return null;
+                });
+            }
+            for (final var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(crypto.getHitCount() + crypto.getMissCount()).isEqualTo(512L);
+        assertThat(crypto.getIdleCount()).isLessThanOrEqualTo(crypto.getMaximumSize());
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.engines.SEEDEngine;
+import org.bouncycastle.crypto.modes.OFBBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaPrefetchingStreamCipherTest {
+
+    // waits, for a while, until all submitted workers are completed
+    private static void awaitCompleted(final AtomicInteger submitted, final AtomicInteger completed)
+            throws InterruptedException {
+        for (final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+             completed.get() < submitted.get() && System.nanoTime() < deadline; ) {
+            Thread.sleep(10L);
+        }
+        assertThat(completed.get()).isEqualTo(submitted.get());
+    }
+
+    @ValueSource(ints = {0, 1, 100, 1024, 100000})
+    @ParameterizedTest
+    void __sameAsUnderlyingCipher(final int length) {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var expected = new JinahyaStreamCipherCrypto(new OFBBlockCipher(new SEEDEngine(), 128), params)
+                .encrypt(plain);
+        try (var cipher = new JinahyaPrefetchingStreamCipher(
+                new OFBBlockCipher(new SEEDEngine(), 128), 1000, 3, ForkJoinPool.commonPool())) {
+            final var crypto = new JinahyaStreamCipherCrypto(cipher, params);
+            assertThat(crypto.encrypt(plain)).isEqualTo(expected);
+            assertThat(crypto.decrypt(expected)).isEqualTo(plain);
+        }
+    }
+
+    @ValueSource(ints = {1, 3})
+    @ParameterizedTest
+    void __lazyAndStoppedWhenFull(final int bufferCount) throws InterruptedException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(10000);
+        final var expected = new JinahyaStreamCipherCrypto(new OFBBlockCipher(new SEEDEngine(), 128), params)
+                .encrypt(plain);
+        final var submitted = new AtomicInteger();
+        final var completed = new AtomicInteger();
+        final Executor executor = r -> {
+            submitted.incrementAndGet();
+            ForkJoinPool.commonPool().execute(() -> {
+                try {
+                    r.run();
+                } finally {
+                    completed.incrementAndGet();
+                }
+            });
+        };
+        // never closed; no worker should be left waiting
+        final var cipher = new JinahyaPrefetchingStreamCipher(
+                new OFBBlockCipher(new SEEDEngine(), 128), 1000, bufferCount, executor);
+        cipher.init(true, params);
+        assertThat(submitted.get()).isZero();
+        final var encrypted = new byte[plain.length];
+        cipher.processBytes(plain, 0, 1, encrypted, 0);
+        assertThat(submitted.get()).isEqualTo(1);
+        awaitCompleted(submitted, completed);
+        cipher.processBytes(plain, 1, plain.length - 1, encrypted, 1);
+        assertThat(encrypted).isEqualTo(expected);
+        cipher.init(true, params);
+        awaitCompleted(submitted, completed);
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CFBBlockCipher;
+import org.bouncycastle.crypto.modes.OFBBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaStreamCipherUtilsTest {
+
+    // longer than a window, and not a multiple of the block size
+    private static final int LENGTH = JinahyaScratchBuffers.WINDOW_SIZE * 2 + 17;
+
+    private static StreamCipher newCipher(final String mode, final ParametersWithIV params) {
+        final StreamCipher cipher;
+        switch (mode) {
+            case "CTR":
+                cipher = SICBlockCipher.newInstance(AESEngine.newInstance());
+                break;
+            case "OFB":
+                cipher = new OFBBlockCipher(AESEngine.newInstance(), 128);
+                break;
+            case "CFB":
+                cipher = CFBBlockCipher.newInstance(AESEngine.newInstance(), 128);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown mode: " + mode);
+        }
+        cipher.init(true, params);
+        return cipher;
+    }
+
+    private static ParametersWithIV newParams() {
+        return new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+    }
+
+    private static byte[] expected(final String mode, final ParametersWithIV params, final byte[] plain) {
+        final var expected = new byte[plain.length];
+        newCipher(mode, params).processBytes(plain, 0, plain.length, expected, 0);
+        return expected;
+    }
+
+    private static ByteBuffer allocate(final boolean direct, final int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static byte[] remaining(final ByteBuffer buffer) {
+        final var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- array
+
+    @ValueSource(strings = {"CTR", "OFB", "CFB"})
+    @ParameterizedTest
+    void processBytes__exactSize(final String mode) {
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(LENGTH);
+        final var expected = expected(mode, params, plain);
+        final var in = new byte[plain.length + 3];
+        System.arraycopy(plain, 0, in, 3, plain.length);
+        final var actual = JinahyaStreamCipherUtils.processBytes(newCipher(mode, params), in, 3, plain.length);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @ValueSource(strings = {"CTR", "OFB", "CFB"})
+    @ParameterizedTest
+    void processBytes__outoff(final String mode) {
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(LENGTH);
+        final var expected = expected(mode, params, plain);
+        final var outoff = 5;
+        final var out = new byte[outoff + plain.length];
+        final var outlen = JinahyaStreamCipherUtils.processBytes(
+                newCipher(mode, params), plain, 0, plain.length, out, outoff);
+        assertThat(outlen).isEqualTo(plain.length);
+        assertThat(Arrays.copyOfRange(out, outoff, out.length)).isEqualTo(expected);
+    }
+
+    @ValueSource(strings = {"CTR", "OFB", "CFB"})
+    @ParameterizedTest
+    void processBytes__outTooShort(final String mode) {
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(LENGTH);
+        final var expected = expected(mode, params, plain);
+        final var cipher = newCipher(mode, params);
+        final var outoff = 5;
+        assertThatThrownBy(() -> JinahyaStreamCipherUtils.processBytes(
+                cipher, plain, 0, plain.length, new byte[outoff + plain.length - 1], outoff))
+                .isInstanceOf(IllegalArgumentException.class);
+        // the cipher hasn't consumed any input
+        assertThat(JinahyaStreamCipherUtils.processBytes(cipher, plain, 0, plain.length)).isEqualTo(expected);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- buffer
+
+    @ValueSource(strings = {"CTR", "OFB", "CFB"})
+    @ParameterizedTest
+    void processBytes__buffer(final String mode) {
+        final var plain = _Random_TestUtils.newRandomBytes(LENGTH);
+        for (final var inputDirect : new boolean[] {false, true}) {
+            for (final var outputDirect : new boolean[] {false, true}) {
+                final var params = newParams();
+                final var expected = expected(mode, params, plain);
+                final var input = allocate(inputDirect, plain.length + 3).position(3);
+                input.put(plain).flip().position(3);
+                final var output = allocate(outputDirect, plain.length + 5).position(5);
+                final var outlen = JinahyaStreamCipherUtils.processBytes(newCipher(mode, params), input, output);
+                assertThat(outlen).isEqualTo(plain.length);
+                assertThat(input.hasRemaining()).isFalse();
+                assertThat(output.position()).isEqualTo(5 + plain.length);
+                assertThat(remaining(output.flip().position(5))).isEqualTo(expected);
+            }
+        }
+    }
+
+    @ValueSource(strings = {"CTR", "OFB", "CFB"})
+    @ParameterizedTest
+    void processBytes__bufferOutputTooShort(final String mode) {
+        final var plain = _Random_TestUtils.newRandomBytes(LENGTH);
+        for (final var direct : new boolean[] {false, true}) {
+            final var params = newParams();
+            final var expected = expected(mode, params, plain);
+            final var cipher = newCipher(mode, params);
+            final var input = allocate(direct, plain.length).put(plain).flip();
+            final var output = allocate(direct, plain.length - 1);
+            assertThatThrownBy(() -> JinahyaStreamCipherUtils.processBytes(cipher, input, output))
+                    .isInstanceOf(BufferOverflowException.class);
+            assertThat(input.position()).isZero();
+            assertThat(output.position()).isZero();
+            // the cipher hasn't consumed any input
+            final var enough = allocate(direct, plain.length);
+            JinahyaStreamCipherUtils.processBytes(cipher, input, enough);
+            assertThat(remaining(enough.flip())).isEqualTo(expected);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- stream
+
+    @ValueSource(strings = {"CTR", "OFB", "CFB"})
+    @ParameterizedTest
+    void processAllBytes__(final String mode) throws IOException {
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(LENGTH);
+        final var expected = expected(mode, params, plain);
+        for (final var outbuf : new byte[][] {null, new byte[1], new byte[1000]}) {
+            final var out = new ByteArrayOutputStream();
+            final var bytes = JinahyaStreamCipherUtils.processAllBytes(
+                    newCipher(mode, params), new ByteArrayInputStream(plain), out, new byte[1000], outbuf);
+            assertThat(bytes).isEqualTo(plain.length);
+            assertThat(out.toByteArray()).isEqualTo(expected);
+        }
+    }
+}
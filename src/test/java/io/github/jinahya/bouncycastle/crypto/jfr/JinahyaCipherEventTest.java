@@ -0,0 +1,74 @@
+package io.github.jinahya.bouncycastle.crypto.jfr;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCipherEventTest {
+
+    private static List<RecordedEvent> events(final List<RecordedEvent> events, final String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void __gcm(@TempDir final Path dir) throws IOException {
+        final var crypto = new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                   _Random_TestUtils.newRandomBytes(12))
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(1024);
+        final var file = dir.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            recording.enable(JinahyaCipherInitEvent.NAME).withoutThreshold();
+            recording.enable(JinahyaCipherProcessEvent.NAME).withoutThreshold();
+            recording.enable(JinahyaCipherFinalizeEvent.NAME).withoutThreshold();
+            recording.enable(JinahyaCipherAuthenticationFailureEvent.NAME).withoutThreshold();
+            recording.start();
+            final var encrypted = crypto.encrypt(plain);
+            encrypted[0] ^= 1;
+            assertThatThrownBy(() -> crypto.decrypt(encrypted))
+                    .isInstanceOf(JinahyaCryptoException.class);
+            recording.stop();
+            recording.dump(file);
+        }
+        final var events = RecordingFile.readAllEvents(file);
+        final var inits = events(events, JinahyaCipherInitEvent.NAME);
+        assertThat(inits).hasSize(2);
+        assertThat(inits.get(0).getBoolean("encryption")).isTrue();
+        assertThat(inits.get(1).getBoolean("encryption")).isFalse();
+        final var processes = events(events, JinahyaCipherProcessEvent.NAME);
+        assertThat(processes).hasSize(2);
+        assertThat(processes.get(0).getLong("inputBytes")).isEqualTo(plain.length);
+        assertThat(processes.get(1).getLong("inputBytes")).isEqualTo(plain.length + 16L);
+        final var finalizes = events(events, JinahyaCipherFinalizeEvent.NAME);
+        assertThat(finalizes).hasSize(1);
+        assertThat(processes.get(0).getLong("outputBytes") + finalizes.get(0).getLong("outputBytes"))
+                .isEqualTo(plain.length + 16L);
+        final var failures = events(events, JinahyaCipherAuthenticationFailureEvent.NAME);
+        assertThat(failures).hasSize(1);
+        for (final var event : events) {
+            assertThat(event.getString("algorithm")).isEqualTo("AES");
+            assertThat(event.getString("mode")).isEqualTo("GCM");
+        }
+    }
+}
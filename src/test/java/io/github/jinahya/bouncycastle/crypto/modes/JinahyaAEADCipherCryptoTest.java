@@ -0,0 +1,109 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaAEADCipherCryptoTest {
+
+    private static JinahyaAEADCipherCrypto newCrypto(final KeyParameter key, final byte[] nonce) {
+        return new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), new AEADParameters(key, 128, nonce)
+        );
+    }
+
+    private static byte[] expected(final KeyParameter key, final byte[] nonce, final byte[] aad, final byte[] plain) {
+        return new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), new AEADParameters(key, 128, nonce, aad)
+        ).encrypt(plain);
+    }
+
+    @Test
+    void __aadBuffer() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        final var aad = _Random_TestUtils.newRandomBytes(10000);
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var crypto = newCrypto(key, nonce);
+        final var encrypted = crypto.encrypt(ByteBuffer.allocateDirect(aad.length).put(aad).flip(), plain);
+        assertThat(encrypted).isEqualTo(expected(key, nonce, aad, plain));
+        assertThat(crypto.decrypt(ByteBuffer.wrap(aad), encrypted)).isEqualTo(plain);
+        encrypted[0] ^= 1;
+        assertThatThrownBy(() -> crypto.decrypt(ByteBuffer.wrap(aad), encrypted))
+                .isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void __aadStream() throws IOException {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        final var aad = _Random_TestUtils.newRandomBytes(10000);
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var crypto = newCrypto(key, nonce);
+        final var encrypted = new ByteArrayOutputStream();
+        crypto.encrypt(new ByteArrayInputStream(aad), new ByteArrayInputStream(plain), encrypted, new byte[64]);
+        assertThat(encrypted.toByteArray()).isEqualTo(expected(key, nonce, aad, plain));
+        final var decrypted = new ByteArrayOutputStream();
+        crypto.decrypt(new ByteArrayInputStream(aad), new ByteArrayInputStream(encrypted.toByteArray()), decrypted,
+                       new byte[64]);
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+    }
+
+    @Test
+    void __aadBuffer_sameNonceRejected() {
+        final var crypto = newCrypto(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                     _Random_TestUtils.newRandomBytes(12));
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        crypto.encrypt(ByteBuffer.allocate(1), plain);
+        assertThatThrownBy(() -> crypto.encrypt(ByteBuffer.allocate(1), plain))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void message__aadBuffer() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = newCrypto(key, _Random_TestUtils.newRandomBytes(12));
+        final var aad = _Random_TestUtils.newRandomBytes(10000);
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        for (int i = 0; i < 3; i++) {
+            final var nonce = _Random_TestUtils.newRandomBytes(12);
+            final var encrypted = crypto.encrypt(ByteBuffer.allocateDirect(aad.length).put(aad).flip(), nonce, plain);
+            assertThat(encrypted).isEqualTo(expected(key, nonce, aad, plain));
+            assertThat(crypto.decrypt(ByteBuffer.wrap(aad), nonce, encrypted)).isEqualTo(plain);
+            encrypted[encrypted.length - 1] ^= 1;
+            assertThatThrownBy(() -> crypto.decrypt(ByteBuffer.wrap(aad), nonce, encrypted))
+                    .isInstanceOf(JinahyaCryptoException.class);
+        }
+    }
+
+    @Test
+    void message__aadStream() throws IOException {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = newCrypto(key, _Random_TestUtils.newRandomBytes(12));
+        final var aad = _Random_TestUtils.newRandomBytes(10000);
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        for (int i = 0; i < 3; i++) {
+            final var nonce = _Random_TestUtils.newRandomBytes(12);
+            final var encrypted = new ByteArrayOutputStream();
+            crypto.encrypt(new ByteArrayInputStream(aad), nonce, new ByteArrayInputStream(plain), encrypted,
+                           new byte[64]);
+            assertThat(encrypted.toByteArray()).isEqualTo(expected(key, nonce, aad, plain));
+            final var decrypted = new ByteArrayOutputStream();
+            crypto.decrypt(new ByteArrayInputStream(aad), nonce, new ByteArrayInputStream(encrypted.toByteArray()),
+                           decrypted, new byte[64]);
+            assertThat(decrypted.toByteArray()).isEqualTo(plain);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaScratchBuffers;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaAEADCipherUtilsTest {
+
+    private static AEADParameters newParams() {
+        return new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                  _Random_TestUtils.newRandomBytes(12));
+    }
+
+    private static ByteBuffer direct(final byte[] bytes) {
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    @Test
+    void processBytesAndDoFinal__direct() throws InvalidCipherTextException {
+        final var cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(JinahyaScratchBuffers.WINDOW_SIZE * 2 + 17);
+        cipher.init(true, params);
+        final var expected = new byte[cipher.getOutputSize(plain.length)];
+        cipher.doFinal(expected, cipher.processBytes(plain, 0, plain.length, expected, 0));
+        // ----------------------------------------------------------------------------------------------------- encrypt
+        // the GCM refuses to be re-initialized, for encryption, with the same nonce in a row
+        cipher.init(true, new AEADParameters(params.getKey(), 128, _Random_TestUtils.newRandomBytes(12)));
+        cipher.init(true, params);
+        final var input = direct(plain);
+        final var encrypted = ByteBuffer.allocateDirect(expected.length);
+        assertThat(JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, encrypted))
+                .isEqualTo(expected.length);
+        assertThat(input.hasRemaining()).isFalse();
+        assertThat(encrypted.flip()).isEqualTo(ByteBuffer.wrap(expected));
+        // ----------------------------------------------------------------------------------------------------- decrypt
+        cipher.init(false, params);
+        final var decrypted = ByteBuffer.allocateDirect(plain.length);
+        assertThat(JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, encrypted, decrypted))
+                .isEqualTo(plain.length);
+        assertThat(decrypted.flip()).isEqualTo(ByteBuffer.wrap(plain));
+    }
+
+    @Test
+    void processBytesAndDoFinal__directTagMismatch() throws InvalidCipherTextException {
+        final var cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(20000);
+        cipher.init(true, params);
+        final var encrypted = new byte[cipher.getOutputSize(plain.length)];
+        cipher.doFinal(encrypted, cipher.processBytes(plain, 0, plain.length, encrypted, 0));
+        encrypted[encrypted.length - 1] ^= 1;
+        cipher.init(false, params);
+        final var input = direct(encrypted);
+        final var output = ByteBuffer.allocateDirect(plain.length + 1).position(1);
+        assertThatThrownBy(() -> JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output))
+                .isInstanceOf(InvalidCipherTextException.class);
+        assertThat(input.position()).isZero();
+        assertThat(output.position()).isEqualTo(1);
+        // no unverified plaintext is left on the output
+        assertThat(output.clear()).isEqualTo(ByteBuffer.allocate(plain.length + 1));
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaCTRDecryptingChannelTest {
+
+    @Test
+    void read__randomRanges(@TempDir final Path dir) throws IOException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(65536 + ThreadLocalRandom.current().nextInt(1024));
+        final var cipher = SICBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(true, params);
+        final var encrypted = new byte[plain.length];
+        cipher.processBytes(plain, 0, plain.length, encrypted, 0);
+        final var file = Files.write(dir.resolve("encrypted"), encrypted);
+        try (var channel = new JinahyaCTRDecryptingChannel(
+                Files.newByteChannel(file), SICBlockCipher.newInstance(AESEngine.newInstance()), params)) {
+            for (int i = 0; i < 128; i++) {
+                final var position = ThreadLocalRandom.current().nextInt(plain.length);
+                final var dst = ByteBuffer.allocate(ThreadLocalRandom.current().nextInt(1, 8192));
+                final var read = channel.position(position).read(dst);
+                assertThat(read).isEqualTo(Math.min(dst.capacity(), plain.length - position));
+                assertThat(Arrays.copyOf(dst.array(), read))
+                        .isEqualTo(Arrays.copyOfRange(plain, position, position + read));
+            }
+        }
+    }
+}
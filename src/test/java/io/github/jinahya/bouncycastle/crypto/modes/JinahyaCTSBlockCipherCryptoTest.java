@@ -0,0 +1,53 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.ARIAEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CTSBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaCTSBlockCipherCryptoTest {
+
+    @ValueSource(ints = {16, 17, 31, 32, 33, 48, 1000, 8192})
+    @ParameterizedTest
+    void __sameAsCTSBlockCipher(final int length) throws IOException, InvalidCipherTextException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var cipher = new CTSBlockCipher(CBCBlockCipher.newInstance(new ARIAEngine()));
+        cipher.init(true, params);
+        final var expected = new byte[cipher.getOutputSize(length)];
+        cipher.doFinal(expected, cipher.processBytes(plain, 0, length, expected, 0));
+        final var crypto = new JinahyaCTSBlockCipherCrypto(
+                new CTSBlockCipher(CBCBlockCipher.newInstance(new ARIAEngine())), params);
+        assertThat(crypto.encrypt(plain)).isEqualTo(expected);
+        final var decrypted = new ByteArrayOutputStream();
+        crypto.decrypt(new ByteArrayInputStream(expected), decrypted, new byte[7]);
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+        final var session = crypto.newSession(true);
+        final var output = new ByteArrayOutputStream();
+        for (int offset = 0; offset < length; offset += 5) {
+            final var inlen = Math.min(5, length - offset);
+            final var buffer = new byte[session.getUpdateOutputSize(inlen)];
+            assertThat(session.update(plain, offset, inlen, buffer, 0)).isEqualTo(buffer.length);
+            output.write(buffer);
+        }
+        final var buffer = new byte[session.getFinalOutputSize()];
+        assertThat(buffer.length).isLessThanOrEqualTo(32);
+        assertThat(session.doFinal(buffer, 0)).isEqualTo(buffer.length);
+        output.write(buffer);
+        assertThat(output.toByteArray()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CFBBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaParallelBlockCipherProcessorTest {
+
+    @ValueSource(ints = {0, 1, 15, 16, 17, 1023, 1024, 1025, 65537})
+    @ParameterizedTest
+    void ofCBCDecryption__sameAsSequential(final int length) throws InvalidCipherTextException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var cipher = new PaddedBufferedBlockCipher(
+                CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding());
+        cipher.init(true, params);
+        final var encrypted = new byte[cipher.getOutputSize(length)];
+        final var processed = cipher.processBytes(plain, 0, length, encrypted, 0);
+        final var encryptedLength = processed + cipher.doFinal(encrypted, processed);
+        final var processor = JinahyaParallelBlockCipherProcessor.ofCBCDecryption(
+                AESEngine::newInstance, params, new PKCS7Padding(), ForkJoinPool.commonPool(), 1024);
+        assertThat(processor.process(Arrays.copyOf(encrypted, encryptedLength))).isEqualTo(plain);
+    }
+
+    @ValueSource(ints = {0, 1, 15, 16, 17, 1023, 1024, 1025, 65537})
+    @ParameterizedTest
+    void ofECB__sameAsSequential(final int length) throws InvalidCipherTextException {
+        final var params = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var cipher = new PaddedBufferedBlockCipher(AESEngine.newInstance(), new PKCS7Padding());
+        cipher.init(true, params);
+        final var expected = new byte[cipher.getOutputSize(length)];
+        final var processed = cipher.processBytes(plain, 0, length, expected, 0);
+        final var expectedLength = processed + cipher.doFinal(expected, processed);
+        final var encryptor = JinahyaParallelBlockCipherProcessor.ofECB(
+                AESEngine::newInstance, true, params, new PKCS7Padding(), ForkJoinPool.commonPool(), 1024);
+        final var encrypted = encryptor.process(plain);
+        assertThat(encrypted).isEqualTo(Arrays.copyOf(expected, expectedLength));
+        final var decryptor = JinahyaParallelBlockCipherProcessor.ofECB(
+                AESEngine::newInstance, false, params, new PKCS7Padding(), ForkJoinPool.commonPool(), 1024);
+        assertThat(decryptor.process(encrypted)).isEqualTo(plain);
+    }
+
+    @ValueSource(ints = {8, 128})
+    @ParameterizedTest
+    void ofCFBDecryption__sameAsSequential(final int bitBlockSize) throws InvalidCipherTextException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var processor = JinahyaParallelBlockCipherProcessor.ofCFBDecryption(
+                AESEngine::newInstance, bitBlockSize, params, ForkJoinPool.commonPool(), 1024);
+        for (final var length : new int[] {0, 1, 16, 1023, 1024, 1025, 65537}) {
+            final var plain = _Random_TestUtils.newRandomBytes(length);
+            final var cipher = CFBBlockCipher.newInstance(AESEngine.newInstance(), bitBlockSize);
+            cipher.init(true, params);
+            final var encrypted = new byte[length];
+            cipher.processBytes(plain, 0, length, encrypted, 0);
+            assertThat(processor.process(encrypted)).isEqualTo(plain);
+        }
+    }
+
+    @ValueSource(ints = {0, 1, 1024, 5 * 1024 + 17})
+    @ParameterizedTest
+    void process__file(final int length, @TempDir final Path dir) throws IOException, InvalidCipherTextException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var cipher = new PaddedBufferedBlockCipher(
+                CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding());
+        cipher.init(true, params);
+        final var encrypted = new byte[cipher.getOutputSize(length)];
+        final var processed = cipher.processBytes(plain, 0, length, encrypted, 0);
+        final var encryptedLength = processed + cipher.doFinal(encrypted, processed);
+        final var source = Files.write(dir.resolve("source"), Arrays.copyOf(encrypted, encryptedLength));
+        final var target = dir.resolve("target");
+        final var processor = JinahyaParallelBlockCipherProcessor.ofCBCDecryption(
+                AESEngine::newInstance, params, new PKCS7Padding(), ForkJoinPool.commonPool(), 1024);
+        assertThat(processor.process(source, target)).isEqualTo(length);
+        assertThat(target).hasBinaryContent(plain);
+        assertThatThrownBy(() -> processor.process(source, source))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ValueSource(ints = {0, 16, 512, 1008, 1024})
+    @ParameterizedTest
+    void decryptRange__(final int offset) throws InvalidCipherTextException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(1030);
+        final var cipher = new PaddedBufferedBlockCipher(
+                CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding());
+        cipher.init(true, params);
+        final var encrypted = new byte[cipher.getOutputSize(plain.length)];
+        cipher.doFinal(encrypted, cipher.processBytes(plain, 0, plain.length, encrypted, 0));
+        final var processor = JinahyaParallelBlockCipherProcessor.ofCBCDecryption(
+                AESEngine::newInstance, params, new PKCS7Padding(), ForkJoinPool.commonPool(), 1024);
+        final var out = new byte[encrypted.length];
+        final var outlen = processor.decryptRange(encrypted, offset, encrypted.length, out, 0);
+        assertThat(Arrays.copyOf(out, outlen)).isEqualTo(Arrays.copyOfRange(plain, offset, plain.length));
+    }
+
+    private static Stream<Arguments> getRangeStream() {
+        return Stream.of(
+                Arguments.of(0, 16),    // the first block
+                Arguments.of(0, 1024),  // the first chunk, ending before the last block
+                Arguments.of(512, 32),  // middle blocks
+                Arguments.of(1008, 16), // the block before the last block, at the end of the first chunk
+                Arguments.of(16, 1008), // across the chunk boundary, ending before the last block
+                Arguments.of(1024, 16), // the last block
+                Arguments.of(1024, 0),  // empty
+                Arguments.of(0, 1040)   // all
+        );
+    }
+
+    @MethodSource({"getRangeStream"})
+    @ParameterizedTest
+    void decryptRange__(final int offset, final int length, @TempDir final Path dir)
+            throws IOException, InvalidCipherTextException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(1030);
+        final var cipher = new PaddedBufferedBlockCipher(
+                CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding());
+        cipher.init(true, params);
+        final var encrypted = new byte[cipher.getOutputSize(plain.length)];
+        cipher.doFinal(encrypted, cipher.processBytes(plain, 0, plain.length, encrypted, 0));
+        assertThat(encrypted).hasSize(1040);
+        final var expected = Arrays.copyOfRange(plain, offset, Math.min(offset + length, plain.length));
+        final var processor = JinahyaParallelBlockCipherProcessor.ofCBCDecryption(
+                AESEngine::newInstance, params, new PKCS7Padding(), ForkJoinPool.commonPool(), 1024);
+        // byte[]
+        {
+            final var out = new byte[length + 1];
+            final var outlen = processor.decryptRange(encrypted, offset, length, out, 1);
+            assertThat(Arrays.copyOfRange(out, 1, 1 + outlen)).isEqualTo(expected);
+        }
+        // ByteBuffer
+        {
+            final var ciphertext = ByteBuffer.allocateDirect(encrypted.length).put(encrypted).flip();
+            final var output = ByteBuffer.allocate(length);
+            final var outlen = processor.decryptRange(ciphertext, offset, length, output);
+            assertThat(outlen).isEqualTo(output.position());
+            assertThat(ciphertext.position()).isZero();
+            assertThat(Arrays.copyOf(output.array(), outlen)).isEqualTo(expected);
+        }
+        // FileChannel
+        {
+            final var file = Files.write(dir.resolve("encrypted"), encrypted);
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final var output = ByteBuffer.allocate(length);
+                final var outlen = processor.decryptRange(channel, offset, length, output);
+                assertThat(outlen).isEqualTo(output.position());
+                assertThat(channel.position()).isZero();
+                assertThat(Arrays.copyOf(output.array(), outlen)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void decryptRange__notAligned() {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var processor = JinahyaParallelBlockCipherProcessor.ofCBCDecryption(
+                AESEngine::newInstance, params, new PKCS7Padding(), ForkJoinPool.commonPool(), 1024);
+        final var encrypted = new byte[64];
+        assertThatThrownBy(() -> processor.decryptRange(encrypted, 1, 16, new byte[16], 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> processor.decryptRange(encrypted, 16, 17, new byte[17], 0))
+                .isInstanceOf(DataLengthException.class);
+    }
+}
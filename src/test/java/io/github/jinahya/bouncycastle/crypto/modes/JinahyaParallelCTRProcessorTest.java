@@ -0,0 +1,66 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaParallelCTRProcessorTest {
+
+    @ValueSource(ints = {0, 1, 1023, 1024, 1025, 65537})
+    @ParameterizedTest
+    void process__sameAsSequential(final int length) {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var processor = new JinahyaParallelCTRProcessor(
+                AESEngine::newInstance, params, ForkJoinPool.commonPool(), 1024);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var cipher = SICBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(true, params);
+        final var expected = new byte[length];
+        cipher.processBytes(plain, 0, length, expected, 0);
+        assertThat(processor.process(plain)).isEqualTo(expected);
+        final var output = ByteBuffer.allocateDirect(length);
+        processor.process(ByteBuffer.allocateDirect(length).put(plain).flip(), output);
+        final var actual = new byte[length];
+        output.flip().get(actual);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @ValueSource(ints = {0, 1, 1024, 5 * 1024 + 17})
+    @ParameterizedTest
+    void process__file(final int length, @TempDir final Path dir) throws IOException {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var processor = new JinahyaParallelCTRProcessor(
+                AESEngine::newInstance, params, ForkJoinPool.commonPool(), 1024);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var cipher = SICBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(true, params);
+        final var expected = new byte[length];
+        cipher.processBytes(plain, 0, length, expected, 0);
+        final var source = Files.write(dir.resolve("source"), plain);
+        final var encrypted = dir.resolve("encrypted");
+        final var decrypted = dir.resolve("decrypted");
+        assertThat(processor.process(source, encrypted)).isEqualTo(length);
+        assertThat(encrypted).hasBinaryContent(expected);
+        assertThat(processor.process(encrypted, decrypted)).isEqualTo(length);
+        assertThat(decrypted).hasBinaryContent(plain);
+    }
+}
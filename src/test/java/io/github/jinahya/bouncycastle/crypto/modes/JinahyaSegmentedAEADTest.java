@@ -0,0 +1,174 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaSegmentedAEADTest {
+
+    private static JinahyaSegmentedAEAD newInstance(final KeyParameter key, final int segmentSize) {
+        return new JinahyaSegmentedAEAD(
+                () -> GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                key,
+                128,
+                12,
+                segmentSize,
+                ForkJoinPool.commonPool()
+        );
+    }
+
+    private static JinahyaSegmentedAEAD newInstance() {
+        return newInstance(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 64);
+    }
+
+    @ValueSource(ints = {0, 1, 47, 48, 49, 1024})
+    @ParameterizedTest
+    void __(final int length) throws IOException, InvalidCipherTextException {
+        final var aead = newInstance();
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = aead.encrypt(plain);
+        assertThat(encrypted).hasSize((int) aead.getCiphertextSize(length));
+        assertThat(aead.decrypt(encrypted)).isEqualTo(plain);
+        final var baos = new ByteArrayOutputStream();
+        try (var output = aead.newOutputStream(baos)) {
+            output.write(plain);
+        }
+        try (var input = aead.newInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            assertThat(input.readAllBytes()).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void decrypt__truncated() {
+        final var aead = newInstance();
+        final var encrypted = aead.encrypt(_Random_TestUtils.newRandomBytes(1024));
+        final var truncated = Arrays.copyOf(encrypted, aead.getHeaderLength() + 64);
+        assertThatThrownBy(() -> aead.decrypt(truncated)).isInstanceOf(InvalidCipherTextException.class);
+    }
+
+    @ValueSource(ints = {0, 1, 47, 48, 49, 1024})
+    @ParameterizedTest
+    void __file(final int length, @TempDir final Path dir) throws IOException, InvalidCipherTextException {
+        final var aead = newInstance();
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var source = Files.write(dir.resolve("source"), plain);
+        final var encrypted = dir.resolve("encrypted");
+        final var decrypted = dir.resolve("decrypted");
+        assertThat(aead.encrypt(source, encrypted)).isEqualTo(Files.size(encrypted));
+        assertThat(aead.decrypt(Files.readAllBytes(encrypted))).isEqualTo(plain);
+        assertThat(aead.decrypt(encrypted, decrypted)).isEqualTo(length);
+        assertThat(decrypted).hasBinaryContent(plain);
+        try (var channel = FileChannel.open(encrypted, StandardOpenOption.READ)) {
+            assertThat(aead.getPlaintextSize(channel)).isEqualTo(length);
+        }
+    }
+
+    @Test
+    void decrypt__fileTamperedMiddleSegment(@TempDir final Path dir) throws IOException {
+        final var aead = newInstance();
+        final var encrypted = aead.encrypt(_Random_TestUtils.newRandomBytes(1024));
+        encrypted[aead.getHeaderLength() + 64 * 8] ^= 1; // the first byte of a middle segment
+        final var source = Files.write(dir.resolve("encrypted"), encrypted);
+        final var previous = _Random_TestUtils.newRandomBytes(16);
+        final var target = Files.write(dir.resolve("decrypted"), previous);
+        assertThatThrownBy(() -> aead.decrypt(source, target)).isInstanceOf(InvalidCipherTextException.class);
+        assertThat(target).hasBinaryContent(previous);
+        try (var files = Files.list(dir)) {
+            assertThat(files.map(Path::getFileName).map(Path::toString)).containsOnly("encrypted", "decrypted");
+        }
+    }
+
+    @Test
+    void read__randomAccess(@TempDir final Path dir) throws IOException, InvalidCipherTextException {
+        final var aead = newInstance();
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var file = Files.write(dir.resolve("encrypted"), aead.encrypt(plain));
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (final var position : new int[] {0, 1, 47, 48, 100, 959, 960, 999}) {
+                final var dst = ByteBuffer.allocate(100);
+                final var read = aead.read(channel, position, dst);
+                assertThat(read).isEqualTo(Math.min(dst.capacity(), plain.length - position));
+                assertThat(Arrays.copyOf(dst.array(), read))
+                        .isEqualTo(Arrays.copyOfRange(plain, position, position + read));
+            }
+            assertThat(aead.read(channel, plain.length, ByteBuffer.allocate(1))).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void decrypt__reordered() {
+        final var aead = newInstance();
+        final var encrypted = aead.encrypt(_Random_TestUtils.newRandomBytes(1024));
+        final var first = aead.getHeaderLength();
+        final var second = first + 64;
+        final var segment = Arrays.copyOfRange(encrypted, first, second);
+        System.arraycopy(encrypted, second, encrypted, first, 64);
+        System.arraycopy(segment, 0, encrypted, second, 64);
+        assertThatThrownBy(() -> aead.decrypt(encrypted)).isInstanceOf(InvalidCipherTextException.class);
+        assertThatThrownBy(() -> aead.newInputStream(new ByteArrayInputStream(encrypted)).readAllBytes())
+                .isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void decrypt__tamperedHeader() {
+        final var aead = newInstance();
+        final var encrypted = aead.encrypt(_Random_TestUtils.newRandomBytes(1024));
+        encrypted[aead.getHeaderLength() - 1] ^= 1; // the last byte of the nonce prefix
+        assertThatThrownBy(() -> aead.decrypt(encrypted)).isInstanceOf(InvalidCipherTextException.class);
+        assertThatThrownBy(() -> aead.newInputStream(new ByteArrayInputStream(encrypted)).readAllBytes())
+                .isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @ValueSource(ints = {16, 65, Integer.MAX_VALUE})
+    @ParameterizedTest
+    void decrypt__segmentSizeMismatch(final int segmentSize) {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var aead = newInstance(key, 64);
+        final var encrypted = aead.encrypt(_Random_TestUtils.newRandomBytes(1024));
+        ByteBuffer.wrap(encrypted, 1, Integer.BYTES).putInt(segmentSize);
+        assertThatThrownBy(() -> aead.decrypt(encrypted)).isInstanceOf(InvalidCipherTextException.class);
+        assertThatThrownBy(() -> aead.newInputStream(new ByteArrayInputStream(encrypted)).readAllBytes())
+                .isInstanceOf(IOException.class);
+        final var other = aead.encrypt(new byte[0]);
+        assertThatThrownBy(() -> newInstance(key, 128).decrypt(other))
+                .isInstanceOf(InvalidCipherTextException.class);
+    }
+
+    /**
+     * Verifies that a message truncated at a segment boundary, whose last remaining segment was not encrypted as the
+     * last one, fails to verify.
+     */
+    @Test
+    void decrypt__lastFlagSwapped() {
+        final var aead = newInstance();
+        final var encrypted = aead.encrypt(_Random_TestUtils.newRandomBytes(1024));
+        final var truncated = Arrays.copyOf(encrypted, aead.getHeaderLength() + 64 * 2);
+        assertThatThrownBy(() -> aead.decrypt(truncated)).isInstanceOf(InvalidCipherTextException.class);
+        assertThatThrownBy(() -> aead.newInputStream(new ByteArrayInputStream(truncated)).readAllBytes())
+                .isInstanceOf(JinahyaCryptoException.class);
+        final var appended = Arrays.copyOf(encrypted, encrypted.length + 64);
+        System.arraycopy(encrypted, aead.getHeaderLength(), appended, encrypted.length, 64);
+        assertThatThrownBy(() -> aead.decrypt(appended)).isInstanceOf(InvalidCipherTextException.class);
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaSpillingCCMTest {
+
+    @ValueSource(ints = {0, 1, 1023, 1024, 1025, 65536})
+    @ParameterizedTest
+    void __sameAsCCMBlockCipher(final int length, @TempDir final Path dir)
+            throws IOException, InvalidCipherTextException {
+        final var params = new AEADParameters(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                96,
+                _Random_TestUtils.newRandomBytes(12),
+                _Random_TestUtils.newRandomBytes(31)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var cipher = CCMBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(true, params);
+        final var expected = new byte[cipher.getOutputSize(length)];
+        cipher.doFinal(expected, cipher.processBytes(plain, 0, length, expected, 0));
+        final var ccm = new JinahyaSpillingCCM(AESEngine::newInstance, params, 1024, dir);
+        final var encrypted = new ByteArrayOutputStream();
+        ccm.encrypt(new ByteArrayInputStream(plain), encrypted);
+        assertThat(encrypted.toByteArray()).isEqualTo(expected);
+        final var decrypted = new ByteArrayOutputStream();
+        ccm.decrypt(new ByteArrayInputStream(expected), decrypted);
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+        expected[0] ^= 1;
+        final var tampered = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> ccm.decrypt(new ByteArrayInputStream(expected), tampered))
+                .isInstanceOf(InvalidCipherTextException.class);
+        assertThat(tampered.size()).isZero();
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void encrypt__onlyEncryptedBytesSpilled(@TempDir final Path dir) throws IOException, InvalidCipherTextException {
+        final var proc = Path.of("/proc/self/fd");
+        Assumptions.assumeTrue(Files.isDirectory(proc), "no " + proc);
+        final var params = new AEADParameters(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                128,
+                _Random_TestUtils.newRandomBytes(12)
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(100000);
+        final var cipher = CCMBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(true, params);
+        final var expected = new byte[cipher.getOutputSize(plain.length)];
+        cipher.doFinal(expected, cipher.processBytes(plain, 0, plain.length, expected, 0));
+        // captures the spilled bytes, written so far, once the input is exhausted
+        final var spilled = new AtomicReference<byte[]>();
+        final var in = new FilterInputStream(new ByteArrayInputStream(plain)) {
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                final var r = super.read(b, off, len);
+                if (r == -1 && spilled.get() == null) {
+                    // the spilled file, deleted on close, may be unlinked already; read it through its descriptor
+                    try (var descriptors = Files.list(proc)) {
+                        final var descriptor = descriptors
+                                .filter(d -> {
+                                    try {
+                                        return Files.readSymbolicLink(d).toString().startsWith(dir.toString());
+                                    } catch (final IOException ioe) {
+                                        return false;
+                                    }
+                                })
+                                .findFirst()
+                                .orElseThrow();
+                        spilled.set(Files.readAllBytes(descriptor));
+                    }
+                }
+                return r;
+            }
+        };
+        final var ccm = new JinahyaSpillingCCM(AESEngine::newInstance, params, 1000, dir);
+        final var encrypted = new ByteArrayOutputStream();
+        ccm.encrypt(in, encrypted);
+        assertThat(encrypted.toByteArray()).isEqualTo(expected);
+        final var bytes = spilled.get();
+        assertThat(bytes).isNotEmpty();
+        assertThat(bytes).isEqualTo(Arrays.copyOf(expected, bytes.length));
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}